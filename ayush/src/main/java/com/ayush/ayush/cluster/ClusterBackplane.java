@@ -0,0 +1,37 @@
+package com.ayush.ayush.cluster;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Transport between signaling nodes. Implementations must deliver the batches sent from one node to another
+ * in order, and tell every node about membership changes. A membership change must reach a node before any
+ * batch sent by a node that had already seen the change, so rooms that move are never re-registered with a
+ * node that still believes in the old owner.
+ */
+public interface ClusterBackplane {
+
+    String localNodeId();
+
+    /**
+     * The nodes currently in the cluster, including this one.
+     */
+    Set<String> members();
+
+    /**
+     * Sends a batch of envelopes to one node.
+     */
+    void send(String nodeId, List<ClusterEnvelope> batch);
+
+    /**
+     * Starts delivering incoming batches and membership changes to the listener.
+     */
+    void start(Listener listener);
+
+    interface Listener {
+
+        void onBatch(String fromNodeId, List<ClusterEnvelope> batch);
+
+        void onMembershipChange(Set<String> members);
+    }
+}
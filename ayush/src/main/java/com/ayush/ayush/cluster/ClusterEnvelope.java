@@ -0,0 +1,43 @@
+package com.ayush.ayush.cluster;
+
+import java.util.List;
+
+/**
+ * A message exchanged between signaling nodes. Frames travel in their encoded wire form,
+ * so the node that delivers them never has to re-serialize anything.
+ */
+public sealed interface ClusterEnvelope {
+
+    String roomId();
+
+    /**
+     * A participant connected to {@code nodeId} joined; sent to the room's owner.
+     * Re-registrations after an ownership move are not announced to the room.
+     */
+    record Join(String roomId, String userId, String sessionId, String nodeId, boolean announce) implements ClusterEnvelope {
+    }
+
+    /**
+     * A participant left; sent to the room's owner.
+     */
+    record Leave(String roomId, String userId, String sessionId) implements ClusterEnvelope {
+    }
+
+    /**
+     * A frame for one participant whose node the sender does not know; sent to the room's owner.
+     */
+    record Forward(String roomId, String targetUserId, String type, String frame) implements ClusterEnvelope {
+    }
+
+    /**
+     * A frame for everyone in the room except the sender; sent to the room's owner.
+     */
+    record Broadcast(String roomId, String senderUserId, String type, String frame) implements ClusterEnvelope {
+    }
+
+    /**
+     * A frame for participants connected to the receiving node.
+     */
+    record Deliver(String roomId, List<String> userIds, String type, String frame) implements ClusterEnvelope {
+    }
+}
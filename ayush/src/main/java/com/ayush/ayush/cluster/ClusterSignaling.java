@@ -0,0 +1,351 @@
+package com.ayush.ayush.cluster;
+
+import com.ayush.ayush.participant.UserSession;
+import com.ayush.ayush.service.RoomManager;
+import com.ayush.ayush.signaling.EncodedFrame;
+import com.ayush.ayush.signaling.FrameEncoder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes signaling between nodes when a room's participants are connected to different JVMs.
+ * <p>
+ * Every room has an owner node, picked by consistent hashing over the cluster members. The owner keeps the room's
+ * directory (which node each participant is connected to), announces joins and leaves, and resolves forwards and
+ * broadcasts into deliveries to the nodes holding the target sessions. The sessions themselves stay in the
+ * local {@link RoomManager} of the node they are connected to.
+ * <p>
+ * When membership changes, rooms that moved are rebuilt on their new owner from what each node holds locally.
+ * Envelopes for the same destination node are queued and sent as one batch.
+ */
+public class ClusterSignaling implements ClusterBackplane.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterSignaling.class);
+
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final ClusterBackplane backplane;
+    private final RoomManager roomManager;
+    private final FrameEncoder frameEncoder;
+    private final String localNodeId;
+    private volatile ConsistentHashRing ring;
+
+    // The directories of the rooms this node owns: [roomId] -> [userId] -> where that participant is connected.
+    // Like RoomManager, every change goes through compute on the outer map, so a room is never dropped under a joiner.
+    private final ConcurrentMap<String, ConcurrentMap<String, Member>> directory = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, NodeOutbox> outboxes = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong envelopesSent = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+
+    private record Member(String nodeId, String sessionId) {
+    }
+
+    /**
+     * @param envelopesSent Envelopes sent to other nodes.
+     * @param batchesSent   Backplane sends they were grouped into.
+     */
+    public record Stats(long envelopesSent, long batchesSent) {
+    }
+
+    public ClusterSignaling(ClusterBackplane backplane, RoomManager roomManager, FrameEncoder frameEncoder) {
+        this.backplane = backplane;
+        this.roomManager = roomManager;
+        this.frameEncoder = frameEncoder;
+        this.localNodeId = backplane.localNodeId();
+        this.ring = new ConsistentHashRing(backplane.members());
+        backplane.start(this);
+    }
+
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    /**
+     * The cluster members as this node currently sees them.
+     */
+    public Set<String> getMembers() {
+        return ring.getMembers();
+    }
+
+    public String ownerOf(String roomId) {
+        return ring.ownerOf(roomId);
+    }
+
+    /**
+     * The room's cluster-wide roster, if this node owns it.
+     */
+    public Set<String> getRoomMembers(String roomId) {
+        Map<String, Member> room = directory.get(roomId);
+        return room == null ? Set.of() : Set.copyOf(room.keySet());
+    }
+
+    public Stats stats() {
+        return new Stats(envelopesSent.get(), batchesSent.get());
+    }
+
+    /**
+     * Registers a participant who joined on this node with the room's owner, which announces them to the room.
+     */
+    public void join(UserSession user) {
+        route(new ClusterEnvelope.Join(user.getRoomId(), user.getUserId(), user.getWebSocketSession().getId(),
+                localNodeId, true));
+    }
+
+    /**
+     * Tells the room's owner that a participant of this node left; the owner announces it to the room.
+     */
+    public void leave(UserSession user) {
+        route(new ClusterEnvelope.Leave(user.getRoomId(), user.getUserId(), user.getWebSocketSession().getId()));
+    }
+
+    /**
+     * Sends a frame to a participant who is not connected to this node.
+     */
+    public void forward(String roomId, String targetUserId, EncodedFrame frame) {
+        route(new ClusterEnvelope.Forward(roomId, targetUserId, frame.type(), frame.message().getPayload()));
+    }
+
+    /**
+     * Sends a frame to everyone in the room except the sender, on whichever nodes they are connected to.
+     */
+    public void broadcast(String roomId, String senderUserId, EncodedFrame frame) {
+        route(new ClusterEnvelope.Broadcast(roomId, senderUserId, frame.type(), frame.message().getPayload()));
+    }
+
+    @Override
+    public void onBatch(String fromNodeId, List<ClusterEnvelope> batch) {
+        batch.forEach(this::handle);
+    }
+
+    @Override
+    public void onMembershipChange(Set<String> members) {
+        ConsistentHashRing previous = ring;
+        ring = new ConsistentHashRing(members);
+        logger.info("Cluster membership changed: {}", members);
+        outboxes.keySet().retainAll(members);
+
+        // Rooms this node no longer owns are rebuilt by their new owner.
+        directory.keySet().removeIf(roomId -> !ring.ownerOf(roomId).equals(localNodeId));
+        // Participants of departed nodes have lost their connection; tell the rest of the room.
+        for (String roomId : directory.keySet()) {
+            List<String> departed = new ArrayList<>();
+            directory.computeIfPresent(roomId, (id, room) -> {
+                room.forEach((userId, member) -> {
+                    if (!members.contains(member.nodeId()) && room.remove(userId, member)) {
+                        departed.add(userId);
+                    }
+                });
+                return room.isEmpty() ? null : room;
+            });
+            departed.forEach(userId -> announce(roomId, null, "participant_left", Map.of("userId", userId)));
+        }
+        // Re-register this node's participants with the new owners of rooms that moved.
+        for (String roomId : roomManager.getRoomIds()) {
+            if (previous.getMembers().isEmpty() || !previous.ownerOf(roomId).equals(ring.ownerOf(roomId))) {
+                roomManager.getParticipantsInRoom(roomId).ifPresent(participants -> participants.values().forEach(user ->
+                        route(new ClusterEnvelope.Join(roomId, user.getUserId(), user.getWebSocketSession().getId(),
+                                localNodeId, false))));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    private void route(ClusterEnvelope envelope) {
+        sendTo(ring.ownerOf(envelope.roomId()), envelope);
+    }
+
+    private void sendTo(String nodeId, ClusterEnvelope envelope) {
+        if (nodeId.equals(localNodeId)) {
+            handle(envelope);
+        } else {
+            outboxes.computeIfAbsent(nodeId, NodeOutbox::new).add(envelope);
+        }
+    }
+
+    private void handle(ClusterEnvelope envelope) {
+        if (!(envelope instanceof ClusterEnvelope.Deliver) && !ring.ownerOf(envelope.roomId()).equals(localNodeId)) {
+            // Sent while ownership was moving; pass it on to the current owner.
+            route(envelope);
+            return;
+        }
+        switch (envelope) {
+            case ClusterEnvelope.Join join -> handleJoin(join);
+            case ClusterEnvelope.Leave leave -> handleLeave(leave);
+            case ClusterEnvelope.Forward forward -> handleForward(forward);
+            case ClusterEnvelope.Broadcast broadcast -> handleBroadcast(broadcast);
+            case ClusterEnvelope.Deliver deliver -> deliverLocally(deliver);
+        }
+    }
+
+    private void handleJoin(ClusterEnvelope.Join join) {
+        Set<String> existing = new HashSet<>();
+        directory.compute(join.roomId(), (roomId, room) -> {
+            if (room == null) {
+                room = new ConcurrentHashMap<>();
+            }
+            for (String userId : room.keySet()) {
+                if (!userId.equals(join.userId())) {
+                    existing.add(userId);
+                }
+            }
+            room.put(join.userId(), new Member(join.nodeId(), join.sessionId()));
+            return room;
+        });
+        if (!join.announce()) {
+            return;
+        }
+        EncodedFrame roster = encode("existing_participants", Map.of("userIds", existing));
+        if (roster != null) {
+            sendTo(join.nodeId(), deliver(join.roomId(), List.of(join.userId()), roster));
+        }
+        announce(join.roomId(), join.userId(), "new_participant", Map.of("userId", join.userId()));
+    }
+
+    private void handleLeave(ClusterEnvelope.Leave leave) {
+        boolean[] removed = new boolean[1];
+        directory.computeIfPresent(leave.roomId(), (roomId, room) -> {
+            Member member = room.get(leave.userId());
+            // Only this exact session is removed: the user may already have rejoined on another socket.
+            if (member != null && member.sessionId().equals(leave.sessionId())) {
+                removed[0] = room.remove(leave.userId(), member);
+            }
+            return room.isEmpty() ? null : room;
+        });
+        if (removed[0]) {
+            announce(leave.roomId(), leave.userId(), "participant_left", Map.of("userId", leave.userId()));
+        }
+    }
+
+    private void handleForward(ClusterEnvelope.Forward forward) {
+        Map<String, Member> room = directory.get(forward.roomId());
+        Member target = room != null ? room.get(forward.targetUserId()) : null;
+        if (target == null) {
+            logger.warn("Could not find participant {} in room {} to forward message", forward.targetUserId(), forward.roomId());
+            return;
+        }
+        sendTo(target.nodeId(), new ClusterEnvelope.Deliver(forward.roomId(), List.of(forward.targetUserId()),
+                forward.type(), forward.frame()));
+    }
+
+    private void handleBroadcast(ClusterEnvelope.Broadcast broadcast) {
+        fanOut(broadcast.roomId(), broadcast.senderUserId(), broadcast.type(), broadcast.frame());
+    }
+
+    private void announce(String roomId, String excludedUserId, String type, Object payload) {
+        EncodedFrame frame = encode(type, payload);
+        if (frame != null) {
+            fanOut(roomId, excludedUserId, frame.type(), frame.message().getPayload());
+        }
+    }
+
+    // One Deliver per node that holds recipients, however many recipients it holds.
+    private void fanOut(String roomId, String excludedUserId, String type, String frame) {
+        Map<String, Member> room = directory.get(roomId);
+        if (room == null) {
+            return;
+        }
+        Map<String, List<String>> recipientsByNode = new HashMap<>();
+        room.forEach((userId, member) -> {
+            if (!userId.equals(excludedUserId)) {
+                recipientsByNode.computeIfAbsent(member.nodeId(), n -> new ArrayList<>()).add(userId);
+            }
+        });
+        recipientsByNode.forEach((nodeId, userIds) ->
+                sendTo(nodeId, new ClusterEnvelope.Deliver(roomId, userIds, type, frame)));
+    }
+
+    private void deliverLocally(ClusterEnvelope.Deliver deliver) {
+        EncodedFrame frame = new EncodedFrame(deliver.type(), new TextMessage(deliver.frame()));
+        for (String userId : deliver.userIds()) {
+            roomManager.getParticipant(deliver.roomId(), userId)
+                    .ifPresent(user -> user.getOutbound().enqueue(frame));
+        }
+    }
+
+    private static ClusterEnvelope.Deliver deliver(String roomId, List<String> userIds, EncodedFrame frame) {
+        return new ClusterEnvelope.Deliver(roomId, userIds, frame.type(), frame.message().getPayload());
+    }
+
+    private EncodedFrame encode(String type, Object payload) {
+        try {
+            return frameEncoder.encode(type, payload);
+        } catch (IOException e) {
+            logger.error("Failed to encode '{}' message: {}", type, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Envelopes waiting for one destination node. Whatever piles up while a send is in flight goes out
+     * as the next batch, so batches grow with load without adding latency when the link is idle.
+     */
+    private final class NodeOutbox {
+
+        private final String nodeId;
+        private final ConcurrentLinkedQueue<ClusterEnvelope> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushing = new AtomicBoolean();
+
+        private NodeOutbox(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        private void add(ClusterEnvelope envelope) {
+            queue.add(envelope);
+            if (flushing.compareAndSet(false, true)) {
+                senders.execute(this::flush);
+            }
+        }
+
+        private void flush() {
+            do {
+                List<ClusterEnvelope> batch = new ArrayList<>();
+                ClusterEnvelope next;
+                while ((next = queue.poll()) != null) {
+                    batch.add(next);
+                    if (batch.size() == MAX_BATCH_SIZE) {
+                        send(batch);
+                        batch = new ArrayList<>();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    send(batch);
+                }
+                flushing.set(false);
+            } while (!queue.isEmpty() && flushing.compareAndSet(false, true));
+        }
+
+        private void send(List<ClusterEnvelope> batch) {
+            try {
+                backplane.send(nodeId, batch);
+                envelopesSent.addAndGet(batch.size());
+                batchesSent.incrementAndGet();
+            } catch (Exception e) {
+                logger.error("❌ Failed to send {} envelopes to node {}: {}", batch.size(), nodeId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ayush.ayush.cluster;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Assigns keys (room ids) to cluster members by consistent hashing.
+ * Every member is placed on the ring many times, so adding or removing one member only moves
+ * the keys that member gains or loses; everything else keeps its owner. Immutable: a membership
+ * change builds a new ring.
+ */
+public class ConsistentHashRing {
+
+    private static final int VIRTUAL_NODES = 128;
+
+    private final Set<String> members;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> members) {
+        this.members = Set.copyOf(members);
+        for (String member : this.members) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(member + "#" + i), member);
+            }
+        }
+    }
+
+    public Set<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * @return The member that owns the key.
+     * @throws IllegalStateException if the ring has no members.
+     */
+    public String ownerOf(String key) {
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("The cluster has no members");
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    // FNV-1a followed by a 64-bit finalizer: cheap, stable across JVMs, and well spread even for similar ids.
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
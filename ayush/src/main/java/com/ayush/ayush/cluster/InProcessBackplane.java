@@ -0,0 +1,135 @@
+package com.ayush.ayush.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * A backplane whose nodes all live in the same JVM. Each node has a single inbox thread, so batches arrive
+ * in the order they were sent, but asynchronously, like they would over a network.
+ * Used for single-instance deployments and for exercising multi-node routing in tests.
+ */
+public class InProcessBackplane implements ClusterBackplane {
+
+    private static final Logger logger = LoggerFactory.getLogger(InProcessBackplane.class);
+
+    /**
+     * The set of nodes that can reach each other.
+     */
+    public static class Network {
+
+        private final ConcurrentMap<String, InProcessBackplane> nodes = new ConcurrentHashMap<>();
+        // Sends hold the read lock and membership changes the write lock, so a change reaches every inbox
+        // before any message sent by a node that has already seen it.
+        private final ReadWriteLock membershipLock = new ReentrantReadWriteLock();
+
+        public InProcessBackplane join(String nodeId) {
+            membershipLock.writeLock().lock();
+            try {
+                InProcessBackplane node = new InProcessBackplane(this, nodeId);
+                if (nodes.putIfAbsent(nodeId, node) != null) {
+                    throw new IllegalArgumentException("Node " + nodeId + " is already a member");
+                }
+                announceMembership();
+                return node;
+            } finally {
+                membershipLock.writeLock().unlock();
+            }
+        }
+
+        public void leave(String nodeId) {
+            membershipLock.writeLock().lock();
+            try {
+                InProcessBackplane node = nodes.remove(nodeId);
+                if (node != null) {
+                    node.inbox.shutdown();
+                    announceMembership();
+                }
+            } finally {
+                membershipLock.writeLock().unlock();
+            }
+        }
+
+        private Set<String> members() {
+            return Set.copyOf(nodes.keySet());
+        }
+
+        private void announceMembership() {
+            Set<String> members = members();
+            nodes.values().forEach(node -> node.deliver(listener -> listener.onMembershipChange(members)));
+        }
+    }
+
+    private final Network network;
+    private final String nodeId;
+    private final ExecutorService inbox;
+    private volatile Listener listener;
+    // Events that arrive before start() wait in the inbox instead of being lost.
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private InProcessBackplane(Network network, String nodeId) {
+        this.network = network;
+        this.nodeId = nodeId;
+        this.inbox = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("backplane-" + nodeId).factory());
+    }
+
+    @Override
+    public String localNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public Set<String> members() {
+        return network.members();
+    }
+
+    @Override
+    public void send(String nodeId, List<ClusterEnvelope> batch) {
+        List<ClusterEnvelope> copy = List.copyOf(batch);
+        network.membershipLock.readLock().lock();
+        try {
+            InProcessBackplane target = network.nodes.get(nodeId);
+            if (target == null) {
+                logger.warn("Dropping {} envelopes for node {}, which is not a member", batch.size(), nodeId);
+                return;
+            }
+            target.deliver(listener -> listener.onBatch(this.nodeId, copy));
+        } finally {
+            network.membershipLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+        started.countDown();
+    }
+
+    private void deliver(Consumer<Listener> event) {
+        try {
+            inbox.execute(() -> {
+                try {
+                    started.await();
+                    event.accept(listener);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    logger.error("❌ Node {} failed to process a backplane event:", nodeId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Node {} has left; dropping backplane event", nodeId);
+        }
+    }
+}
@@ -1,18 +1,76 @@
 package com.ayush.ayush.config;
 
+import com.ayush.ayush.service.JanusClient;
+import com.ayush.ayush.service.JanusMetrics;
+import com.ayush.ayush.service.JanusNode;
+import com.ayush.ayush.service.JanusNodes;
+import com.ayush.ayush.service.JanusSessionPool;
+import com.ayush.ayush.util.CircuitBreaker;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
+@EnableConfigurationProperties({JanusClientProperties.class, JanusNodeProperties.class, SignalingJournalProperties.class,
+        SignalingAdmissionProperties.class})
 public class AppConfig {
 
+    /**
+     * One client and session pool per configured Janus node; see {@link JanusNodeProperties}.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public JanusNodes janusNodes(ObjectMapper objectMapper, JanusClientProperties clientProperties,
+                                 JanusNodeProperties nodeProperties, JanusMetrics janusMetrics,
+                                 @Value("${janus.pool.size:2}") int poolSize,
+                                 @Value("${janus.health.failure-threshold:2}") int failureThreshold) {
+        List<JanusNode> nodes = new ArrayList<>();
+        nodeProperties.nodes().forEach((id, node) -> {
+            JanusClient client = createJanusClient(objectMapper, clientProperties, "janus-" + id, node.url());
+            nodes.add(new JanusNode(id, node.publicUrl(), node.maxRooms(), node.maxPublishers(), client,
+                    new JanusSessionPool(client, janusMetrics, poolSize), janusMetrics));
+        });
+        JanusNodes janusNodes = new JanusNodes(nodes, JanusNodeProperties.DEFAULT_NODE, failureThreshold);
+        nodeProperties.nodes().forEach((id, node) -> janusNodes.setDraining(id, node.draining()));
+        return janusNodes;
+    }
+
+    public static JanusClient createJanusClient(ObjectMapper objectMapper, JanusClientProperties properties, String baseUrl) {
+        return createJanusClient(objectMapper, properties, "janus", baseUrl);
+    }
+
+    /**
+     * Builds a Janus client on its own pooled connection provider, so Janus calls never wait behind other HTTP traffic.
+     * The name labels its connection pool and circuit breaker.
+     */
+    public static JanusClient createJanusClient(ObjectMapper objectMapper, JanusClientProperties properties,
+                                                String name, String baseUrl) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(name)
+                .maxConnections(properties.maxConnections())
+                .pendingAcquireTimeout(properties.callTimeout())
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.connectTimeout().toMillis())
+                .responseTimeout(properties.callTimeout());
+        WebClient webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        CircuitBreaker circuitBreaker = new CircuitBreaker(name, properties.breakerFailureThreshold(), properties.breakerOpenDuration());
+        return new JanusClient(webClient, objectMapper, baseUrl, properties.callTimeout(),
+                properties.maxRetries(), properties.retryBackoff(), circuitBreaker);
     }
 
 
@@ -29,4 +87,4 @@ public class AppConfig {
 
         return objectMapper;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.ayush.ayush.config;
+
+import com.ayush.ayush.cluster.ClusterBackplane;
+import com.ayush.ayush.cluster.ClusterSignaling;
+import com.ayush.ayush.cluster.InProcessBackplane;
+import com.ayush.ayush.service.RoomManager;
+import com.ayush.ayush.signaling.FrameEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+/**
+ * Cluster mode for /signaling. The backplane is pluggable: this default only connects nodes inside one JVM,
+ * so a multi-instance deployment replaces the ClusterBackplane bean with one backed by its messaging system.
+ */
+@Configuration
+@ConditionalOnProperty(name = "signaling.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    @Bean
+    public ClusterBackplane clusterBackplane(@Value("${signaling.cluster.node-id:}") String nodeId) {
+        return new InProcessBackplane.Network().join(nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId);
+    }
+
+    @Bean
+    public ClusterSignaling clusterSignaling(ClusterBackplane clusterBackplane, RoomManager roomManager,
+                                             FrameEncoder frameEncoder) {
+        return new ClusterSignaling(clusterBackplane, roomManager, frameEncoder);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ayush.ayush.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Connection pool, timeout, retry and circuit breaker settings for the Janus HTTP client ("janus.client.*").
+ */
+@ConfigurationProperties(prefix = "janus.client")
+public record JanusClientProperties(
+        @DefaultValue("50") int maxConnections,
+        @DefaultValue("2s") Duration connectTimeout,
+        @DefaultValue("3s") Duration callTimeout,
+        @DefaultValue("2") int maxRetries,
+        @DefaultValue("100ms") Duration retryBackoff,
+        @DefaultValue("5") int breakerFailureThreshold,
+        @DefaultValue("10s") Duration breakerOpenDuration) {
+}
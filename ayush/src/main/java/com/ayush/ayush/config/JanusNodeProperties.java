@@ -0,0 +1,51 @@
+package com.ayush.ayush.config;
+
+import com.ayush.ayush.service.JanusClient;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Janus servers rooms are placed on ("janus.url" and "janus.nodes.*"), see {@code JanusNodes}.
+ * Without any "janus.nodes" entry, "janus.url" is the only node, named "default". Rooms created before nodes
+ * were recorded belong to the node named "default", or to the first node if there is none by that name.
+ *
+ * @param url   The single Janus server when no nodes are listed.
+ * @param nodes Janus servers by name; the name is stored with every room placed on the node.
+ */
+@ConfigurationProperties(prefix = "janus")
+public record JanusNodeProperties(
+        @DefaultValue(JanusClient.DEFAULT_URL) String url,
+        Map<String, Node> nodes) {
+
+    public static final String DEFAULT_NODE = "default";
+
+    public JanusNodeProperties {
+        if (nodes == null || nodes.isEmpty()) {
+            nodes = Map.of(DEFAULT_NODE, new Node(url, null, 0, 0, false));
+        } else {
+            nodes = new LinkedHashMap<>(nodes);
+        }
+    }
+
+    /**
+     * @param url           Admin REST endpoint used by this service.
+     * @param publicUrl     Endpoint handed to clients that join a room on this node; defaults to url.
+     * @param maxRooms      Rooms the node takes before it counts as full; 0 or less means no limit.
+     * @param maxPublishers Participants across all its rooms before it counts as full; 0 or less means no limit.
+     * @param draining      Whether the node starts out drained, taking no new rooms.
+     */
+    public record Node(String url, String publicUrl, int maxRooms, int maxPublishers, boolean draining) {
+
+        public Node {
+            if (url == null || url.isBlank()) {
+                throw new IllegalArgumentException("Every Janus node needs a url");
+            }
+            if (publicUrl == null || publicUrl.isBlank()) {
+                publicUrl = url;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ayush.ayush.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admission control settings ("signaling.admission.*"), see {@code AdmissionControl}.
+ * Session budgets are keyed by message class: "join" (join and resume), "sdp" (offer and answer), "ice"
+ * (ice_candidate and ice_candidates, one token per candidate) and "presence" (roster_sync and anything else).
+ * Classes that are not configured keep their defaults.
+ *
+ * @param roomPerMember   A room's shared budget for all messages, multiplied by its number of members.
+ * @param iceReserve      Fraction of a room's burst that ICE may not use, so offers and answers still get through.
+ * @param presenceReserve Likewise for presence traffic.
+ * @param shedPresenceAt  Messages admitted but not yet handled on this node above which presence is shed.
+ * @param shedIceAt       Likewise for ICE. Offers, answers and joins are never shed.
+ */
+@ConfigurationProperties(prefix = "signaling.admission")
+public record SignalingAdmissionProperties(
+        @DefaultValue("true") boolean enabled,
+        Map<String, Budget> session,
+        Budget roomPerMember,
+        @DefaultValue("0.25") double iceReserve,
+        @DefaultValue("0.5") double presenceReserve,
+        @DefaultValue("128") int shedPresenceAt,
+        @DefaultValue("512") int shedIceAt) {
+
+    private static final Map<String, Budget> DEFAULT_SESSION = Map.of(
+            "join", new Budget(0.2, 3),
+            "sdp", new Budget(10, 20),
+            "ice", new Budget(50, 100),
+            "presence", new Budget(2, 5));
+
+    public SignalingAdmissionProperties {
+        Map<String, Budget> merged = new HashMap<>(DEFAULT_SESSION);
+        if (session != null) {
+            merged.putAll(session);
+        }
+        session = Map.copyOf(merged);
+        roomPerMember = roomPerMember == null ? new Budget(50, 100) : roomPerMember;
+    }
+
+    /**
+     * @param rate  Tokens per second; 0 or less means unlimited.
+     * @param burst Tokens that can be spent at once; defaults to one second's worth.
+     */
+    public record Budget(double rate, double burst) {
+
+        public Budget {
+            if (burst <= 0) {
+                burst = Math.max(1, rate);
+            }
+        }
+
+        public boolean unlimited() {
+            return rate <= 0;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ayush.ayush.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Signaling journal settings ("signaling.journal.*").
+ * Sampling and payload truncation can be overridden per message type and per room; a room override wins over
+ * a type override, which wins over the defaults.
+ */
+@ConfigurationProperties(prefix = "signaling.journal")
+public record SignalingJournalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("journal") Path directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("8") int maxSegments,
+        @DefaultValue("65536") int bufferSize,
+        @DefaultValue("50ms") Duration flushInterval,
+        @DefaultValue("1.0") double sampleRate,
+        @DefaultValue("512") int payloadLimit,
+        Map<String, Policy> types,
+        Map<String, Policy> rooms) {
+
+    public SignalingJournalProperties {
+        types = types == null ? Map.of() : Map.copyOf(types);
+        rooms = rooms == null ? Map.of() : Map.copyOf(rooms);
+    }
+
+    /**
+     * An override; unset fields fall through to the next level.
+     *
+     * @param sampleRate   Fraction of events recorded, 0.0 to 1.0.
+     * @param payloadLimit Characters of the inbound frame kept; 0 keeps none.
+     */
+    public record Policy(Double sampleRate, Integer payloadLimit) {
+    }
+
+    public double sampleRate(String roomId, String type) {
+        Policy room = roomId == null ? null : rooms.get(roomId);
+        if (room != null && room.sampleRate() != null) {
+            return room.sampleRate();
+        }
+        Policy byType = type == null ? null : types.get(type);
+        return byType != null && byType.sampleRate() != null ? byType.sampleRate() : sampleRate;
+    }
+
+    public int payloadLimit(String roomId, String type) {
+        Policy room = roomId == null ? null : rooms.get(roomId);
+        if (room != null && room.payloadLimit() != null) {
+            return room.payloadLimit();
+        }
+        Policy byType = type == null ? null : types.get(type);
+        return byType != null && byType.payloadLimit() != null ? byType.payloadLimit() : payloadLimit;
+    }
+}
@@ -1,20 +1,26 @@
 package com.ayush.ayush.config;
 
+import com.ayush.ayush.signaling.BinaryProtocol;
 import com.ayush.ayush.signaling.SFUSignalingHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 @Configuration
 @EnableWebSocket // This annotation is essential. It enables the WebSocket server functionality.
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final SFUSignalingHandler sfuSignalingHandler;
+    private final boolean binaryProtocolEnabled;
 
     // Spring will automatically inject your SFUSignalingHandler bean here.
-    public WebSocketConfig(SFUSignalingHandler sfuSignalingHandler) {
+    public WebSocketConfig(SFUSignalingHandler sfuSignalingHandler,
+                           @Value("${signaling.binary.enabled:true}") boolean binaryProtocolEnabled) {
         this.sfuSignalingHandler = sfuSignalingHandler;
+        this.binaryProtocolEnabled = binaryProtocolEnabled;
     }
 
     @Override
@@ -23,6 +29,11 @@ public class WebSocketConfig implements WebSocketConfigurer {
         // 1. Use our SFUSignalingHandler to handle WebSocket messages.
         // 2. Listen for incoming connections on the "/signaling" path.
         // 3. Allow connections from any origin ("*"). This is crucial for development.
-        registry.addHandler(sfuSignalingHandler, "/signaling").setAllowedOrigins("*");
+        // 4. Offer the binary subprotocol to clients that ask for it; everyone else keeps JSON text frames.
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        if (binaryProtocolEnabled) {
+            handshakeHandler.setSupportedProtocols(BinaryProtocol.SUBPROTOCOL);
+        }
+        registry.addHandler(sfuSignalingHandler, "/signaling").setHandshakeHandler(handshakeHandler).setAllowedOrigins("*");
     }
 }
\ No newline at end of file
@@ -1,8 +1,15 @@
 package com.ayush.ayush.controller;
 
+import com.ayush.ayush.service.JanusNode;
+import com.ayush.ayush.service.JanusNodes;
 import com.ayush.ayush.service.JanusService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
 
 
 @RestController
@@ -14,13 +21,53 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 public class JanusController {
 
     private final JanusService janusService;
+    private final JanusNodes janusNodes;
 
-    public JanusController(JanusService janusService) {
+    public JanusController(JanusService janusService, JanusNodes janusNodes) {
         this.janusService = janusService;
+        this.janusNodes = janusNodes;
     }
 
     @PostMapping("/create-room")
-    public Long createRoom() {
+    public Mono<JanusService.JanusRoom> createRoom() {
         return janusService.createRoom();
     }
+
+    /**
+     * Health, drain state and last seen load of every Janus node.
+     */
+    @GetMapping("/nodes")
+    public List<Map<String, Object>> nodes() {
+        return janusNodes.all().stream().map(JanusController::describe).toList();
+    }
+
+    /**
+     * Stops placing new rooms on a node, e.g. before maintenance. Its running meetings are not affected.
+     */
+    @PostMapping("/nodes/{id}/drain")
+    public ResponseEntity<?> drain(@PathVariable String id) {
+        return setDraining(id, true);
+    }
+
+    @DeleteMapping("/nodes/{id}/drain")
+    public ResponseEntity<?> undrain(@PathVariable String id) {
+        return setDraining(id, false);
+    }
+
+    private ResponseEntity<?> setDraining(String id, boolean draining) {
+        if (!janusNodes.setDraining(id, draining)) {
+            return ResponseEntity.status(404).body(Map.of("error", "Unknown Janus node '" + id + "'"));
+        }
+        return ResponseEntity.ok(describe(janusNodes.get(id).orElseThrow()));
+    }
+
+    private static Map<String, Object> describe(JanusNode node) {
+        return Map.of(
+                "id", node.getId(),
+                "publicUrl", node.getPublicUrl(),
+                "healthy", node.isHealthy(),
+                "draining", node.isDraining(),
+                "rooms", node.getRooms(),
+                "publishers", node.getPublishers());
+    }
 }
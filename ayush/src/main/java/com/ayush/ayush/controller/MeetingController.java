@@ -6,8 +6,10 @@ import org.springframework.beans.factory.annotation.Autowired; // Ensure this is
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import reactor.core.publisher.Mono;
 
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -28,8 +30,9 @@ import java.util.Optional;
         this.meetingService = meetingService;
     }
 
+    // Returning a Mono releases the servlet thread while Janus is creating the room.
     @PostMapping("/create")
-    public MeetingRoom createMeeting(@RequestBody Map<String, String> payload) {
+    public Mono<MeetingRoom> createMeeting(@RequestBody Map<String, String> payload) {
         String description = payload.getOrDefault("description", "New Meeting");
         return meetingService.createMeetingRoom(description);
     }
@@ -41,10 +44,12 @@ import java.util.Optional;
 
             if (roomOptional.isPresent()) {
                 MeetingRoom room = roomOptional.get();
-                return ResponseEntity.ok(Map.of(
-                        "isValid", true,
-                        "janusRoomId", room.getJanusRoomId()
-                ));
+                // The client has to join on the Janus node the room was placed on.
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("isValid", true);
+                body.put("janusRoomId", room.getJanusRoomId());
+                meetingService.janusUrl(room).ifPresent(url -> body.put("janusUrl", url));
+                return ResponseEntity.ok(body);
             } else {
                 return ResponseEntity.status(404).body(Map.of("isValid", false, "error", "Room not found"));
             }
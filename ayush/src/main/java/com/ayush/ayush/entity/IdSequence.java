@@ -0,0 +1,33 @@
+package com.ayush.ayush.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The next unleased counter value of a named id sequence, plus the secret key its ids are permuted with.
+ * Instances lease blocks of counter values from here and hand them out from memory.
+ */
+@Entity
+@Table(name = "id_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdSequence {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private long nextValue;
+
+    // Generated once when the sequence is created; must never change, or permuted ids could repeat.
+    @Column(nullable = false)
+    private long permutationKey;
+}
@@ -1,19 +1,26 @@
     package com.ayush.ayush.entity;
 
+    import com.fasterxml.jackson.annotation.JsonIgnore;
     import jakarta.persistence.*;
+    import lombok.AccessLevel;
     import lombok.AllArgsConstructor;
     import lombok.Getter;
     import lombok.NoArgsConstructor;
     import lombok.Setter;
+    import org.springframework.data.domain.Persistable;
     import java.time.LocalDateTime;
 
     @Entity
-    @Table(name = "meeting_rooms")
+    // createdAt and lastActivityAt are indexed for the queries that look for rooms to expire.
+    @Table(name = "meeting_rooms", indexes = {
+            @Index(name = "idx_meeting_rooms_created_at", columnList = "createdAt"),
+            @Index(name = "idx_meeting_rooms_last_activity_at", columnList = "lastActivityAt")
+    })
     @Getter
     @Setter
     @NoArgsConstructor
     @AllArgsConstructor
-    public class MeetingRoom {
+    public class MeetingRoom implements Persistable<String> {
 
         @Id
         private String friendlyRoomId; // This becomes the primary key column
@@ -22,15 +29,52 @@
         private Long janusRoomId; // This is a required, unique column
 
         private String description;
+
+        // The Janus node the room lives on, which joins are sent to. Null on rows from before there were several.
+        private String janusNode;
         private LocalDateTime createdAt;
 
+        // When the room was last looked up or had participants, refreshed by JanusRoomReconciler. Null on legacy rows.
+        private LocalDateTime lastActivityAt;
+
+        // True while the room sits in the warm pool, provisioned but not yet handed to a meeting.
+        @JsonIgnore
+        @Column(nullable = false)
+        private boolean reserved;
+
+        // Friendly ids are allocated collision-free, so a room built in code is always an INSERT.
+        // Without this, save() on an assigned @Id runs a merge, i.e. a SELECT before every INSERT.
+        @Transient
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        private boolean newRoom = true;
+
         public MeetingRoom(String friendlyRoomId, Long janusRoomId, String description) {
             this.friendlyRoomId = friendlyRoomId;
             this.janusRoomId = janusRoomId;
             this.description = description;
             this.createdAt = LocalDateTime.now();
+            this.lastActivityAt = createdAt;
         }
 
         public void setRoomId(String roomId) {
         }
+
+        @Override
+        @JsonIgnore
+        public String getId() {
+            return friendlyRoomId;
+        }
+
+        @Override
+        @JsonIgnore
+        public boolean isNew() {
+            return newRoom;
+        }
+
+        @PostLoad
+        @PostPersist
+        void markNotNew() {
+            this.newRoom = false;
+        }
     }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.ayush.ayush.journal;
+
+import java.time.Instant;
+
+/**
+ * One entry of the signaling journal, as read back by {@link JournalReader}.
+ *
+ * @param time      When the event happened, with microsecond precision.
+ * @param kind      What happened.
+ * @param roomId    The room, or null if it was not known yet.
+ * @param userId    The participant that sent the message, joined or left.
+ * @param peerId    The target of a forwarded message, otherwise null.
+ * @param type      The signaling message type, e.g. "offer" or "new_participant".
+ * @param count     Recipients of a broadcast, or participants already present for a join; -1 if not known.
+ * @param payload   The start of the inbound frame, for RECEIVED events; null if none was kept.
+ * @param truncated Whether the payload was cut at the configured limit.
+ */
+public record JournalEvent(Instant time, SignalingJournal.Kind kind, String roomId, String userId, String peerId,
+                           String type, int count, String payload, boolean truncated) {
+}
@@ -0,0 +1,118 @@
+package com.ayush.ayush.journal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads the signaling journal back and replays a room's timeline. Segments that are still being written can be
+ * read safely, so this also works against a running instance:
+ * <pre>
+ * java -cp ayush.jar -Dloader.main=com.ayush.ayush.journal.JournalReader \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher journal/ [roomId]
+ * </pre>
+ * Without a room id, every event is printed.
+ */
+public final class JournalReader {
+
+    private JournalReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: JournalReader <journal directory> [roomId]");
+            System.exit(2);
+        }
+        print(read(Path.of(args[0]), args.length == 2 ? args[1] : null), System.out);
+    }
+
+    /**
+     * Reads every event in the journal directory, oldest first, keeping only those of the given room (all if null).
+     */
+    public static List<JournalEvent> read(Path directory, String roomId) throws IOException {
+        List<JournalEvent> events = new ArrayList<>();
+        for (Path segment : JournalWriter.segments(directory)) {
+            try {
+                readSegment(segment, roomId, events);
+            } catch (NoSuchFileException e) {
+                // Deleted by retention while we were listing; its events are gone.
+            }
+        }
+        return events;
+    }
+
+    public static void print(List<JournalEvent> events, PrintStream out) {
+        for (JournalEvent event : events) {
+            StringBuilder line = new StringBuilder()
+                    .append(event.time()).append("  ")
+                    .append(String.format("%-13s", event.kind())).append(' ')
+                    .append(event.roomId()).append("  ")
+                    .append(event.userId());
+            if (event.peerId() != null) {
+                line.append(" -> ").append(event.peerId());
+            }
+            line.append("  ").append(event.type());
+            if (event.count() >= 0) {
+                line.append(" (").append(event.count()).append(')');
+            }
+            if (event.payload() != null) {
+                line.append("  ").append(event.payload()).append(event.truncated() ? "…" : "");
+            }
+            out.println(line);
+        }
+    }
+
+    private static void readSegment(Path segment, String roomId, List<JournalEvent> events) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Files.size(segment));
+        }
+        if (buffer.remaining() < JournalWriter.HEADER_SIZE || buffer.getInt() != JournalWriter.MAGIC
+                || buffer.getInt() != JournalWriter.VERSION) {
+            return;
+        }
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                return;
+            }
+            long epochMicros = buffer.getLong();
+            SignalingJournal.Kind kind = SignalingJournal.Kind.values()[buffer.get()];
+            boolean truncated = (buffer.get() & JournalWriter.FLAG_TRUNCATED) != 0;
+            int count = buffer.getInt();
+            String room = getString(buffer);
+            String user = getString(buffer);
+            String peer = getString(buffer);
+            String type = getString(buffer);
+            byte[] payload = new byte[buffer.getInt()];
+            buffer.get(payload);
+            buffer.position(start + 4 + length);
+            if (roomId == null || Objects.equals(roomId, room)) {
+                Instant time = Instant.ofEpochSecond(epochMicros / 1_000_000, (epochMicros % 1_000_000) * 1_000);
+                events.add(new JournalEvent(time, kind, room, user, peer, type, count,
+                        kind == SignalingJournal.Kind.RECEIVED ? new String(payload, StandardCharsets.UTF_8) : null, truncated));
+            }
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package com.ayush.ayush.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Appends journal records to memory-mapped segment files of a fixed size, rolling to a new segment when the
+ * current one is full and deleting the oldest beyond the retention limit. Records are written into the page
+ * cache, so they survive a crash of the process; only the single journal thread ever calls this.
+ * <p>
+ * Segment layout: a header (magic, version), then records of
+ * {@code int length | long epochMicros | byte kind | byte flags | int count | str room | str user | str peer |
+ * str type | int payloadLength | payload bytes}, where {@code str} is a short byte length (-1 for null) followed by
+ * UTF-8 bytes. A record's length is written last, and a zero length marks the end of the data.
+ */
+final class JournalWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x534A4E4C; // "SJNL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final byte FLAG_TRUNCATED = 1;
+    static final String PREFIX = "signaling-";
+    static final String SUFFIX = ".journal";
+
+    // Fixed part of a record after its length: epochMicros, kind, flags, count, 4 string lengths, payload length.
+    private static final int FIXED_SIZE = 8 + 1 + 1 + 4 + 4 * 2 + 4;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxSegments;
+
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+
+    JournalWriter(Path directory, long segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        this.segmentIndex = segments(directory).stream().mapToLong(JournalWriter::indexOf).max().orElse(0);
+        roll();
+    }
+
+    void write(long epochMicros, SignalingJournal.Kind kind, String roomId, String userId, String peerId, String type,
+               int count, String payload, int payloadLimit) throws IOException {
+        byte[] room = utf8(roomId);
+        byte[] user = utf8(userId);
+        byte[] peer = utf8(peerId);
+        byte[] messageType = utf8(type);
+        boolean truncated = payload != null && payload.length() > payloadLimit;
+        byte[] body = payload == null || payloadLimit <= 0 ? new byte[0]
+                : (truncated ? payload.substring(0, payloadLimit) : payload).getBytes(StandardCharsets.UTF_8);
+
+        int length = FIXED_SIZE + size(room) + size(user) + size(peer) + size(messageType) + body.length;
+        if (4 + length > segmentSize - HEADER_SIZE) {
+            return;
+        }
+        // Keep room for the zero length that terminates the segment.
+        if (segment.remaining() < 4 + length + 4) {
+            roll();
+        }
+        int start = segment.position();
+        segment.position(start + 4);
+        segment.putLong(epochMicros);
+        segment.put((byte) kind.ordinal());
+        segment.put(truncated ? FLAG_TRUNCATED : 0);
+        segment.putInt(count);
+        putString(room);
+        putString(user);
+        putString(peer);
+        putString(messageType);
+        segment.putInt(body.length);
+        segment.put(body);
+        // Written last, so a reader tailing the segment never sees a half-written record.
+        segment.putInt(start, length);
+    }
+
+    @Override
+    public void close() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+        while (true) {
+            Path path = directory.resolve(String.format("%s%08d%s", PREFIX, ++segmentIndex, SUFFIX));
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed.
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // Another instance writes to the same directory; take the next index.
+            }
+        }
+        segment.putInt(MAGIC);
+        segment.putInt(VERSION);
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * The segment files in a directory, oldest first.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > Short.MAX_VALUE ? null : bytes;
+    }
+
+    private static int size(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private void putString(byte[] value) {
+        if (value == null) {
+            segment.putShort((short) -1);
+        } else {
+            segment.putShort((short) value.length);
+            segment.put(value);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.ayush.ayush.journal;
+
+import com.ayush.ayush.config.SignalingJournalProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A structured record of signaling activity, for debugging calls after the fact (see {@link JournalReader}).
+ * <p>
+ * Signaling threads only claim a slot in a lock-free ring buffer and store references in it; nothing is formatted,
+ * encoded or written on their side. A single journal thread drains the ring in batches into memory-mapped segment
+ * files. When the ring is full, events are dropped and counted rather than making a signaling thread wait.
+ */
+@Component
+public class SignalingJournal implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalingJournal.class);
+
+    public enum Kind {
+        /** An inbound frame; the payload is its text. */
+        RECEIVED,
+        /** A participant joined; count is how many were already there. */
+        JOINED,
+        LEFT,
+        /** A message relayed from userId to peerId. */
+        FORWARDED,
+        /** A presence message sent to the room; count is the number of recipients. */
+        BROADCAST,
+        /** A message for a participant that could not be found. */
+        UNDELIVERABLE
+    }
+
+    private static final class Slot {
+        long time;
+        Kind kind;
+        String roomId;
+        String userId;
+        String peerId;
+        String type;
+        int count;
+        String payload;
+    }
+
+    private final SignalingJournalProperties properties;
+    private final Slot[] slots;
+    private final int mask;
+    // published[i] holds the sequence last written to slot i, so the reader knows when a claimed slot is complete.
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final JournalWriter writer;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    // Wall-clock time derived from nanoTime, so stamping an event neither allocates nor goes backwards.
+    private final long startEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    private final long startNanos = System.nanoTime();
+
+    public SignalingJournal(SignalingJournalProperties properties) {
+        this.properties = properties;
+        if (!properties.enabled()) {
+            this.slots = null;
+            this.mask = 0;
+            this.published = null;
+            this.writer = null;
+            this.flusher = null;
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, properties.bufferSize()) * 2 - 1);
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            published.set(i, -1);
+        }
+        try {
+            this.writer = new JournalWriter(properties.directory(), properties.segmentSize().toBytes(), properties.maxSegments());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open signaling journal in " + properties.directory(), e);
+        }
+        this.flusher = new Thread(this::run, "signaling-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Signaling journal writing to {}", properties.directory().toAbsolutePath());
+    }
+
+    /**
+     * A journal that records nothing, for code paths created outside the application context.
+     */
+    public static SignalingJournal disabled() {
+        return new SignalingJournal(new SignalingJournalProperties(false, null, null, 0, 0, null, 0, 0, null, null));
+    }
+
+    public void received(String roomId, String userId, String type, String frame) {
+        append(Kind.RECEIVED, roomId, userId, null, type, -1, frame);
+    }
+
+    public void joined(String roomId, String userId, int alreadyPresent) {
+        append(Kind.JOINED, roomId, userId, null, "join", alreadyPresent, null);
+    }
+
+    public void left(String roomId, String userId) {
+        append(Kind.LEFT, roomId, userId, null, "leave", -1, null);
+    }
+
+    public void forwarded(String roomId, String userId, String peerId, String type) {
+        append(Kind.FORWARDED, roomId, userId, peerId, type, -1, null);
+    }
+
+    public void broadcast(String roomId, String userId, String type, int recipients) {
+        append(Kind.BROADCAST, roomId, userId, null, type, recipients, null);
+    }
+
+    public void undeliverable(String roomId, String userId, String peerId, String type) {
+        append(Kind.UNDELIVERABLE, roomId, userId, peerId, type, -1, null);
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("signaling.journal.written", written, AtomicLong::get)
+                .description("Signaling journal events written")
+                .register(registry);
+        FunctionCounter.builder("signaling.journal.dropped", dropped, LongAdder::sum)
+                .description("Signaling journal events dropped because the buffer was full")
+                .register(registry);
+    }
+
+    private void append(Kind kind, String roomId, String userId, String peerId, String type, int count, String payload) {
+        if (slots == null) {
+            return;
+        }
+        double sampleRate = properties.sampleRate(roomId, type);
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        Slot slot = slots[index];
+        slot.time = System.nanoTime();
+        slot.kind = kind;
+        slot.roomId = roomId;
+        slot.userId = userId;
+        slot.peerId = peerId;
+        slot.type = type;
+        slot.count = count;
+        slot.payload = payload;
+        published.setRelease(index, sequence);
+    }
+
+    private void run() {
+        long flushIntervalNanos = properties.flushInterval().toNanos();
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+        drain();
+    }
+
+    // Writes everything published so far, in sequence order, and returns how many events that was.
+    private int drain() {
+        int drained = 0;
+        long next = consumed.get();
+        while (true) {
+            int index = (int) (next & mask);
+            if (published.getAcquire(index) != next) {
+                return drained;
+            }
+            Slot slot = slots[index];
+            try {
+                writer.write(startEpochMicros + (slot.time - startNanos) / 1_000, slot.kind, slot.roomId, slot.userId,
+                        slot.peerId, slot.type, slot.count, slot.payload, properties.payloadLimit(slot.roomId, slot.type));
+                written.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                dropped.increment();
+                logger.warn("Could not write signaling journal event: {}", e.toString());
+            }
+            slot.roomId = null;
+            slot.userId = null;
+            slot.peerId = null;
+            slot.type = null;
+            slot.payload = null;
+            consumed.setRelease(++next);
+            drained++;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ayush.ayush.participant;
 
+import com.ayush.ayush.signaling.OutboundQueue;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.socket.WebSocketSession;
@@ -9,5 +10,7 @@ import org.springframework.web.socket.WebSocketSession;
 public class UserSession {
     private final String userId;
     private final String roomId;
-    private final WebSocketSession webSocketSession;
+    private final WebSocketSession webSocketSession; // The connection it joined on; its id stays the session's key after a resume.
+    private final OutboundQueue outbound; // All writes to this user go through here, never straight to the socket; it follows resumes.
+    private final boolean iceBatching; // Set when the client's join announced it understands "ice_candidates" batches.
 }
\ No newline at end of file
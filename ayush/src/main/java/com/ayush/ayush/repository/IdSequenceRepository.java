@@ -0,0 +1,22 @@
+package com.ayush.ayush.repository;
+
+import com.ayush.ayush.entity.IdSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IdSequenceRepository extends JpaRepository<IdSequence, String> {
+
+    /**
+     * Reads a sequence row with a row lock (SELECT ... FOR UPDATE), so concurrent leases are serialized.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from IdSequence s where s.name = :name")
+    Optional<IdSequence> findForUpdate(@Param("name") String name);
+}
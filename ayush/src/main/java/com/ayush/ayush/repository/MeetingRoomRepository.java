@@ -1,10 +1,69 @@
 package com.ayush.ayush.repository;
 
 import com.ayush.ayush.entity.MeetingRoom;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 
 @Repository
 public interface MeetingRoomRepository extends JpaRepository<MeetingRoom, String> {
+
+    List<MeetingRoom> findByReservedTrue();
+
+    /**
+     * Hands a warm-pool room to a meeting. The "reserved = true" guard makes the claim atomic:
+     * of two concurrent claims for the same room, only one sees an update count of 1.
+     */
+    @Modifying
+    @Transactional
+    @Query("update MeetingRoom m set m.reserved = false, m.description = :description, m.createdAt = :createdAt, " +
+            "m.lastActivityAt = :createdAt " +
+            "where m.friendlyRoomId = :friendlyRoomId and m.reserved = true")
+    int claimReserved(@Param("friendlyRoomId") String friendlyRoomId,
+                      @Param("description") String description,
+                      @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from MeetingRoom m where m.friendlyRoomId = :friendlyRoomId and m.reserved = true")
+    int deleteReserved(@Param("friendlyRoomId") String friendlyRoomId);
+
+    /**
+     * Meeting rooms with no activity since the cutoff; legacy rows without lastActivityAt go by createdAt.
+     * Both branches are ranges on an index.
+     */
+    @Query("select m from MeetingRoom m where m.reserved = false and (m.lastActivityAt < :cutoff " +
+            "or (m.lastActivityAt is null and m.createdAt < :cutoff))")
+    List<MeetingRoom> findExpired(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    /**
+     * Deletes the given rooms if they are still expired, so a room that was used in the meantime survives.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from MeetingRoom m where m.friendlyRoomId in :friendlyRoomIds and m.reserved = false " +
+            "and (m.lastActivityAt < :cutoff or (m.lastActivityAt is null and m.createdAt < :cutoff))")
+    int deleteExpired(@Param("friendlyRoomIds") Collection<String> friendlyRoomIds, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("update MeetingRoom m set m.lastActivityAt = :now where m.friendlyRoomId in :friendlyRoomIds")
+    int touch(@Param("friendlyRoomIds") Collection<String> friendlyRoomIds, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update MeetingRoom m set m.lastActivityAt = :now where m.janusRoomId in :janusRoomIds")
+    int touchByJanusRoomIds(@Param("janusRoomIds") Collection<Long> janusRoomIds, @Param("now") LocalDateTime now);
+
+    @Query("select m.janusRoomId from MeetingRoom m where m.janusRoomId in :janusRoomIds")
+    List<Long> findExistingJanusRoomIds(@Param("janusRoomIds") Collection<Long> janusRoomIds);
 }
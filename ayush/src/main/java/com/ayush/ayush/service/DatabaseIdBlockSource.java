@@ -0,0 +1,46 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.IdSequence;
+import com.ayush.ayush.repository.IdSequenceRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.security.SecureRandom;
+
+/**
+ * Leases id blocks from the id_sequences table. One short locked transaction per block,
+ * so with the default block size the database is touched once per thousand ids.
+ */
+@Component
+public class DatabaseIdBlockSource implements IdBlockSource {
+
+    private final IdSequenceRepository idSequenceRepository;
+    private final TransactionOperations transactions;
+    private final SecureRandom random = new SecureRandom();
+
+    public DatabaseIdBlockSource(IdSequenceRepository idSequenceRepository, TransactionOperations transactions) {
+        this.idSequenceRepository = idSequenceRepository;
+        this.transactions = transactions;
+    }
+
+    @Override
+    public IdBlock lease(String sequence, long blockSize) {
+        try {
+            return leaseOnce(sequence, blockSize);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the sequence row at the same moment; it exists now, so lease from it.
+            return leaseOnce(sequence, blockSize);
+        }
+    }
+
+    private IdBlock leaseOnce(String sequence, long blockSize) {
+        return transactions.execute(status -> {
+            IdSequence row = idSequenceRepository.findForUpdate(sequence)
+                    .orElseGet(() -> idSequenceRepository.saveAndFlush(new IdSequence(sequence, 0, random.nextLong())));
+            long start = row.getNextValue();
+            row.setNextValue(start + blockSize);
+            return new IdBlock(start, start + blockSize, row.getPermutationKey());
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.participant.UserSession;
+import com.ayush.ayush.signaling.EncodedFrame;
+import com.ayush.ayush.signaling.FrameEncoder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces trickled ICE candidates per sender -> target pair.
+ * A peer connection usually produces 10-30 candidates within a few milliseconds; for targets that opted in to
+ * "ice_candidates" batches, everything that arrives within the coalesce window goes out as a single frame.
+ */
+@Component
+public class IceCandidateBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(IceCandidateBatcher.class);
+
+    private final FrameEncoder frameEncoder;
+    private final long windowMillis;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ice-batch-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ConcurrentHashMap<BatchKey, Batch> pending = new ConcurrentHashMap<>();
+
+    private record BatchKey(String roomId, String senderId, String targetId) {
+    }
+
+    private record Batch(UserSession target, List<Object> candidates) {
+    }
+
+    public IceCandidateBatcher(FrameEncoder frameEncoder,
+                               @Value("${signaling.ice.coalesce-window-ms:20}") long windowMillis) {
+        this.frameEncoder = frameEncoder;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Whether candidates for this target can be coalesced. Targets that never opted in get one frame per candidate.
+     */
+    public boolean accepts(UserSession target) {
+        return target.isIceBatching() && windowMillis > 0;
+    }
+
+    /**
+     * Adds candidates to the pending batch for sender -> target, starting the coalesce window if this is the first one.
+     */
+    public void add(UserSession sender, UserSession target, List<?> candidates) {
+        BatchKey key = new BatchKey(sender.getRoomId(), sender.getUserId(), target.getUserId());
+        pending.compute(key, (k, batch) -> {
+            if (batch == null) {
+                batch = new Batch(target, new ArrayList<>());
+                flusher.schedule(() -> flush(k), windowMillis, TimeUnit.MILLISECONDS);
+            }
+            batch.candidates().addAll(candidates);
+            return batch;
+        });
+    }
+
+    /**
+     * Sends whatever is pending for sender -> target right away.
+     * Called before an offer or answer is forwarded, so candidates never arrive after a newer description.
+     */
+    public void flush(UserSession sender, String targetUserId) {
+        flush(new BatchKey(sender.getRoomId(), sender.getUserId(), targetUserId));
+    }
+
+    private void flush(BatchKey key) {
+        Batch batch = pending.remove(key);
+        if (batch == null) {
+            return;
+        }
+        try {
+            EncodedFrame frame = frameEncoder.encode("ice_candidates",
+                    Map.of("userId", key.senderId(), "candidates", batch.candidates()));
+            batch.target().getOutbound().enqueue(frame);
+            logger.debug("Flushed {} ICE candidates from {} to {}", batch.candidates().size(), key.senderId(), key.targetId());
+        } catch (IOException e) {
+            logger.error("Failed to encode ICE candidate batch from {} to {}: {}", key.senderId(), key.targetId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+    }
+}
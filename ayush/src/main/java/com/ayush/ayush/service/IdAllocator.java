@@ -0,0 +1,81 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.util.FeistelPermutation;
+import com.ayush.ayush.util.RoomUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Allocates friendly room ids and Janus room ids that can never collide.
+ * Each id is a counter value pushed through a keyed permutation, so ids look random (links cannot be walked)
+ * while uniqueness is guaranteed by construction. Counter values come in blocks leased from the database,
+ * so instances never hand out the same value and no id needs a select-before-insert check.
+ */
+@Component
+public class IdAllocator {
+
+    static final String FRIENDLY_ID_SEQUENCE = "friendly_room_id";
+    static final String JANUS_ROOM_ID_SEQUENCE = "janus_room_id";
+
+    // Janus room ids are issued above the 6-digit range the old random generator used, so they cannot clash with it.
+    static final long JANUS_ROOM_ID_OFFSET = 1_000_000L;
+    private static final long JANUS_ROOM_ID_SPACE = 1L << 32;
+
+    private final Sequence friendlyIds;
+    private final Sequence janusRoomIds;
+
+    public IdAllocator(IdBlockSource blockSource, @Value("${meeting.id.block-size:1000}") long blockSize) {
+        this.friendlyIds = new Sequence(FRIENDLY_ID_SEQUENCE, RoomUtil.FRIENDLY_ID_SPACE, blockSource, blockSize);
+        this.janusRoomIds = new Sequence(JANUS_ROOM_ID_SEQUENCE, JANUS_ROOM_ID_SPACE, blockSource, blockSize);
+    }
+
+    public String nextFriendlyId() {
+        return RoomUtil.toFriendlyId(friendlyIds.next());
+    }
+
+    public long nextJanusRoomId() {
+        return JANUS_ROOM_ID_OFFSET + janusRoomIds.next();
+    }
+
+    /**
+     * One permuted sequence. Takes its lock only to bump the in-memory counter, or to lease a new block once per blockSize ids.
+     */
+    private static final class Sequence {
+        private final String name;
+        private final long domainSize;
+        private final IdBlockSource blockSource;
+        private final long blockSize;
+
+        private FeistelPermutation permutation;
+        private long next;
+        private long end;
+
+        private Sequence(String name, long domainSize, IdBlockSource blockSource, long blockSize) {
+            this.name = name;
+            this.domainSize = domainSize;
+            this.blockSource = blockSource;
+            this.blockSize = blockSize;
+        }
+
+        private long next() {
+            long counter;
+            FeistelPermutation current;
+            synchronized (this) {
+                if (next == end) {
+                    IdBlockSource.IdBlock block = blockSource.lease(name, blockSize);
+                    if (permutation == null) {
+                        permutation = new FeistelPermutation(domainSize, block.permutationKey());
+                    }
+                    next = block.start();
+                    end = block.end();
+                }
+                counter = next++;
+                current = permutation;
+            }
+            if (counter >= domainSize) {
+                throw new IllegalStateException("Id sequence '" + name + "' is exhausted");
+            }
+            return current.permute(counter);
+        }
+    }
+}
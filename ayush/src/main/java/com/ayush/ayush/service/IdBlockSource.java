@@ -0,0 +1,16 @@
+package com.ayush.ayush.service;
+
+/**
+ * Hands out exclusive blocks of counter values for a named sequence.
+ */
+@FunctionalInterface
+public interface IdBlockSource {
+
+    /**
+     * A leased range of counter values [start, end) and the sequence's permutation key.
+     */
+    record IdBlock(long start, long end, long permutationKey) {
+    }
+
+    IdBlock lease(String sequence, long blockSize);
+}
@@ -0,0 +1,116 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ConnectTimeoutException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking HTTP client for the Janus REST API.
+ * Every call has a timeout, is guarded by a circuit breaker and is retried with jittered backoff
+ * when it is safe to do so; see {@link #post(String, Map, boolean)}.
+ */
+public class JanusClient {
+
+    public static final String DEFAULT_URL = "http://localhost:8088/janus";
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final Duration callTimeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final CircuitBreaker circuitBreaker;
+
+    // Transaction ids are unique per request so concurrent requests on a shared handle can be told apart.
+    private final String transactionPrefix = Long.toHexString(ThreadLocalRandom.current().nextLong()) + "-";
+    private final AtomicLong transactionCounter = new AtomicLong();
+
+    public JanusClient(WebClient webClient, ObjectMapper objectMapper, String baseUrl, Duration callTimeout,
+                       int maxRetries, Duration retryBackoff, CircuitBreaker circuitBreaker) {
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.callTimeout = callTimeout;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public String nextTransactionId() {
+        return transactionPrefix + transactionCounter.incrementAndGet();
+    }
+
+    /**
+     * POSTs a Janus request to {@code baseUrl + path}, adding a fresh transaction id.
+     *
+     * @param path       The path below the Janus base URL ("" for the root, "/{session}" or "/{session}/{handle}").
+     * @param message    The Janus message without a transaction id.
+     * @param idempotent Whether the request may be repeated after a timeout or a 5xx. Requests that were never
+     *                   sent (connection refused or connect timeout) are always retried.
+     * @return The parsed response. Janus-level errors ("janus": "error") are returned, not signalled.
+     */
+    public Mono<JsonNode> post(String path, Map<String, Object> message, boolean idempotent) {
+        Map<String, Object> body = new HashMap<>(message);
+        body.put("transaction", nextTransactionId());
+        Mono<JsonNode> call = webClient.post()
+                .uri(baseUrl + path)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(callTimeout)
+                .map(this::readTree);
+        return circuitBreaker.protect(call)
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .jitter(0.5)
+                        .filter(error -> isRetryable(error, idempotent))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private JsonNode readTree(String response) {
+        try {
+            return objectMapper.readTree(response);
+        } catch (Exception e) {
+            throw new IllegalStateException("Janus returned a malformed response: " + response, e);
+        }
+    }
+
+    private static boolean isRetryable(Throwable error, boolean idempotent) {
+        if (error instanceof CircuitBreaker.OpenException) {
+            return false;
+        }
+        if (error instanceof WebClientRequestException) {
+            Throwable cause = error.getCause();
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+        if (!idempotent) {
+            return false;
+        }
+        return error instanceof TimeoutException
+                || error instanceof WebClientRequestException
+                || (error instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError());
+    }
+}
@@ -0,0 +1,22 @@
+package com.ayush.ayush.service;
+
+/**
+ * An error reported by Janus itself (as opposed to a network failure), with the Janus or videoroom error code.
+ */
+public class JanusException extends RuntimeException {
+
+    // Videoroom error codes we react to.
+    public static final int NO_SUCH_ROOM = 426;
+    public static final int ROOM_EXISTS = 427;
+
+    private final int code;
+
+    public JanusException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ayush.ayush.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of each Janus HTTP step ("janus.requests", tagged by step and outcome).
+ * All timers are registered up front, so timing a call never builds tags or strings.
+ */
+@Component
+public class JanusMetrics {
+
+    public enum Step {
+        CREATE_SESSION,
+        ATTACH,
+        CREATE_ROOM,
+        DESTROY_ROOM,
+        LIST_ROOMS
+    }
+
+    private final EnumMap<Step, Timer> successes = new EnumMap<>(Step.class);
+    private final EnumMap<Step, Timer> failures = new EnumMap<>(Step.class);
+
+    public JanusMetrics(MeterRegistry registry) {
+        for (Step step : Step.values()) {
+            successes.put(step, timer(registry, step, "success"));
+            failures.put(step, timer(registry, step, "error"));
+        }
+    }
+
+    /**
+     * Times a Janus call from subscription until it completes or fails.
+     */
+    public <T> Mono<T> time(Step step, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(result -> successes.get(step).record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(error -> failures.get(step).record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static Timer timer(MeterRegistry registry, Step step, String outcome) {
+        return Timer.builder("janus.requests")
+                .description("Janus HTTP calls, by step")
+                .tag("step", step.name().toLowerCase(Locale.ROOT))
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,185 @@
+package com.ayush.ayush.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One Janus server: its HTTP client and pooled sessions, and the health and load {@link JanusNodes} last saw on it.
+ */
+public class JanusNode {
+
+    private final String id;
+    private final String publicUrl;
+    private final int maxRooms;
+    private final int maxPublishers;
+    private final JanusClient janusClient;
+    private final JanusSessionPool sessionPool;
+    private final JanusMetrics janusMetrics;
+
+    // Nodes count as healthy until a check says otherwise, so rooms can be placed before the first check.
+    private volatile boolean healthy = true;
+    private volatile boolean draining;
+    private volatile int rooms;
+    private volatile int publishers;
+    // Rooms placed here since the last check, so placement does not pile onto one node between checks.
+    private final AtomicInteger placed = new AtomicInteger();
+
+    /**
+     * A room as reported by the videoroom "list" request.
+     */
+    public record ListedRoom(long roomId, int participants) {
+    }
+
+    /**
+     * @param maxRooms      Rooms after which the node is full; 0 or less means no limit.
+     * @param maxPublishers Participants after which the node is full; 0 or less means no limit.
+     */
+    public JanusNode(String id, String publicUrl, int maxRooms, int maxPublishers, JanusClient janusClient,
+                     JanusSessionPool sessionPool, JanusMetrics janusMetrics) {
+        this.id = id;
+        this.publicUrl = publicUrl;
+        this.maxRooms = maxRooms;
+        this.maxPublishers = maxPublishers;
+        this.janusClient = janusClient;
+        this.sessionPool = sessionPool;
+        this.janusMetrics = janusMetrics;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Where clients joining a room on this node reach Janus.
+     */
+    public String getPublicUrl() {
+        return publicUrl;
+    }
+
+    public JanusClient getJanusClient() {
+        return janusClient;
+    }
+
+    public JanusSessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    void setDraining(boolean draining) {
+        this.draining = draining;
+    }
+
+    /**
+     * Rooms on the node at the last check, plus those placed here since.
+     */
+    public int getRooms() {
+        return rooms + placed.get();
+    }
+
+    /**
+     * Participants across all rooms on the node at the last check.
+     */
+    public int getPublishers() {
+        return publishers;
+    }
+
+    /**
+     * The fuller of rooms and participants as a fraction of the node's limits; 1 or more means full.
+     * A node without limits reports its room count in thousandths, so unlimited nodes still fill up evenly.
+     */
+    public double load() {
+        double roomLoad = maxRooms > 0 ? (double) getRooms() / maxRooms : getRooms() / 1000.0;
+        double publisherLoad = maxPublishers > 0 ? (double) publishers / maxPublishers : 0;
+        return Math.max(roomLoad, publisherLoad);
+    }
+
+    /**
+     * Whether new rooms may be placed here.
+     */
+    public boolean isAccepting() {
+        return healthy && !draining && (maxRooms <= 0 || getRooms() < maxRooms)
+                && (maxPublishers <= 0 || publishers < maxPublishers);
+    }
+
+    void placed() {
+        placed.incrementAndGet();
+    }
+
+    void loadSeen(List<ListedRoom> listed) {
+        int participants = 0;
+        for (ListedRoom room : listed) {
+            participants += room.participants();
+        }
+        placed.set(0);
+        rooms = listed.size();
+        publishers = participants;
+    }
+
+    /**
+     * Lists every video room on this node.
+     */
+    public Mono<List<ListedRoom>> listRooms() {
+        return janusMetrics.time(JanusMetrics.Step.LIST_ROOMS, sendToVideoRoom(Map.of("request", "list")))
+                .map(response -> {
+                    List<ListedRoom> listed = new ArrayList<>();
+                    for (JsonNode room : response.path("plugindata").path("data").path("list")) {
+                        listed.add(new ListedRoom(room.path("room").asLong(), room.path("num_participants").asInt()));
+                    }
+                    return listed;
+                });
+    }
+
+    /**
+     * Sends a videoroom plugin request on a pooled handle. If Janus no longer knows the session
+     * (it timed out or Janus restarted), the handle is rebuilt and the request is retried once.
+     */
+    Mono<JsonNode> sendToVideoRoom(Map<String, Object> body) {
+        return sessionPool.acquire()
+                .flatMap(handle -> post(handle, body)
+                        .flatMap(response -> {
+                            if (!sessionPool.isStale(response)) {
+                                return Mono.just(response);
+                            }
+                            sessionPool.invalidate(handle);
+                            return sessionPool.acquire().flatMap(fresh -> post(fresh, body));
+                        }))
+                .map(JanusNode::checkVideoRoomResponse);
+    }
+
+    private Mono<JsonNode> post(JanusSessionPool.PooledHandle handle, Map<String, Object> body) {
+        // Videoroom requests change state on Janus, so they are not repeated after an ambiguous timeout.
+        return janusClient.post(handle.pluginPath(), Map.of("janus", "message", "body", body), false);
+    }
+
+    private static JsonNode checkVideoRoomResponse(JsonNode response) {
+        if (response.path("janus").asText().equals("error")) {
+            throw new JanusException(response.path("error").path("code").asInt(), "Janus returned an error: " + response);
+        }
+        JsonNode data = response.path("plugindata").path("data");
+        if (data.has("error_code")) {
+            throw new JanusException(data.path("error_code").asInt(), "Janus videoroom returned an error: " + data);
+        }
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return id + " (" + janusClient.getBaseUrl() + ")";
+    }
+}
@@ -0,0 +1,158 @@
+package com.ayush.ayush.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Janus servers rooms are spread over. Every node is listed once per health interval: a node that fails
+ * failure-threshold checks in a row takes no new rooms until a check succeeds again, and a successful check
+ * refreshes its room and participant counts. New rooms go to the least loaded node that is healthy, not drained
+ * and below its limits (see {@link JanusNode#load()}). A room stays on the node it was created on for its whole
+ * life, so draining a node only stops new placements; its meetings run on until they end.
+ * <p>
+ * Built from "janus.url" and "janus.nodes.*" by {@code AppConfig}.
+ */
+public class JanusNodes implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(JanusNodes.class);
+
+    private final Map<String, JanusNode> nodes = new LinkedHashMap<>();
+    private final JanusNode defaultNode;
+    private final int failureThreshold;
+    // Consecutive failed checks per node; the checks of different nodes complete concurrently.
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultNodeId    Node of rooms that have none recorded; the first node if there is none by that name.
+     * @param failureThreshold Consecutive failed checks after which a node takes no new rooms.
+     */
+    public JanusNodes(List<JanusNode> nodes, String defaultNodeId, int failureThreshold) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one Janus node is required");
+        }
+        nodes.forEach(node -> this.nodes.put(node.getId(), node));
+        this.defaultNode = this.nodes.getOrDefault(defaultNodeId, nodes.get(0));
+        this.failureThreshold = Math.max(1, failureThreshold);
+    }
+
+    public List<JanusNode> all() {
+        return List.copyOf(nodes.values());
+    }
+
+    /**
+     * The node a room lives on. Rooms without a recorded node belong to the default node.
+     */
+    public Optional<JanusNode> get(String id) {
+        return id == null ? Optional.of(defaultNode) : Optional.ofNullable(nodes.get(id));
+    }
+
+    /**
+     * Picks the node for a new room and counts the room against it right away.
+     *
+     * @return Empty if every node is unhealthy, drained or full.
+     */
+    public Optional<JanusNode> place() {
+        JanusNode best = null;
+        for (JanusNode node : nodes.values()) {
+            if (node.isAccepting() && (best == null || node.load() < best.load())) {
+                best = node;
+            }
+        }
+        if (best != null) {
+            best.placed();
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Stops or resumes placing new rooms on a node, e.g. for maintenance.
+     *
+     * @return false if there is no such node.
+     */
+    public boolean setDraining(String id, boolean draining) {
+        JanusNode node = nodes.get(id);
+        if (node == null) {
+            return false;
+        }
+        if (node.isDraining() != draining) {
+            node.setDraining(draining);
+            logger.info("Janus node {} {}", node, draining ? "is draining" : "takes new rooms again");
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${janus.health.interval-ms:5000}")
+    public void checkHealth() {
+        Flux.fromIterable(nodes.values())
+                .flatMap(node -> node.listRooms()
+                        .doOnNext(listed -> {
+                            node.loadSeen(listed);
+                            passed(node);
+                        })
+                        .onErrorResume(e -> {
+                            failed(node, e);
+                            return Mono.empty();
+                        }))
+                .blockLast();
+    }
+
+    private void passed(JanusNode node) {
+        failures.remove(node.getId());
+        if (!node.isHealthy()) {
+            node.setHealthy(true);
+            logger.info("Janus node {} is healthy again", node);
+        }
+    }
+
+    private void failed(JanusNode node, Throwable e) {
+        int failed = failures.merge(node.getId(), 1, Integer::sum);
+        if (failed >= failureThreshold && node.isHealthy()) {
+            node.setHealthy(false);
+            logger.warn("Janus node {} failed {} health checks and takes no new rooms: {}", node, failed, e.toString());
+        }
+    }
+
+    /**
+     * Janus drops sessions that have been silent for 60 seconds, so every pooled session is pinged well within that.
+     */
+    @Scheduled(fixedDelayString = "${janus.pool.keepalive-ms:25000}")
+    public void keepAlive() {
+        nodes.values().forEach(node -> node.getSessionPool().keepAlive());
+    }
+
+    /**
+     * Per-node gauges, tagged node=&lt;id&gt;: "janus.node.rooms", "janus.node.publishers", "janus.node.healthy"
+     * and "janus.node.draining".
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (JanusNode node : nodes.values()) {
+            Gauge.builder("janus.node.rooms", node, JanusNode::getRooms)
+                    .description("Rooms on the Janus node").tag("node", node.getId()).register(registry);
+            Gauge.builder("janus.node.publishers", node, JanusNode::getPublishers)
+                    .description("Participants across the Janus node's rooms").tag("node", node.getId()).register(registry);
+            Gauge.builder("janus.node.healthy", node, n -> n.isHealthy() ? 1 : 0)
+                    .description("1 while the Janus node passes health checks").tag("node", node.getId()).register(registry);
+            Gauge.builder("janus.node.draining", node, n -> n.isDraining() ? 1 : 0)
+                    .description("1 while the Janus node is drained").tag("node", node.getId()).register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        nodes.values().forEach(node -> node.getSessionPool().shutdown());
+    }
+}
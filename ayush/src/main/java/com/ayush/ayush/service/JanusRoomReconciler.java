@@ -0,0 +1,266 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.repository.MeetingRoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reclaims meeting rooms nobody uses any more, in the database and on Janus. Once per interval it:
+ * <ul>
+ *     <li>Refreshes lastActivityAt of every room that has participants here or on Janus, or was looked up since the
+ *     last pass ({@link #recordActivity(String)}), with two bulk UPDATEs.</li>
+ *     <li>Deletes up to page-size rows that have been idle for longer than the room TTL, with a guarded bulk DELETE,
+ *     and destroys their Janus rooms.</li>
+ *     <li>Destroys empty Janus rooms in this service's id range that have no row, once they have been seen orphaned
+ *     on two passes in a row, so a room whose row is still being written is never taken for one.</li>
+ * </ul>
+ * Every configured Janus node is listed; rooms on a node that cannot be listed are left for a later pass.
+ * Destroys go out in batches of batch-size, batch-interval apart, over the pooled videoroom handle, so a large
+ * backlog never floods Janus. Warm-pool rooms are left to {@link RoomProvisioner}.
+ */
+@Component
+public class JanusRoomReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JanusRoomReconciler.class);
+
+    // Destroys of one batch that are in flight at the same time.
+    private static final int DESTROY_CONCURRENCY = 4;
+
+    private final JanusService janusService;
+    private final MeetingRoomRepository meetingRoomRepository;
+    private final MeetingRoomWriteBehind meetingRoomWriteBehind;
+    private final RoomManager roomManager;
+    private final RoomLookupCache roomLookupCache;
+    private final boolean enabled;
+    private final Duration roomTtl;
+    private final int pageSize;
+    private final int batchSize;
+    private final Duration batchInterval;
+
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+    // Orphans seen on the previous pass; only touched by the pass, which never overlaps itself.
+    private Set<JanusService.JanusRoom> suspectedOrphans = Set.of();
+
+    private final Counter expired;
+    private final Counter orphaned;
+    private final Counter failures;
+    private final Timer duration;
+
+    public JanusRoomReconciler(JanusService janusService, MeetingRoomRepository meetingRoomRepository,
+                               MeetingRoomWriteBehind meetingRoomWriteBehind, RoomManager roomManager,
+                               RoomLookupCache roomLookupCache, MeterRegistry registry,
+                               @Value("${janus.reconciler.enabled:true}") boolean enabled,
+                               @Value("${janus.reconciler.room-ttl:7d}") Duration roomTtl,
+                               @Value("${janus.reconciler.page-size:500}") int pageSize,
+                               @Value("${janus.reconciler.batch-size:20}") int batchSize,
+                               @Value("${janus.reconciler.batch-interval:1s}") Duration batchInterval) {
+        this.janusService = janusService;
+        this.meetingRoomRepository = meetingRoomRepository;
+        this.meetingRoomWriteBehind = meetingRoomWriteBehind;
+        this.roomManager = roomManager;
+        this.roomLookupCache = roomLookupCache;
+        this.enabled = enabled;
+        this.roomTtl = roomTtl;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+        this.batchInterval = batchInterval;
+        this.expired = reclaimed(registry, "expired");
+        this.orphaned = reclaimed(registry, "orphaned");
+        this.failures = Counter.builder("janus.rooms.reclaim_failures")
+                .description("Janus rooms the reconciler failed to destroy; they are retried on a later pass")
+                .register(registry);
+        this.duration = Timer.builder("janus.reconciler.duration")
+                .description("Time taken by one reconciliation pass")
+                .register(registry);
+    }
+
+    private static Counter reclaimed(MeterRegistry registry, String reason) {
+        return Counter.builder("janus.rooms.reclaimed")
+                .description("Rooms destroyed because they expired or had no meeting")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * Notes that a room was used, so it does not expire. Only a set insert; the database is updated by the next pass.
+     */
+    public void recordActivity(String friendlyId) {
+        if (enabled) {
+            active.add(friendlyId);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${janus.reconciler.interval-ms:300000}",
+            fixedDelayString = "${janus.reconciler.interval-ms:300000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        duration.record(() -> {
+            try {
+                reconcileOnce();
+            } catch (RuntimeException e) {
+                logger.warn("Janus room reconciliation failed: {}", e.toString());
+            }
+        });
+    }
+
+    private void reconcileOnce() {
+        // Without its occupancy nothing on a node can be told idle, so rooms on a node that cannot be listed are
+        // left alone until a later pass.
+        Map<String, List<JanusNode.ListedRoom>> listed = new HashMap<>();
+        for (JanusNode node : janusService.nodes()) {
+            try {
+                listed.put(node.getId(), node.listRooms().block());
+            } catch (RuntimeException e) {
+                logger.warn("Could not list the rooms on Janus node {}: {}", node, e.toString());
+            }
+        }
+        if (listed.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        Set<String> occupied = new HashSet<>(roomManager.getRoomIds());
+        for (var it = active.iterator(); it.hasNext(); ) {
+            occupied.add(it.next());
+            it.remove();
+        }
+        Set<Long> occupiedJanus = new HashSet<>();
+        listed.values().forEach(rooms -> rooms.forEach(room -> {
+            if (room.participants() > 0) {
+                occupiedJanus.add(room.roomId());
+            }
+        }));
+        touch(occupied, occupiedJanus, now);
+
+        List<JanusService.JanusRoom> destroyExpired = deleteExpired(now.minus(roomTtl), occupied, listed.keySet());
+        List<JanusService.JanusRoom> destroyOrphaned = confirmOrphans(listed);
+        destroy(destroyExpired, expired);
+        destroy(destroyOrphaned, orphaned);
+        if (!destroyExpired.isEmpty() || !destroyOrphaned.isEmpty()) {
+            logger.info("Reclaimed {} expired and {} orphaned Janus rooms", destroyExpired.size(), destroyOrphaned.size());
+        }
+    }
+
+    private void touch(Set<String> occupied, Set<Long> occupiedJanus, LocalDateTime now) {
+        for (String roomId : occupied) {
+            // Signaling may name a room by its Janus id as well as by its friendly id.
+            try {
+                occupiedJanus.add(Long.parseLong(roomId));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        for (List<String> chunk : chunks(occupied)) {
+            meetingRoomRepository.touch(chunk, now);
+        }
+        for (List<Long> chunk : chunks(occupiedJanus)) {
+            meetingRoomRepository.touchByJanusRoomIds(chunk, now);
+        }
+    }
+
+    /**
+     * Deletes one page of expired rooms on the listed nodes and returns the Janus rooms of those that were actually
+     * deleted.
+     */
+    private List<JanusService.JanusRoom> deleteExpired(LocalDateTime cutoff, Set<String> occupied, Set<String> listedNodes) {
+        List<MeetingRoom> candidates = meetingRoomRepository.findExpired(cutoff, PageRequest.of(0, pageSize)).stream()
+                .filter(room -> !occupied.contains(room.getFriendlyRoomId()))
+                .filter(room -> janusService.node(room.getJanusNode()).filter(node -> listedNodes.contains(node.getId())).isPresent())
+                .toList();
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        List<String> ids = candidates.stream().map(MeetingRoom::getFriendlyRoomId).toList();
+        if (meetingRoomRepository.deleteExpired(ids, cutoff) < ids.size()) {
+            // Some were used or deleted elsewhere in the meantime; only destroy what this pass deleted.
+            Set<String> survivors = new HashSet<>();
+            meetingRoomRepository.findAllById(ids).forEach(room -> survivors.add(room.getFriendlyRoomId()));
+            candidates = candidates.stream().filter(room -> !survivors.contains(room.getFriendlyRoomId())).toList();
+        }
+        List<JanusService.JanusRoom> janusRooms = new ArrayList<>(candidates.size());
+        for (MeetingRoom room : candidates) {
+            roomLookupCache.invalidate(room.getFriendlyRoomId());
+            janusRooms.add(new JanusService.JanusRoom(room.getJanusNode(), room.getJanusRoomId()));
+        }
+        return janusRooms;
+    }
+
+    /**
+     * Empty Janus rooms allocated by this service that have no row, and had none on the previous pass either.
+     */
+    private List<JanusService.JanusRoom> confirmOrphans(Map<String, List<JanusNode.ListedRoom>> listed) {
+        // Janus room ids are allocated across all nodes, so a row is found by its room id alone.
+        Map<Long, JanusService.JanusRoom> candidates = new HashMap<>();
+        listed.forEach((node, rooms) -> rooms.forEach(room -> {
+            // Rooms below the offset were made by hand or by another application.
+            if (room.participants() == 0 && room.roomId() >= IdAllocator.JANUS_ROOM_ID_OFFSET) {
+                candidates.put(room.roomId(), new JanusService.JanusRoom(node, room.roomId()));
+            }
+        }));
+        for (List<Long> chunk : chunks(candidates.keySet())) {
+            meetingRoomRepository.findExistingJanusRoomIds(chunk).forEach(candidates::remove);
+        }
+        meetingRoomWriteBehind.pendingJanusRoomIds().forEach(candidates::remove);
+        Set<JanusService.JanusRoom> orphans = new HashSet<>(candidates.values());
+        List<JanusService.JanusRoom> confirmed = orphans.stream().filter(suspectedOrphans::contains).toList();
+        confirmed.forEach(orphans::remove);
+        suspectedOrphans = orphans;
+        return confirmed;
+    }
+
+    private void destroy(List<JanusService.JanusRoom> janusRooms, Counter reclaimed) {
+        Flux.fromIterable(janusRooms)
+                .buffer(batchSize)
+                .index()
+                .concatMap(batch -> Mono.delay(batch.getT1() == 0 ? Duration.ZERO : batchInterval)
+                        .thenMany(Flux.fromIterable(batch.getT2()))
+                        .flatMap(room -> janusService.destroyRoom(room.node(), room.roomId())
+                                .doOnSuccess(v -> reclaimed.increment())
+                                .onErrorResume(e -> {
+                                    // An expired room's row is gone, so it comes back as an orphan and is retried.
+                                    failures.increment();
+                                    logger.warn("Could not destroy Janus room {} on node {}: {}", room.roomId(), room.node(), e.toString());
+                                    return Mono.empty();
+                                }), DESTROY_CONCURRENCY))
+                .blockLast();
+    }
+
+    // Keeps IN lists to at most page-size parameters.
+    private <T> List<List<T>> chunks(Collection<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>();
+        for (T value : values) {
+            chunk.add(value);
+            if (chunk.size() == pageSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
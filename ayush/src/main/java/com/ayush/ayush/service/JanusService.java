@@ -1,21 +1,23 @@
 package com.ayush.ayush.service;
 
-import com.ayush.ayush.util.RoomUtil;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
- * Service to interact with the Janus WebRTC Server.
- * This version uses robust logging and error handling but avoids @Value for stability.
+ * Service to interact with the Janus WebRTC Servers.
+ * Rooms are placed on the least loaded node (see {@link JanusNodes}), and requests go through that node's pooled,
+ * long-lived session and videoroom handle (see {@link JanusSessionPool}), so creating a room is a single
+ * non-blocking round trip.
  */
 @Service
 public class JanusService {
@@ -23,72 +25,98 @@ public class JanusService {
     private static final Logger logger = LoggerFactory.getLogger(JanusService.class);
 
     // Dependencies injected by Spring.
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final JanusNodes janusNodes;
+    private final IdAllocator idAllocator;
+    private final JanusMetrics janusMetrics;
+    private final int publishers;
 
-    // ✅ REVERTED: The URL is now hardcoded again to avoid @Value startup errors.
-    // This is the most stable approach for your current setup.
-    private static final String JANUS_URL = "http://localhost:8088/janus";
+    /**
+     * A video room and the node it lives on.
+     */
+    public record JanusRoom(String node, long roomId) {
+    }
 
     /**
      * Constructor for dependency injection.
-     * ✅ REMOVED: The @Value annotation is gone to ensure the application starts reliably.
+     *
+     * @param publishers Publishers allowed in each new room.
      */
     @Autowired
-    public JanusService(RestTemplate restTemplate, ObjectMapper objectMapper) {
-        this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
+    public JanusService(JanusNodes janusNodes, IdAllocator idAllocator, JanusMetrics janusMetrics,
+                        @Value("${janus.room.publishers:10}") int publishers) {
+        this.janusNodes = janusNodes;
+        this.idAllocator = idAllocator;
+        this.janusMetrics = janusMetrics;
+        this.publishers = publishers;
     }
 
     /**
-     * Creates a new video room on the Janus server.
+     * Creates a new video room on the least loaded Janus node that takes new rooms.
      */
-    public Long createRoom() {
-        long sessionId = -1;
-        try {
-            // ✅ KEPT: The improved logging.
-            logger.info("Step 1: Creating Janus session at URL: {}", JANUS_URL);
-            String sessionResponse = restTemplate.postForObject(JANUS_URL, Map.of("janus", "create", "transaction", "txn1"), String.class);
-            sessionId = extractSessionId(sessionResponse);
-            logger.info("Successfully created Janus session with ID: {}", sessionId);
+    public Mono<JanusRoom> createRoom() {
+        // Allocation only touches the database once per leased block, but that call is blocking.
+        return Mono.fromCallable(idAllocator::nextJanusRoomId)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(roomId -> janusNodes.place()
+                        .map(node -> createRoom(node, roomId))
+                        .orElseGet(() -> Mono.error(new IllegalStateException("No Janus node is taking new rooms"))))
+                // Allocated ids never repeat; a clash can only be a room created outside this service.
+                .retryWhen(Retry.max(2).filter(e -> e instanceof JanusException janus && janus.getCode() == JanusException.ROOM_EXISTS));
+    }
 
-            String attachUrl = JANUS_URL + "/" + sessionId;
-            String attachResponse = restTemplate.postForObject(attachUrl, Map.of("janus", "attach", "plugin", "janus.plugin.videoroom", "transaction", "txn2"), String.class);
-            long handleId = extractHandleId(attachResponse);
-            logger.info("Successfully attached plugin handle with ID: {}", handleId);
+    private Mono<JanusRoom> createRoom(JanusNode node, long roomId) {
+        Map<String, Object> body = Map.of("request", "create", "room", roomId, "description", "Video Meeting Room", "publishers", publishers);
+        return janusMetrics.time(JanusMetrics.Step.CREATE_ROOM, node.sendToVideoRoom(body))
+                .doOnNext(response -> logger.info("Received 'create room' response from node {}: {}", node.getId(), response))
+                .map(response -> new JanusRoom(node.getId(), roomId))
+                .doOnError(e -> logger.error("Janus room creation failed for room ID {} on node {}: {}", roomId, node, e.toString()));
+    }
 
-            String pluginUrl = JANUS_URL + "/" + sessionId + "/" + handleId;
-            long roomId = RoomUtil.generateRoomId();
-            Map<String, Object> body = Map.of("request", "create", "room", roomId, "description", "Video Meeting Room", "publishers", 10);
-            Map<String, Object> message = Map.of("janus", "message", "body", body, "transaction", "txn3");
-            String createRoomResponse = restTemplate.postForObject(pluginUrl, message, String.class);
-            logger.info("Received 'create room' response: {}", createRoomResponse);
+    /**
+     * Destroys a video room on the node it lives on (null for rooms without a recorded node).
+     * A room that no longer exists counts as destroyed.
+     */
+    public Mono<Void> destroyRoom(String nodeId, long roomId) {
+        JanusNode node = janusNodes.get(nodeId).orElse(null);
+        if (node == null) {
+            return Mono.error(new IllegalArgumentException("Unknown Janus node '" + nodeId + "'"));
+        }
+        Map<String, Object> body = Map.of("request", "destroy", "room", roomId);
+        return janusMetrics.time(JanusMetrics.Step.DESTROY_ROOM, node.sendToVideoRoom(body))
+                .onErrorResume(e -> e instanceof JanusException janus && janus.getCode() == JanusException.NO_SUCH_ROOM, e -> Mono.empty())
+                .doOnNext(response -> logger.info("Destroyed Janus room {} on node {}", roomId, node.getId()))
+                .then();
+    }
 
-            return roomId;
+    /**
+     * Every configured Janus node, whether or not it takes new rooms.
+     */
+    public List<JanusNode> nodes() {
+        return janusNodes.all();
+    }
 
-        } catch (RestClientException e) {
-            // ✅ KEPT: The improved error handling.
-            logger.error("Network error while communicating with Janus server at {}", JANUS_URL, e);
-            throw new RuntimeException("Could not connect to Janus server. Please ensure it is running and accessible.", e);
-        } catch (Exception e) {
-            logger.error("An unexpected error occurred during Janus room creation for session ID: {}", sessionId, e);
-            throw new RuntimeException("Failed to create Janus room due to an unexpected error.", e);
-        }
+    /**
+     * The node a room lives on; rooms without a recorded node live on the default node.
+     */
+    public Optional<JanusNode> node(String nodeId) {
+        return janusNodes.get(nodeId);
     }
 
-    private long extractSessionId(String response) throws JsonProcessingException {
-        JsonNode root = objectMapper.readTree(response);
-        if (root.path("janus").asText().equals("error")) {
-            throw new RuntimeException("Janus returned an error while creating session: " + response);
-        }
-        return root.path("data").path("id").asLong();
+    /**
+     * Whether rooms on the node can be handed out: it is configured, passes its health checks and is not drained.
+     */
+    public boolean isUsable(String nodeId) {
+        return janusNodes.get(nodeId).map(node -> node.isHealthy() && !node.isDraining()).orElse(false);
     }
 
-    private long extractHandleId(String response) throws JsonProcessingException {
-        JsonNode root = objectMapper.readTree(response);
-        if (root.path("janus").asText().equals("error")) {
-            throw new RuntimeException("Janus returned an error while attaching plugin: " + response);
-        }
-        return root.path("data").path("id").asLong();
+    public boolean isDraining(String nodeId) {
+        return janusNodes.get(nodeId).map(JanusNode::isDraining).orElse(false);
+    }
+
+    /**
+     * Where clients reach the Janus node a room lives on, or empty if the node is no longer configured.
+     */
+    public Optional<String> publicUrl(String nodeId) {
+        return janusNodes.get(nodeId).map(JanusNode::getPublicUrl);
     }
-}
\ No newline at end of file
+}
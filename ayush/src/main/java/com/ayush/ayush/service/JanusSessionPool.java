@@ -0,0 +1,152 @@
+package com.ayush.ayush.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small pool of long-lived Janus sessions, each with an attached videoroom plugin handle.
+ * Sessions are created lazily, kept alive in the background and rebuilt when Janus reports them gone,
+ * so a videoroom request costs one HTTP round trip instead of three. Every {@link JanusNode} has its own pool.
+ */
+public class JanusSessionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(JanusSessionPool.class);
+
+    // Janus error codes for a session or handle that no longer exists (timed out, or Janus restarted).
+    private static final int ERROR_SESSION_NOT_FOUND = 458;
+    private static final int ERROR_HANDLE_NOT_FOUND = 459;
+
+    private final JanusClient janusClient;
+    private final JanusMetrics janusMetrics;
+    private final Slot[] slots;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    /**
+     * A Janus session with an attached janus.plugin.videoroom handle.
+     */
+    public record PooledHandle(int slot, long sessionId, long handleId) {
+        public String sessionPath() {
+            return "/" + sessionId;
+        }
+
+        public String pluginPath() {
+            return "/" + sessionId + "/" + handleId;
+        }
+    }
+
+    // One pool entry. "handle" is a cached Mono, so concurrent first users share a single open; a failed open is not cached.
+    private final class Slot {
+        private final int index;
+        private Mono<PooledHandle> handle;
+        private volatile PooledHandle current;
+
+        private Slot(int index) {
+            this.index = index;
+            reset();
+        }
+
+        private void reset() {
+            current = null;
+            handle = open(index)
+                    .doOnNext(opened -> current = opened)
+                    .cache(opened -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+        }
+    }
+
+    public JanusSessionPool(JanusClient janusClient, JanusMetrics janusMetrics, int size) {
+        this.janusClient = janusClient;
+        this.janusMetrics = janusMetrics;
+        this.slots = new Slot[Math.max(1, size)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot(i);
+        }
+    }
+
+    /**
+     * Returns a live handle, creating its session on first use. Handles are shared round-robin across requests.
+     */
+    public Mono<PooledHandle> acquire() {
+        Slot slot = slots[Math.floorMod(nextSlot.getAndIncrement(), slots.length)];
+        synchronized (slot) {
+            return slot.handle;
+        }
+    }
+
+    /**
+     * Drops a handle that Janus no longer recognizes, so the next acquire for its slot builds a fresh one.
+     */
+    public void invalidate(PooledHandle handle) {
+        Slot slot = slots[handle.slot()];
+        synchronized (slot) {
+            if (handle.equals(slot.current)) {
+                slot.reset();
+                logger.warn("Discarded Janus session {} (handle {})", handle.sessionId(), handle.handleId());
+            }
+        }
+    }
+
+    /**
+     * Whether a Janus response says the session or handle it was sent to is gone.
+     */
+    public boolean isStale(JsonNode response) {
+        if (!"error".equals(response.path("janus").asText())) {
+            return false;
+        }
+        int code = response.path("error").path("code").asInt();
+        return code == ERROR_SESSION_NOT_FOUND || code == ERROR_HANDLE_NOT_FOUND;
+    }
+
+    /**
+     * Pings every open session; Janus drops sessions that have been silent for 60 seconds.
+     */
+    public void keepAlive() {
+        for (Slot slot : slots) {
+            PooledHandle handle = slot.current;
+            if (handle == null) {
+                continue;
+            }
+            janusClient.post(handle.sessionPath(), Map.of("janus", "keepalive"), true)
+                    .subscribe(response -> {
+                        if (isStale(response)) {
+                            invalidate(handle);
+                        }
+                    }, error -> {
+                        logger.warn("Keepalive for Janus session {} failed: {}", handle.sessionId(), error.getMessage());
+                        invalidate(handle);
+                    });
+        }
+    }
+
+    public void shutdown() {
+        for (Slot slot : slots) {
+            PooledHandle handle = slot.current;
+            if (handle != null) {
+                janusClient.post(handle.sessionPath(), Map.of("janus", "destroy"), true)
+                        .onErrorResume(error -> Mono.empty())
+                        .block(Duration.ofSeconds(2));
+            }
+        }
+    }
+
+    private Mono<PooledHandle> open(int index) {
+        return janusMetrics.time(JanusMetrics.Step.CREATE_SESSION, janusClient.post("", Map.of("janus", "create"), false))
+                .map(response -> extractId(response, "creating session"))
+                .flatMap(sessionId -> janusMetrics.time(JanusMetrics.Step.ATTACH,
+                                janusClient.post("/" + sessionId, Map.of("janus", "attach", "plugin", "janus.plugin.videoroom"), false))
+                        .map(response -> new PooledHandle(index, sessionId, extractId(response, "attaching plugin"))))
+                .doOnNext(handle -> logger.info("Pooled Janus session {} with videoroom handle {}", handle.sessionId(), handle.handleId()));
+    }
+
+    private static long extractId(JsonNode root, String step) {
+        if (root.path("janus").asText().equals("error")) {
+            throw new RuntimeException("Janus returned an error while " + step + ": " + root);
+        }
+        return root.path("data").path("id").asLong();
+    }
+}
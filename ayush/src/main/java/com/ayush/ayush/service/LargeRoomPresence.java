@@ -0,0 +1,275 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.journal.SignalingJournal;
+import com.ayush.ayush.participant.UserSession;
+import com.ayush.ayush.signaling.EncodedFrame;
+import com.ayush.ayush.signaling.FrameEncoder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Presence for large rooms. Below the threshold every join sends the joiner "existing_participants" and everyone
+ * else a "new_participant" frame, which is O(N²) frames when hundreds of people join a webinar. Once a room reaches
+ * the threshold it switches to this mode for as long as it has participants:
+ * <ul>
+ *     <li>Every join and leave bumps the room's roster version. A joiner gets the roster (including itself) as
+ *     "roster" pages with {@code "reason": "join"}, and offers to everyone else on them, as with existing_participants.</li>
+ *     <li>The other participants are not told right away: changes accumulate and go out on the next tick as one
+ *     "roster_delta" { fromVersion, version, left, joined }, encoded once for the whole room. Clients apply "left"
+ *     before "joined", ignore deltas with {@code version} at or below their own, and send "roster_sync" with their
+ *     version when {@code fromVersion} is above it.</li>
+ *     <li>A "roster_sync" is answered from the recent deltas if they reach back far enough, otherwise with the
+ *     full roster as pages with {@code "reason": "sync"}.</li>
+ * </ul>
+ * Applying a delta that overlaps a client's snapshot is harmless, so snapshots never need to line up with ticks.
+ */
+@Component
+public class LargeRoomPresence implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LargeRoomPresence.class);
+
+    private final RoomManager roomManager;
+    private final FrameEncoder frameEncoder;
+    private final SignalingJournal journal;
+    private final int threshold;
+    private final int pageSize;
+    private final int historySize;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "presence-ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Only rooms in large-room mode have a roster. Its monitor orders that room's joins, leaves and ticks.
+    private final ConcurrentHashMap<String, Roster> rosters = new ConcurrentHashMap<>();
+
+    private static final class Roster {
+        long version;
+        long publishedVersion;
+        // Set once the room has emptied and the roster was dropped; a joiner holding it starts over.
+        boolean closed;
+        final LinkedHashSet<String> joined = new LinkedHashSet<>();
+        final LinkedHashSet<String> left = new LinkedHashSet<>();
+        final ArrayDeque<Delta> history = new ArrayDeque<>();
+    }
+
+    private record Delta(long fromVersion, long version, EncodedFrame frame) {
+    }
+
+    public LargeRoomPresence(RoomManager roomManager, FrameEncoder frameEncoder, SignalingJournal journal,
+                             @Value("${signaling.presence.large-room-threshold:100}") int threshold,
+                             @Value("${signaling.presence.tick-ms:250}") long tickMillis,
+                             @Value("${signaling.presence.page-size:200}") int pageSize,
+                             @Value("${signaling.presence.history:32}") int historySize) {
+        this.roomManager = roomManager;
+        this.frameEncoder = frameEncoder;
+        this.journal = journal;
+        this.threshold = threshold;
+        this.pageSize = pageSize;
+        this.historySize = historySize;
+        if (threshold > 0) {
+            ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Presence that never switches a room to large-room mode.
+     */
+    public static LargeRoomPresence disabled(RoomManager roomManager, FrameEncoder frameEncoder) {
+        return new LargeRoomPresence(roomManager, frameEncoder, SignalingJournal.disabled(), 0, 0, 1, 0);
+    }
+
+    /**
+     * Joins a room that is in large-room mode and sends the joiner the roster.
+     *
+     * @return The userIds that were already in the room, or empty if the room is not in large-room mode
+     * and the join is left to the caller.
+     */
+    public Optional<Set<String>> join(UserSession session) {
+        Roster roster = rosters.get(session.getRoomId());
+        if (roster == null) {
+            return Optional.empty();
+        }
+        synchronized (roster) {
+            if (roster.closed) {
+                return Optional.empty();
+            }
+            // Under the roster's monitor, so the snapshot is exactly the roster at the new version.
+            Set<String> existing = roomManager.joinRoom(session);
+            roster.version++;
+            roster.joined.add(session.getUserId());
+            List<String> userIds = new ArrayList<>(existing);
+            userIds.add(session.getUserId());
+            sendRoster(List.of(session), "join", roster.version, userIds);
+            return Optional.of(existing);
+        }
+    }
+
+    /**
+     * Called after a regular join: switches the room to large-room mode once it has reached the threshold.
+     * Everyone in the room then gets the roster, so they all share a version to apply deltas to.
+     */
+    public void joined(String roomId, int roomSize) {
+        if (threshold <= 0 || roomSize < threshold || rosters.containsKey(roomId)) {
+            return;
+        }
+        Roster roster = new Roster();
+        synchronized (roster) {
+            if (rosters.putIfAbsent(roomId, roster) != null) {
+                return;
+            }
+            roster.version = 1;
+            roster.publishedVersion = 1;
+            roomManager.getParticipantsInRoom(roomId).ifPresent(participants -> {
+                logger.info("Room {} reached {} participants, switching to large-room presence", roomId, participants.size());
+                sendRoster(participants.values(), "sync", roster.version, new ArrayList<>(participants.keySet()));
+            });
+        }
+    }
+
+    /**
+     * Records a participant who has already been removed from the room.
+     *
+     * @return false if the room is not in large-room mode and the leave is left to the caller.
+     */
+    public boolean left(UserSession removed) {
+        Roster roster = rosters.get(removed.getRoomId());
+        if (roster == null) {
+            return false;
+        }
+        synchronized (roster) {
+            if (roster.closed) {
+                return false;
+            }
+            roster.version++;
+            // Left before joined on the client, so a rejoin within one tick shows up as both.
+            roster.joined.remove(removed.getUserId());
+            roster.left.add(removed.getUserId());
+            if (roomManager.getParticipantsInRoom(removed.getRoomId()).isEmpty()) {
+                roster.closed = true;
+                rosters.remove(removed.getRoomId(), roster);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Brings a client that missed deltas up to date from its last applied version.
+     */
+    public void sync(UserSession session, long version) {
+        Roster roster = rosters.get(session.getRoomId());
+        if (roster == null) {
+            return;
+        }
+        synchronized (roster) {
+            if (roster.closed) {
+                return;
+            }
+            if (version >= roster.publishedVersion && version <= roster.version) {
+                // Anything newer is still pending and goes out with the next tick.
+                return;
+            }
+            Delta oldest = roster.history.peekFirst();
+            if (version < roster.publishedVersion && oldest != null && oldest.fromVersion() <= version) {
+                roster.history.stream()
+                        .filter(delta -> delta.version() > version)
+                        .forEach(delta -> session.getOutbound().enqueue(delta.frame()));
+                return;
+            }
+            roomManager.getParticipantsInRoom(session.getRoomId()).ifPresent(participants ->
+                    sendRoster(List.of(session), "sync", roster.version, new ArrayList<>(participants.keySet())));
+        }
+    }
+
+    /**
+     * Sends every large room's accumulated changes as one delta, shared by all of its participants.
+     */
+    void tick() {
+        rosters.forEach((roomId, roster) -> {
+            try {
+                synchronized (roster) {
+                    if (roster.closed || roster.version == roster.publishedVersion) {
+                        return;
+                    }
+                    publish(roomId, roster);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to publish the roster delta of room {}", roomId, e);
+            }
+        });
+    }
+
+    private void publish(String roomId, Roster roster) {
+        EncodedFrame frame = encode("roster_delta", Map.of("fromVersion", roster.publishedVersion, "version", roster.version,
+                "left", List.copyOf(roster.left), "joined", List.copyOf(roster.joined)));
+        roster.left.clear();
+        roster.joined.clear();
+        if (frame == null) {
+            // Clients will see the gap in versions and resync.
+            roster.publishedVersion = roster.version;
+            return;
+        }
+        roster.history.addLast(new Delta(roster.publishedVersion, roster.version, frame));
+        if (roster.history.size() > historySize) {
+            roster.history.removeFirst();
+        }
+        roster.publishedVersion = roster.version;
+        roomManager.getParticipantsInRoom(roomId).ifPresent(participants -> {
+            journal.broadcast(roomId, "", "roster_delta", participants.size());
+            participants.values().forEach(participant -> participant.getOutbound().enqueue(frame));
+        });
+    }
+
+    private void sendRoster(Collection<UserSession> recipients, String reason, long version, List<String> userIds) {
+        int pages = Math.max(1, (userIds.size() + pageSize - 1) / pageSize);
+        for (int page = 0; page < pages; page++) {
+            List<String> slice = userIds.subList(page * pageSize, Math.min(userIds.size(), (page + 1) * pageSize));
+            EncodedFrame frame = encode("roster", Map.of("reason", reason, "version", version,
+                    "page", page, "pages", pages, "userIds", slice));
+            if (frame == null) {
+                return;
+            }
+            recipients.forEach(recipient -> recipient.getOutbound().enqueue(frame));
+        }
+    }
+
+    private EncodedFrame encode(String type, Object payload) {
+        try {
+            return frameEncoder.encode(type, payload);
+        } catch (IOException e) {
+            logger.error("Failed to encode '{}' message: {}", type, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("signaling.rooms.large", rosters, Map::size)
+                .description("Rooms on this node in large-room presence mode")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdown();
+    }
+}
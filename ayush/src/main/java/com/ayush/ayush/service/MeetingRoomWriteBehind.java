@@ -0,0 +1,466 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.repository.MeetingRoomRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Optional write-behind for new meeting rooms ("meeting.write-behind.enabled").
+ * <p>
+ * Instead of a transaction per room, a new room is appended to a local log, and returned once the log has been
+ * forced to disk; appends that arrive together share one force. A flusher then inserts the queued rooms in JDBC
+ * batches of up to batch-size rows, or whatever has queued up after flush-interval. Until their batch has
+ * committed, rooms are served from memory, so {@link #pending(String)} finds them right away.
+ * <p>
+ * The log only ever holds rooms that may not have been flushed yet: it is emptied whenever the queue drains, and
+ * rewritten with just the queued rooms once it grows too large. On startup, whatever it still holds is inserted
+ * again; rows that did make it into the database before a crash are recognised and skipped.
+ */
+@Component
+public class MeetingRoomWriteBehind implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MeetingRoomWriteBehind.class);
+
+    static final String LOG_FILE = "meeting-rooms.log";
+    // Past this size the log is rewritten with only the rooms still queued, even if the queue never drains.
+    private static final long COMPACT_BYTES = 16L * 1024 * 1024;
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(1);
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final MeetingRoomRepository meetingRoomRepository;
+    private final IdAllocator idAllocator;
+    private final boolean enabled;
+    private final Path logFile;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final ConcurrentHashMap<String, MeetingRoom> pending = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Append> appends = new LinkedBlockingQueue<>();
+    private final LinkedBlockingQueue<MeetingRoom> queued = new LinkedBlockingQueue<>();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong logBytes = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile boolean compactRequested;
+    // Only touched by the log thread once started.
+    private FileChannel log;
+    private Thread logThread;
+    private Thread flusherThread;
+
+    private record Append(MeetingRoom room, CompletableFuture<MeetingRoom> done) {
+    }
+
+    public MeetingRoomWriteBehind(MeetingRoomRepository meetingRoomRepository, IdAllocator idAllocator,
+                                  @Value("${meeting.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${meeting.write-behind.directory:write-behind}") Path directory,
+                                  @Value("${meeting.write-behind.batch-size:100}") int batchSize,
+                                  @Value("${meeting.write-behind.flush-interval:200ms}") Duration flushInterval) {
+        this.meetingRoomRepository = meetingRoomRepository;
+        this.idAllocator = idAllocator;
+        this.enabled = enabled;
+        this.logFile = directory.resolve(LOG_FILE);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        List<MeetingRoom> recovered = recover();
+        if (!enabled) {
+            if (!recovered.isEmpty()) {
+                // Left by a run that had write-behind on; put the rooms in now so the log can go.
+                logger.info("Write-behind is off; inserting {} rooms left in {}", recovered.size(), logFile);
+                if (flush(recovered)) {
+                    deleteLog();
+                }
+            }
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            logBytes.set(log.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the meeting room log " + logFile, e);
+        }
+        queued.addAll(recovered);
+        logThread = new Thread(this::runLog, "meeting-log");
+        flusherThread = new Thread(this::runFlusher, "meeting-flusher");
+        logThread.setDaemon(true);
+        flusherThread.setDaemon(true);
+        logThread.start();
+        flusherThread.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Creates a room for an existing Janus room and completes once it is durably queued for insertion.
+     */
+    public Mono<MeetingRoom> insert(JanusService.JanusRoom janusRoom, String description) {
+        return Mono.defer(() -> {
+            if (!running) {
+                return Mono.error(new IllegalStateException("Meeting room write-behind is shut down"));
+            }
+            CompletableFuture<MeetingRoom> done = new CompletableFuture<>();
+            MeetingRoom room = new MeetingRoom(idAllocator.nextFriendlyId(), janusRoom.roomId(), description);
+            room.setJanusNode(janusRoom.node());
+            appends.add(new Append(room, done));
+            return Mono.fromFuture(done);
+        });
+    }
+
+    /**
+     * A room that has been returned to its creator but may not be in the database yet.
+     */
+    public Optional<MeetingRoom> pending(String friendlyId) {
+        return Optional.ofNullable(pending.get(friendlyId));
+    }
+
+    /**
+     * The Janus rooms of all pending rooms, which exist on Janus but may have no row yet.
+     */
+    public Set<Long> pendingJanusRoomIds() {
+        Set<Long> ids = new HashSet<>();
+        pending.values().forEach(room -> ids.add(room.getJanusRoomId()));
+        return ids;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("meeting.write_behind.pending", pending, ConcurrentHashMap::size)
+                .description("Rooms queued but not yet inserted")
+                .register(registry);
+        FunctionCounter.builder("meeting.write_behind.flushed", flushed, AtomicLong::get)
+                .description("Rooms inserted by the write-behind flusher")
+                .register(registry);
+        FunctionCounter.builder("meeting.write_behind.batches", batches, AtomicLong::get)
+                .description("Batches committed by the write-behind flusher")
+                .register(registry);
+        FunctionCounter.builder("meeting.write_behind.failed", failed, AtomicLong::get)
+                .description("Queued rooms that could not be inserted and were dropped")
+                .register(registry);
+    }
+
+    /**
+     * Stops taking rooms, and makes one last attempt to insert the queued ones; whatever is left stays in the log.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (logThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            logThread.join(TimeUnit.SECONDS.toMillis(5));
+            // Rooms handed in while the log thread was finishing were never returned to anyone.
+            for (Append append = appends.poll(); append != null; append = appends.poll()) {
+                append.done().completeExceptionally(new IllegalStateException("Meeting room write-behind is shut down"));
+            }
+            flusherThread.join(TimeUnit.SECONDS.toMillis(5));
+            List<MeetingRoom> remaining = new ArrayList<>();
+            queued.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                flush(remaining);
+            }
+            if (pending.isEmpty()) {
+                log.truncate(0);
+            }
+            log.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Meeting room write-behind did not shut down cleanly; {} rooms stay in the log: {}", pending.size(), e.toString());
+        }
+    }
+
+    // Group commit: everything that arrived while the previous force ran is written and forced together.
+    private void runLog() {
+        List<Append> group = new ArrayList<>();
+        while (running || !appends.isEmpty()) {
+            try {
+                Append first = appends.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    group.add(first);
+                    appends.drainTo(group);
+                    append(group);
+                    group.clear();
+                }
+                if (compactRequested) {
+                    compactRequested = false;
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                logger.error("Meeting room log write failed: {}", e.toString());
+                group.forEach(append -> append.done().completeExceptionally(e));
+                group.clear();
+            }
+        }
+    }
+
+    private void append(List<Append> group) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(group.size() * 64);
+        for (Append append : group) {
+            writeRecord(records, append.room());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        log.force(false);
+        logBytes.addAndGet(records.size());
+        for (Append append : group) {
+            pending.put(append.room().getFriendlyRoomId(), append.room());
+            queued.add(append.room());
+            append.done().complete(append.room());
+        }
+    }
+
+    private void runFlusher() {
+        List<MeetingRoom> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                MeetingRoom first = queued.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize && running) {
+                    queued.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    // In slices, so that shutting down does not wait out a long flush interval.
+                    MeetingRoom next = queued.poll(Math.min(wait, POLL_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                while (!flush(batch)) {
+                    if (!running) {
+                        // Shutting down; the batch goes back for the final attempt.
+                        queued.addAll(batch);
+                        return;
+                    }
+                    Thread.sleep(RETRY_BACKOFF.toMillis());
+                }
+                batch.clear();
+                if (pending.isEmpty() || logBytes.get() > COMPACT_BYTES) {
+                    compactRequested = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            queued.addAll(batch);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Inserts a batch. A constraint violation falls back to row by row, which tells rows inserted before a crash
+     * apart from real conflicts; any other failure leaves the batch queued.
+     *
+     * @return false if the batch should be retried.
+     */
+    private boolean flush(List<MeetingRoom> batch) {
+        try {
+            meetingRoomRepository.saveAll(batch);
+            batches.incrementAndGet();
+        } catch (DataIntegrityViolationException e) {
+            batch.forEach(this::insertOne);
+        } catch (RuntimeException e) {
+            logger.warn("Could not insert {} queued meeting rooms, retrying: {}", batch.size(), e.toString());
+            return false;
+        }
+        for (MeetingRoom room : batch) {
+            pending.remove(room.getFriendlyRoomId(), room);
+        }
+        flushed.addAndGet(batch.size());
+        return true;
+    }
+
+    private void insertOne(MeetingRoom room) {
+        Optional<MeetingRoom> existing = meetingRoomRepository.findById(room.getFriendlyRoomId());
+        if (existing.isPresent()) {
+            if (!existing.get().getJanusRoomId().equals(room.getJanusRoomId())) {
+                failed.incrementAndGet();
+                logger.error("Dropping queued room {}: its friendly id is taken by another room", room.getFriendlyRoomId());
+            }
+            return;
+        }
+        try {
+            meetingRoomRepository.save(room);
+        } catch (DataIntegrityViolationException e) {
+            failed.incrementAndGet();
+            logger.error("Dropping queued room {}: {}", room.getFriendlyRoomId(), e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    // Runs on the log thread, so no append can slip in between reading "pending" and swapping the file.
+    private void compact() throws IOException {
+        if (pending.isEmpty()) {
+            log.truncate(0);
+            logBytes.set(0);
+            return;
+        }
+        Path compacted = logFile.resolveSibling(LOG_FILE + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteArrayOutputStream records = new ByteArrayOutputStream();
+            for (MeetingRoom room : pending.values()) {
+                writeRecord(records, room);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+            logBytes.set(records.size());
+        }
+        log.close();
+        Files.move(compacted, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log = FileChannel.open(logFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads back the rooms a previous run left in the log. A torn record at the end (a crash mid-append, before
+     * the room was returned to anyone) is cut off.
+     */
+    private List<MeetingRoom> recover() {
+        List<MeetingRoom> rooms = new ArrayList<>();
+        if (!Files.exists(logFile)) {
+            return rooms;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(logFile);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int valid = 0;
+            while (buffer.remaining() >= 8) {
+                int length = buffer.getInt();
+                int crc = buffer.getInt();
+                if (length < 0 || length > buffer.remaining() || crc(bytes, buffer.position(), length) != crc) {
+                    break;
+                }
+                rooms.add(readRecord(bytes, buffer.position(), length));
+                buffer.position(buffer.position() + length);
+                valid = buffer.position();
+            }
+            if (valid < bytes.length) {
+                logger.warn("Cutting {} bytes of torn records off the end of {}", bytes.length - valid, logFile);
+                try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the meeting room log " + logFile, e);
+        }
+        for (MeetingRoom room : rooms) {
+            pending.put(room.getFriendlyRoomId(), room);
+        }
+        if (!rooms.isEmpty()) {
+            logger.info("Recovered {} queued meeting rooms from {}", rooms.size(), logFile);
+        }
+        return rooms;
+    }
+
+    private void deleteLog() {
+        try {
+            Files.deleteIfExists(logFile);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", logFile, e.toString());
+        }
+    }
+
+    // A record is its length, the CRC32 of its body, and the body.
+    private static void writeRecord(ByteArrayOutputStream out, MeetingRoom room) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        DataOutputStream data = new DataOutputStream(body);
+        data.writeUTF(room.getFriendlyRoomId());
+        data.writeLong(room.getJanusRoomId());
+        data.writeLong(room.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+        data.writeInt(room.getCreatedAt().getNano());
+        byte[] description = room.getDescription() == null ? null : room.getDescription().getBytes(StandardCharsets.UTF_8);
+        data.writeInt(description == null ? -1 : description.length);
+        if (description != null) {
+            data.write(description);
+        }
+        // Appended last, so records written before rooms had a node still read.
+        data.writeBoolean(room.getJanusNode() != null);
+        if (room.getJanusNode() != null) {
+            data.writeUTF(room.getJanusNode());
+        }
+        byte[] bytes = body.toByteArray();
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(bytes.length);
+        header.writeInt(crc(bytes, 0, bytes.length));
+        out.write(bytes);
+    }
+
+    private static MeetingRoom readRecord(byte[] bytes, int offset, int length) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+        try {
+            String friendlyId = data.readUTF();
+            long janusRoomId = data.readLong();
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(data.readLong(), data.readInt(), ZoneOffset.UTC);
+            int descriptionLength = data.readInt();
+            String description = descriptionLength < 0 ? null
+                    : new String(data.readNBytes(descriptionLength), StandardCharsets.UTF_8);
+            String janusNode = data.available() > 0 && data.readBoolean() ? data.readUTF() : null;
+            MeetingRoom room = new MeetingRoom(friendlyId, janusRoomId, description);
+            room.setJanusNode(janusNode);
+            room.setCreatedAt(createdAt);
+            room.setLastActivityAt(createdAt);
+            return room;
+        } catch (EOFException e) {
+            throw new IOException("Truncated meeting room record", e);
+        }
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,47 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.repository.MeetingRoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inserts new meeting rooms under freshly allocated friendly ids.
+ */
+@Component
+public class MeetingRoomWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MeetingRoomWriter.class);
+
+    // Allocated ids never collide with each other, only (rarely) with rows from the old random generator.
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final MeetingRoomRepository meetingRoomRepository;
+    private final IdAllocator idAllocator;
+
+    public MeetingRoomWriter(MeetingRoomRepository meetingRoomRepository, IdAllocator idAllocator) {
+        this.meetingRoomRepository = meetingRoomRepository;
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Inserts a room for an existing Janus room. This is a plain INSERT with no SELECT first.
+     */
+    public MeetingRoom insert(JanusService.JanusRoom janusRoom, String description, boolean reserved) {
+        for (int attempt = 1; ; attempt++) {
+            MeetingRoom room = new MeetingRoom(idAllocator.nextFriendlyId(), janusRoom.roomId(), description);
+            room.setJanusNode(janusRoom.node());
+            room.setReserved(reserved);
+            try {
+                return meetingRoomRepository.save(room);
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Friendly id {} is already taken by a legacy room; allocating another", room.getFriendlyRoomId());
+            }
+        }
+    }
+}
@@ -1,45 +1,73 @@
 package com.ayush.ayush.service;
 
 import com.ayush.ayush.entity.MeetingRoom;
-import com.ayush.ayush.repository.MeetingRoomRepository;
 import org.springframework.beans.factory.annotation.Autowired; // Ensure this is imported
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.security.SecureRandom;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 @Service
 public class MeetingService {
 
-    private final MeetingRoomRepository meetingRoomRepository;
+    private final MeetingRoomWriter meetingRoomWriter;
+    private final MeetingRoomWriteBehind meetingRoomWriteBehind;
     private final JanusService janusService;
+    private final RoomProvisioner roomProvisioner;
+    private final RoomLookupCache roomLookupCache;
+    private final JanusRoomReconciler janusRoomReconciler;
 
     // ✅ Using @Autowired on the constructor for robust dependency injection
     @Autowired
-    public MeetingService(MeetingRoomRepository meetingRoomRepository, JanusService janusService) {
-        this.meetingRoomRepository = meetingRoomRepository;
+    public MeetingService(MeetingRoomWriter meetingRoomWriter, MeetingRoomWriteBehind meetingRoomWriteBehind,
+                          JanusService janusService, RoomProvisioner roomProvisioner, RoomLookupCache roomLookupCache,
+                          JanusRoomReconciler janusRoomReconciler) {
+        this.meetingRoomWriter = meetingRoomWriter;
+        this.meetingRoomWriteBehind = meetingRoomWriteBehind;
         this.janusService = janusService;
+        this.roomProvisioner = roomProvisioner;
+        this.roomLookupCache = roomLookupCache;
+        this.janusRoomReconciler = janusRoomReconciler;
     }
 
-    public MeetingRoom createMeetingRoom(String description) {
-        Long janusRoomId = janusService.createRoom();
-        String friendlyId = generateUniqueFriendlyId();
-        MeetingRoom newRoom = new MeetingRoom(friendlyId, janusRoomId, description);
-        return meetingRoomRepository.save(newRoom);
+    /**
+     * Creates a meeting room. Normally this just claims a pre-provisioned room from the warm pool;
+     * only when the pool is empty does it create the Janus room and the row on the spot.
+     */
+    public Mono<MeetingRoom> createMeetingRoom(String description) {
+        return Mono.fromCallable(() -> roomProvisioner.claim(description))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(claimed -> claimed.map(Mono::just).orElseGet(() -> createFreshRoom(description)))
+                .doOnNext(roomLookupCache::put);
     }
 
+    /**
+     * Looks up a room for joining. Served from {@link RoomLookupCache}, so a meeting's join burst hits the database once.
+     * Rooms still queued by the write-behind are found as well. A room that is found counts as used, so it does not expire.
+     */
     public Optional<MeetingRoom> findRoomByFriendlyId(String friendlyId) {
-        return meetingRoomRepository.findById(friendlyId);
+        Optional<MeetingRoom> room = meetingRoomWriteBehind.pending(friendlyId).or(() -> roomLookupCache.get(friendlyId));
+        room.ifPresent(found -> janusRoomReconciler.recordActivity(friendlyId));
+        return room;
     }
 
-    private String generateUniqueFriendlyId() {
-        String CHARS = "ABCDEFGHJKMNPQRSTUVWXYZ23456789";
-        SecureRandom random = new SecureRandom();
-        return IntStream.range(0, 6)
-                .map(i -> random.nextInt(CHARS.length()))
-                .mapToObj(randomIndex -> String.valueOf(CHARS.charAt(randomIndex)))
-                .collect(Collectors.joining());
+    /**
+     * Where clients joining the room reach its Janus node.
+     */
+    public Optional<String> janusUrl(MeetingRoom room) {
+        return janusService.publicUrl(room.getJanusNode());
+    }
+
+    /**
+     * Creates the Janus room without holding a thread, then saves the meeting on a worker suited to blocking JDBC,
+     * or only queues it when write-behind is on.
+     */
+    private Mono<MeetingRoom> createFreshRoom(String description) {
+        Mono<JanusService.JanusRoom> janusRoom = janusService.createRoom().publishOn(Schedulers.boundedElastic());
+        if (meetingRoomWriteBehind.isEnabled()) {
+            return janusRoom.flatMap(created -> meetingRoomWriteBehind.insert(created, description));
+        }
+        return janusRoom.map(created -> meetingRoomWriter.insert(created, description, false));
     }
 }
\ No newline at end of file
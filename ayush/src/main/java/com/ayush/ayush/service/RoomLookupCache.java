@@ -0,0 +1,89 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.repository.MeetingRoomRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache for joining by friendly id.
+ * When a big meeting starts, hundreds of joins look up the same room within seconds; misses (mistyped or guessed
+ * links) are cached too, for a shorter time. Loads are single-flight: concurrent lookups of an uncached id wait
+ * for one database query instead of each issuing their own.
+ */
+@Component
+public class RoomLookupCache implements MeterBinder {
+
+    private final LoadingCache<String, Optional<MeetingRoom>> cache;
+
+    public RoomLookupCache(MeetingRoomRepository meetingRoomRepository,
+                           @Value("${meeting.lookup-cache.max-size:10000}") long maxSize,
+                           @Value("${meeting.lookup-cache.ttl:5m}") Duration ttl,
+                           @Value("${meeting.lookup-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Optional<MeetingRoom>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<MeetingRoom> value, long currentTime) {
+                        return (value.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<MeetingRoom> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<MeetingRoom> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                // Rooms still waiting in the warm pool do not exist as far as callers are concerned.
+                .build(friendlyId -> meetingRoomRepository.findById(friendlyId).filter(room -> !room.isReserved()));
+    }
+
+    public Optional<MeetingRoom> get(String friendlyId) {
+        return cache.get(friendlyId);
+    }
+
+    /**
+     * Records a newly created room, replacing any cached miss for its id.
+     */
+    public void put(MeetingRoom room) {
+        cache.put(room.getFriendlyRoomId(), Optional.of(room));
+    }
+
+    public void invalidate(String friendlyId) {
+        cache.invalidate(friendlyId);
+    }
+
+    /**
+     * Hit/miss counts and load timings since startup; {@link CacheStats#hitRate()} gives the hit ratio.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Publishes the cache statistics as the standard "cache.*" meters, tagged cache=room-lookup.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "room-lookup");
+    }
+}
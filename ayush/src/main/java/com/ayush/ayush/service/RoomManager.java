@@ -1,24 +1,68 @@
 package com.ayush.ayush.service;
 
 import com.ayush.ayush.participant.UserSession;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 @Service
-public class RoomManager {
+public class RoomManager implements MeterBinder {
+
+    // Room-size buckets for the "signaling.rooms.by_size" gauges: {lower bound, upper bound}, inclusive.
+    private static final int[][] SIZE_BUCKETS = {{1, 1}, {2, 4}, {5, 10}, {11, 50}, {51, Integer.MAX_VALUE}};
 
     // A map of [roomId] to another map of [userId, UserSession]
     private final ConcurrentMap<String, ConcurrentMap<String, UserSession>> rooms = new ConcurrentHashMap<>();
 
+    // A map of [webSocketId] to UserSession, so a disconnect finds its user without scanning every room.
+    private final ConcurrentMap<String, UserSession> sessionsByWebSocketId = new ConcurrentHashMap<>();
+
     /**
      * Adds a user's session to the specified room.
+     * The room is created and populated inside one atomic compute, so a concurrent leave can never
+     * remove a room that a user has just joined.
      */
     public void addUserToRoom(UserSession userSession) {
-        rooms.computeIfAbsent(userSession.getRoomId(), k -> new ConcurrentHashMap<>())
-                .put(userSession.getUserId(), userSession);
+        rooms.compute(userSession.getRoomId(), (roomId, room) -> {
+            if (room == null) {
+                room = new ConcurrentHashMap<>();
+            }
+            room.put(userSession.getUserId(), userSession);
+            return room;
+        });
+        sessionsByWebSocketId.put(userSession.getWebSocketSession().getId(), userSession);
+    }
+
+    /**
+     * Adds a user's session to its room and returns the userIds that were already there.
+     * The snapshot and the add happen inside the same compute, so of two users joining at once
+     * exactly one sees the other: the pair is negotiated once, never twice and never not at all.
+     */
+    public Set<String> joinRoom(UserSession userSession) {
+        Set<String> existing = new HashSet<>();
+        rooms.compute(userSession.getRoomId(), (roomId, room) -> {
+            if (room == null) {
+                room = new ConcurrentHashMap<>();
+            }
+            for (String userId : room.keySet()) {
+                if (!userId.equals(userSession.getUserId())) {
+                    existing.add(userId);
+                }
+            }
+            room.put(userSession.getUserId(), userSession);
+            return room;
+        });
+        sessionsByWebSocketId.put(userSession.getWebSocketSession().getId(), userSession);
+        return existing;
     }
 
     /**
@@ -28,29 +72,32 @@ public class RoomManager {
      * @return The UserSession of the user who was removed, if they were found.
      */
     public Optional<UserSession> removeUserFromRoom(String webSocketId) {
-        for (ConcurrentMap<String, UserSession> room : rooms.values()) {
-            Optional<String> userIdToRemove = room.values().stream()
-                    .filter(session -> session.getWebSocketSession().getId().equals(webSocketId))
-                    .map(UserSession::getUserId)
-                    .findFirst();
-
-            if (userIdToRemove.isPresent()) {
-                UserSession removedUser = room.remove(userIdToRemove.get());
-                // If the room becomes empty after the user leaves, remove the room itself.
-                if (room.isEmpty()) {
-                    rooms.remove(removedUser.getRoomId());
-                }
-                return Optional.ofNullable(removedUser);
-            }
+        UserSession removedUser = sessionsByWebSocketId.remove(webSocketId);
+        if (removedUser == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        // Remove the user and, if the room is now empty, the room itself in one step.
+        // Only this exact session is removed: if the same userId has since rejoined on a new socket, that entry stays.
+        rooms.computeIfPresent(removedUser.getRoomId(), (roomId, room) -> {
+            room.remove(removedUser.getUserId(), removedUser);
+            return room.isEmpty() ? null : room;
+        });
+        return Optional.of(removedUser);
     }
 
     /**
      * Retrieves all participants currently in a given room.
+     * The returned map is a live, read-only view of the room, not a copy.
      */
-    public Optional<ConcurrentMap<String, UserSession>> getParticipantsInRoom(String roomId) {
-        return Optional.ofNullable(rooms.get(roomId));
+    public Optional<Map<String, UserSession>> getParticipantsInRoom(String roomId) {
+        return Optional.ofNullable(rooms.get(roomId)).map(Collections::unmodifiableMap);
+    }
+
+    /**
+     * The ids of all rooms that currently have participants on this node.
+     */
+    public Set<String> getRoomIds() {
+        return Collections.unmodifiableSet(rooms.keySet());
     }
 
     /**
@@ -59,4 +106,32 @@ public class RoomManager {
     public Optional<UserSession> getParticipant(String roomId, String userId) {
         return Optional.ofNullable(rooms.get(roomId)).map(room -> room.get(userId));
     }
-}
\ No newline at end of file
+
+    /**
+     * Room and participant gauges for this node. They are computed when scraped, never on the signaling path.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("signaling.rooms", rooms, Map::size)
+                .description("Rooms with participants on this node")
+                .register(registry);
+        Gauge.builder("signaling.participants", sessionsByWebSocketId, Map::size)
+                .description("Participants connected to this node")
+                .register(registry);
+        Gauge.builder("signaling.rooms.largest", this, manager -> manager.rooms.values().stream().mapToInt(Map::size).max().orElse(0))
+                .description("Participants in the largest room on this node")
+                .register(registry);
+        for (int[] bucket : SIZE_BUCKETS) {
+            String label = bucket[1] == Integer.MAX_VALUE ? bucket[0] + "+"
+                    : bucket[0] == bucket[1] ? String.valueOf(bucket[0]) : bucket[0] + "-" + bucket[1];
+            Gauge.builder("signaling.rooms.by_size", this, manager -> manager.countRooms(bucket[0], bucket[1]))
+                    .description("Rooms on this node, by number of participants")
+                    .tag("size", label)
+                    .register(registry);
+        }
+    }
+
+    private long countRooms(int minSize, int maxSize) {
+        return rooms.values().stream().filter(room -> room.size() >= minSize && room.size() <= maxSize).count();
+    }
+}
@@ -0,0 +1,222 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.repository.MeetingRoomRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a pool of ready-made meeting rooms: a Janus room plus a reserved MeetingRoom row for each.
+ * Creating a meeting then only has to claim one of them, taking Janus and the id generation off the critical path.
+ * Rooms that sit unused for longer than the idle limit, or on a Janus node being drained, are destroyed, so the pool
+ * never leaks Janus rooms.
+ */
+@Component
+public class RoomProvisioner implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomProvisioner.class);
+
+    // Rooms provisioned at the same time; keeps a refill from flooding Janus.
+    private static final int REFILL_CONCURRENCY = 4;
+
+    private final MeetingRoomRepository meetingRoomRepository;
+    private final MeetingRoomWriter meetingRoomWriter;
+    private final JanusService janusService;
+    private final RoomLookupCache roomLookupCache;
+    private final int targetSize;
+    private final int lowWatermark;
+    private final Duration maxIdle;
+
+    private final ConcurrentLinkedDeque<MeetingRoom> available = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger availableCount = new AtomicInteger();
+    private final AtomicBoolean adopted = new AtomicBoolean();
+
+    private final AtomicLong provisioned = new AtomicLong();
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong lowWatermarkBreaches = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final AtomicLong refillFailures = new AtomicLong();
+
+    /**
+     * Counters for the warm pool, read by monitoring.
+     *
+     * @param available            Rooms ready to be claimed right now.
+     * @param provisioned          Rooms created by refills.
+     * @param claimed              Meetings served from the pool.
+     * @param misses               Meetings created on the slow path because the pool was empty.
+     * @param lowWatermarkBreaches Times a claim left the pool below the low watermark.
+     * @param drained              Rooms destroyed after sitting unused for too long.
+     * @param refillFailures       Rooms a refill failed to create.
+     */
+    public record Stats(int available, long provisioned, long claimed, long misses,
+                        long lowWatermarkBreaches, long drained, long refillFailures) {
+    }
+
+    public RoomProvisioner(MeetingRoomRepository meetingRoomRepository, MeetingRoomWriter meetingRoomWriter,
+                           JanusService janusService, RoomLookupCache roomLookupCache,
+                           @Value("${meeting.warm-pool.size:0}") int targetSize,
+                           @Value("${meeting.warm-pool.low-watermark:2}") int lowWatermark,
+                           @Value("${meeting.warm-pool.max-idle:30m}") Duration maxIdle) {
+        this.meetingRoomRepository = meetingRoomRepository;
+        this.meetingRoomWriter = meetingRoomWriter;
+        this.janusService = janusService;
+        this.roomLookupCache = roomLookupCache;
+        this.targetSize = targetSize;
+        this.lowWatermark = lowWatermark;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Claims a warm room for a new meeting. This is a single conditional UPDATE, and it is safe if several
+     * instances share the same reserved rows. Rooms on a Janus node that is drained or failing its health checks
+     * are passed over.
+     *
+     * @return The claimed room, or empty if the pool is exhausted and the caller has to create one the slow way.
+     */
+    public Optional<MeetingRoom> claim(String description) {
+        MeetingRoom room;
+        List<MeetingRoom> passedOver = new ArrayList<>();
+        try {
+            while ((room = available.pollFirst()) != null) {
+                if (!janusService.isUsable(room.getJanusNode())) {
+                    passedOver.add(room);
+                    continue;
+                }
+                if (availableCount.decrementAndGet() < lowWatermark) {
+                    lowWatermarkBreaches.incrementAndGet();
+                }
+                LocalDateTime now = LocalDateTime.now();
+                if (meetingRoomRepository.claimReserved(room.getFriendlyRoomId(), description, now) == 1) {
+                    room.setReserved(false);
+                    room.setDescription(description);
+                    room.setCreatedAt(now);
+                    room.setLastActivityAt(now);
+                    claimed.incrementAndGet();
+                    return Optional.of(room);
+                }
+                // Claimed or drained elsewhere (another instance); try the next one.
+            }
+        } finally {
+            // Still in the pool: a failing node may recover, and drainIdle retires rooms on a drained one.
+            passedOver.forEach(available::addFirst);
+        }
+        if (targetSize > 0) {
+            misses.incrementAndGet();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Tops the pool back up to its target size and drains rooms that went unused for too long.
+     */
+    @Scheduled(fixedDelayString = "${meeting.warm-pool.refill-interval-ms:2000}")
+    public void refill() {
+        if (targetSize <= 0) {
+            return;
+        }
+        if (adopted.compareAndSet(false, true)) {
+            // Reserved rows left over from a previous run are still backed by live Janus rooms; reuse them.
+            meetingRoomRepository.findByReservedTrue().forEach(this::makeAvailable);
+            logger.info("Adopted {} reserved rooms into the warm pool", availableCount.get());
+        }
+        drainIdle();
+        int deficit = targetSize - availableCount.get();
+        if (deficit <= 0) {
+            return;
+        }
+        Flux.range(0, deficit)
+                .flatMap(i -> provisionOne()
+                        .onErrorResume(e -> {
+                            refillFailures.incrementAndGet();
+                            logger.warn("Warm pool refill failed: {}", e.toString());
+                            return Mono.empty();
+                        }), REFILL_CONCURRENCY)
+                .doOnNext(this::makeAvailable)
+                .blockLast();
+    }
+
+    /**
+     * Publishes {@link #stats()} as "meeting.warm_pool.*" meters.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("meeting.warm_pool.available", availableCount, AtomicInteger::get)
+                .description("Rooms ready to be claimed")
+                .register(registry);
+        counter(registry, "meeting.warm_pool.provisioned", provisioned, "Rooms created by refills");
+        counter(registry, "meeting.warm_pool.claimed", claimed, "Meetings served from the pool");
+        counter(registry, "meeting.warm_pool.misses", misses, "Meetings created on the slow path because the pool was empty");
+        counter(registry, "meeting.warm_pool.low_watermark_breaches", lowWatermarkBreaches, "Claims that left the pool below the low watermark");
+        counter(registry, "meeting.warm_pool.drained", drained, "Rooms destroyed after sitting unused for too long");
+        counter(registry, "meeting.warm_pool.refill_failures", refillFailures, "Rooms a refill failed to create");
+    }
+
+    private static void counter(MeterRegistry registry, String name, AtomicLong value, String description) {
+        FunctionCounter.builder(name, value, AtomicLong::get).description(description).register(registry);
+    }
+
+    public Stats stats() {
+        return new Stats(availableCount.get(), provisioned.get(), claimed.get(), misses.get(),
+                lowWatermarkBreaches.get(), drained.get(), refillFailures.get());
+    }
+
+    private Mono<MeetingRoom> provisionOne() {
+        return janusService.createRoom()
+                .publishOn(Schedulers.boundedElastic())
+                .map(janusRoom -> {
+                    MeetingRoom saved = meetingRoomWriter.insert(janusRoom, null, true);
+                    provisioned.incrementAndGet();
+                    return saved;
+                });
+    }
+
+    private void makeAvailable(MeetingRoom room) {
+        available.addLast(room);
+        availableCount.incrementAndGet();
+    }
+
+    private void drainIdle() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxIdle);
+        Iterator<MeetingRoom> it = available.iterator();
+        while (it.hasNext()) {
+            MeetingRoom room = it.next();
+            boolean idle = room.getCreatedAt() != null && room.getCreatedAt().isBefore(cutoff);
+            if (!(idle || janusService.isDraining(room.getJanusNode())) || !available.remove(room)) {
+                continue;
+            }
+            availableCount.decrementAndGet();
+            if (meetingRoomRepository.deleteReserved(room.getFriendlyRoomId()) == 1) {
+                roomLookupCache.invalidate(room.getFriendlyRoomId());
+                janusService.destroyRoom(room.getJanusNode(), room.getJanusRoomId())
+                        .doOnSuccess(v -> drained.incrementAndGet())
+                        .onErrorResume(e -> {
+                            logger.warn("Could not destroy warm Janus room {}: {}", room.getJanusRoomId(), e.toString());
+                            return Mono.empty();
+                        })
+                        .block();
+            }
+        }
+    }
+}
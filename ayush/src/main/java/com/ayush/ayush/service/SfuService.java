@@ -1,15 +1,20 @@
 package com.ayush.ayush.service;
 
+import com.ayush.ayush.cluster.ClusterSignaling;
+import com.ayush.ayush.journal.SignalingJournal;
 import com.ayush.ayush.participant.UserSession;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ayush.ayush.signaling.EncodedFrame;
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.signaling.SignalingMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.TextMessage;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class SfuService {
@@ -18,67 +23,102 @@ public class SfuService {
 
     // SfuService depends on RoomManager to keep track of users
     private final RoomManager roomManager;
-    private final ObjectMapper objectMapper;
-
-    public SfuService(RoomManager roomManager, ObjectMapper objectMapper) {
+    private final FrameEncoder frameEncoder;
+    private final IceCandidateBatcher iceCandidateBatcher;
+    private final SignalingJournal journal;
+    private final LargeRoomPresence largeRoomPresence;
+    // Null unless cluster mode is on; then participants of a room may be connected to other nodes.
+    private final ClusterSignaling cluster;
+
+    public SfuService(RoomManager roomManager, FrameEncoder frameEncoder, IceCandidateBatcher iceCandidateBatcher,
+                      SignalingJournal journal, LargeRoomPresence largeRoomPresence, Optional<ClusterSignaling> cluster) {
         this.roomManager = roomManager;
-        this.objectMapper = objectMapper;
+        this.frameEncoder = frameEncoder;
+        this.iceCandidateBatcher = iceCandidateBatcher;
+        this.journal = journal;
+        this.largeRoomPresence = largeRoomPresence;
+        this.cluster = cluster.orElse(null);
     }
 
     /**
      * Handles a new user joining a room. This is the most critical method for solving the "late joiner" issue.
      */
     public void handleJoin(UserSession userSession) {
-        // Step 1: Get a list of all participants who are ALREADY in the room.
-        // This is done before the new user is officially added.
-        var existingParticipants = roomManager.getParticipantsInRoom(userSession.getRoomId())
-                .map(participants -> participants.keySet().stream()
-                        .filter(id -> !id.equals(userSession.getUserId())) // Exclude the user themselves
-                        .collect(Collectors.toSet()))
-                .orElse(java.util.Collections.emptySet()); // If room is new, this will be empty
+        if (cluster != null) {
+            // The room's owner node holds the cluster-wide roster and does the announcing.
+            roomManager.addUserToRoom(userSession);
+            journal.joined(userSession.getRoomId(), userSession.getUserId(), -1);
+            cluster.join(userSession);
+            return;
+        }
+
+        // Large rooms send the joiner a roster and tell everyone else in the next batched roster delta.
+        Optional<Set<String>> joinedLargeRoom = largeRoomPresence.join(userSession);
+        if (joinedLargeRoom.isPresent()) {
+            journal.joined(userSession.getRoomId(), userSession.getUserId(), joinedLargeRoom.get().size());
+            return;
+        }
 
-        // Step 2: Add the new user to the room's central directory.
-        roomManager.addUserToRoom(userSession);
+        // Steps 1 and 2: Take the list of participants who are ALREADY in the room and add the new user,
+        // as one atomic step so that two simultaneous joiners cannot both miss each other.
+        var existingParticipants = roomManager.joinRoom(userSession);
 
         // Step 3: Send the list of existing users ONLY to the new user.
         // This tells their client: "Welcome! You need to establish a connection with these people."
-        logger.info("Sending existing_participants list ({}) to new user {}", existingParticipants, userSession.getUserId());
+        journal.joined(userSession.getRoomId(), userSession.getUserId(), existingParticipants.size());
         sendMessage(userSession, "existing_participants", Map.of("userIds", existingParticipants));
 
         // Step 4: Announce the new user's arrival to everyone else in the room.
         // This tells existing clients: "A new person has joined. Wait for their connection offer."
-        logger.info("Broadcasting new_participant ({}) to the room {}", userSession.getUserId(), userSession.getRoomId());
         broadcast(userSession, "new_participant", Map.of("userId", userSession.getUserId()));
+        largeRoomPresence.joined(userSession.getRoomId(), existingParticipants.size() + 1);
     }
 
     /**
      * Forwards a WebRTC SDP offer from a sender to a specific target user.
      */
-    public void handleOffer(UserSession sender, Map<String, Object> payload) {
-        String remoteUserId = (String) payload.get("remoteUserId");
-        Object sdp = payload.get("sdp");
-        logger.info("Forwarding offer from {} to {}", sender.getUserId(), remoteUserId);
-        forwardToParticipant(sender, remoteUserId, "offer", Map.of("userId", sender.getUserId(), "sdp", sdp));
+    public void handleOffer(UserSession sender, SignalingMessage.Offer offer) {
+        String remoteUserId = offer.remoteUserId();
+        iceCandidateBatcher.flush(sender, remoteUserId);
+        // The SDP is spliced into the outgoing frame as the client sent it.
+        forwardToParticipant(sender, remoteUserId, "offer", Map.of("userId", sender.getUserId(), "sdp", offer.sdp()));
     }
 
     /**
      * Forwards a WebRTC SDP answer from a sender to a specific target user.
      */
-    public void handleAnswer(UserSession sender, Map<String, Object> payload) {
-        String remoteUserId = (String) payload.get("remoteUserId");
-        Object sdp = payload.get("sdp");
-        logger.info("Forwarding answer from {} to {}", sender.getUserId(), remoteUserId);
-        forwardToParticipant(sender, remoteUserId, "answer", Map.of("userId", sender.getUserId(), "sdp", sdp));
+    public void handleAnswer(UserSession sender, SignalingMessage.Answer answer) {
+        String remoteUserId = answer.remoteUserId();
+        iceCandidateBatcher.flush(sender, remoteUserId);
+        forwardToParticipant(sender, remoteUserId, "answer", Map.of("userId", sender.getUserId(), "sdp", answer.sdp()));
     }
 
     /**
      * Forwards a WebRTC ICE candidate from a sender to a specific target user.
      */
-    public void handleIceCandidate(UserSession sender, Map<String, Object> payload) {
-        String remoteUserId = (String) payload.get("remoteUserId");
-        Object candidate = payload.get("candidate");
-        logger.info("Forwarding ICE candidate from {} to {}", sender.getUserId(), remoteUserId);
-        forwardToParticipant(sender, remoteUserId, "ice_candidate", Map.of("userId", sender.getUserId(), "candidate", candidate));
+    public void handleIceCandidate(UserSession sender, SignalingMessage.IceCandidate message) {
+        String remoteUserId = message.remoteUserId();
+        forwardIceCandidates(sender, remoteUserId, List.of(message.candidate()));
+    }
+
+    /**
+     * Forwards a batch of WebRTC ICE candidates ("ice_candidates") from a sender to a specific target user.
+     */
+    public void handleIceCandidates(UserSession sender, SignalingMessage.IceCandidates message) {
+        String remoteUserId = message.remoteUserId();
+        List<?> candidates = message.candidates();
+        if (candidates.isEmpty()) {
+            logger.warn("'ice_candidates' message from {} has no candidates", sender.getUserId());
+            return;
+        }
+        forwardIceCandidates(sender, remoteUserId, candidates);
+    }
+
+    /**
+     * Answers a client of a large room that missed roster deltas ("roster_sync").
+     */
+    public void handleRosterSync(UserSession sender, SignalingMessage.RosterSync sync) {
+        largeRoomPresence.sync(sender, sync.version());
     }
 
     /**
@@ -87,7 +127,18 @@ public class SfuService {
      */
     public void handleLeave(String sessionId) {
         roomManager.removeUserFromRoom(sessionId).ifPresent(removedUser -> {
-            logger.info("User {} left room {}. Notifying others.", removedUser.getUserId(), removedUser.getRoomId());
+            journal.left(removedUser.getRoomId(), removedUser.getUserId());
+            if (cluster != null) {
+                cluster.leave(removedUser);
+                return;
+            }
+            if (roomManager.getParticipant(removedUser.getRoomId(), removedUser.getUserId()).isPresent()) {
+                // The same user has joined again on another connection in the meantime; peers keep that one.
+                return;
+            }
+            if (largeRoomPresence.left(removedUser)) {
+                return;
+            }
             broadcast(removedUser, "participant_left", Map.of("userId", removedUser.getUserId()));
         });
     }
@@ -95,15 +146,25 @@ public class SfuService {
     // --- Private Helper Methods ---
 
     /**
-     * Sends a message to a single, specific user session.
+     * Queues a message for a single, specific user session. This never blocks on socket I/O;
+     * the session's outbound queue delivers it on its own writer.
      */
     private void sendMessage(UserSession session, String type, Object payload) {
+        EncodedFrame frame = encode(type, payload);
+        if (frame != null) {
+            session.getOutbound().enqueue(frame);
+        }
+    }
+
+    /**
+     * Encodes a message once so the same frame can be queued for any number of recipients.
+     */
+    private EncodedFrame encode(String type, Object payload) {
         try {
-            // The message structure { "type": "...", "payload": { ... } } matches the frontend's expectation.
-            Map<String, Object> message = Map.of("type", type, "payload", payload);
-            session.getWebSocketSession().sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+            return frameEncoder.encode(type, payload);
         } catch (IOException e) {
-            logger.error("Failed to send message to user {}: {}", session.getUserId(), e.getMessage());
+            logger.error("Failed to encode '{}' message: {}", type, e.getMessage());
+            return null;
         }
     }
 
@@ -113,19 +174,71 @@ public class SfuService {
     private void forwardToParticipant(UserSession sender, String targetUserId, String type, Object payload) {
         roomManager.getParticipant(sender.getRoomId(), targetUserId)
                 .ifPresentOrElse(
-                        targetUser -> sendMessage(targetUser, type, payload),
-                        () -> logger.warn("Could not find participant {} in room {} to forward message", targetUserId, sender.getRoomId())
+                        targetUser -> {
+                            journal.forwarded(sender.getRoomId(), sender.getUserId(), targetUserId, type);
+                            sendMessage(targetUser, type, payload);
+                        },
+                        () -> forwardToRemoteParticipant(sender, targetUserId, type, payload)
                 );
     }
 
+    /**
+     * The target is not connected to this node: hand the frame to the cluster, or give up if there is none.
+     */
+    private void forwardToRemoteParticipant(UserSession sender, String targetUserId, String type, Object payload) {
+        if (cluster == null) {
+            journal.undeliverable(sender.getRoomId(), sender.getUserId(), targetUserId, type);
+            return;
+        }
+        journal.forwarded(sender.getRoomId(), sender.getUserId(), targetUserId, type);
+        EncodedFrame frame = encode(type, payload);
+        if (frame != null) {
+            cluster.forward(sender.getRoomId(), targetUserId, frame);
+        }
+    }
+
+    /**
+     * Routes ICE candidates to a target: coalesced into "ice_candidates" batches if the target opted in,
+     * otherwise one "ice_candidate" frame per candidate as before.
+     */
+    private void forwardIceCandidates(UserSession sender, String targetUserId, List<?> candidates) {
+        roomManager.getParticipant(sender.getRoomId(), targetUserId).ifPresentOrElse(target -> {
+            journal.forwarded(sender.getRoomId(), sender.getUserId(), targetUserId, "ice_candidate");
+            if (iceCandidateBatcher.accepts(target)) {
+                iceCandidateBatcher.add(sender, target, candidates);
+            } else {
+                candidates.forEach(candidate ->
+                        sendMessage(target, "ice_candidate", Map.of("userId", sender.getUserId(), "candidate", candidate)));
+            }
+        }, () -> candidates.forEach(candidate ->
+                // A remote target's batching preference is not known here, so it gets single candidates.
+                forwardToRemoteParticipant(sender, targetUserId, "ice_candidate",
+                        Map.of("userId", sender.getUserId(), "candidate", candidate))));
+    }
+
     /**
      * Sends a message to every participant in a room, except for the original sender.
      */
     private void broadcast(UserSession sender, String type, Object payload) {
+        if (cluster != null) {
+            // The owner knows every node with participants in the room and sends each of them one batch.
+            EncodedFrame frame = encode(type, payload);
+            if (frame != null) {
+                journal.broadcast(sender.getRoomId(), sender.getUserId(), type, -1);
+                cluster.broadcast(sender.getRoomId(), sender.getUserId(), frame);
+            }
+            return;
+        }
         roomManager.getParticipantsInRoom(sender.getRoomId()).ifPresent(participants -> {
+            // Serialize once; every recipient gets the same immutable frame.
+            EncodedFrame frame = encode(type, payload);
+            if (frame == null) {
+                return;
+            }
+            journal.broadcast(sender.getRoomId(), sender.getUserId(), type, participants.size() - 1);
             participants.values().stream()
                     .filter(session -> !session.getUserId().equals(sender.getUserId()))
-                    .forEach(recipient -> sendMessage(recipient, type, payload));
+                    .forEach(recipient -> recipient.getOutbound().enqueue(frame));
         });
     }
 }
\ No newline at end of file
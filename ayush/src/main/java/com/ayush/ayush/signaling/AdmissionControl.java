@@ -0,0 +1,241 @@
+package com.ayush.ayush.signaling;
+
+import com.ayush.ayush.config.SignalingAdmissionProperties;
+import com.ayush.ayush.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a single client, or a single room, from taking a node's signaling capacity away from everyone else.
+ * Every inbound message is checked against:
+ * <ol>
+ *     <li>The node's backlog of admitted messages that have not been handled yet. Above its threshold, presence and
+ *     then ICE traffic is shed; offers, answers and joins never are.</li>
+ *     <li>Its connection's token bucket for the message's {@link Priority}, which stops a client that floods
+ *     candidates or re-sends join in a loop.</li>
+ *     <li>Its room's shared bucket, which grows with the number of members. ICE and presence may not use the last
+ *     part of it, so a busy room still gets its offers and answers through.</li>
+ * </ol>
+ * A rejected message is dropped without a reply and counted in "signaling.admission.throttled" (by priority and
+ * scope) or "signaling.admission.shed" (by priority).
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    /**
+     * Message classes, from the most to the least important; each has its own per-session budget.
+     */
+    public enum Priority {
+        JOIN, SDP, ICE, PRESENCE;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+
+        static Priority of(SignalingMessage message) {
+            return switch (message) {
+                case SignalingMessage.Join join -> JOIN;
+                case SignalingMessage.Resume resume -> JOIN;
+                case SignalingMessage.Offer offer -> SDP;
+                case SignalingMessage.Answer answer -> SDP;
+                case SignalingMessage.IceCandidate candidate -> ICE;
+                case SignalingMessage.IceCandidates candidates -> ICE;
+                default -> PRESENCE;
+            };
+        }
+    }
+
+    private final SignalingAdmissionProperties properties;
+    private final ConcurrentHashMap<String, Connection> connections = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Priority, Counter> sessionThrottled = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> roomThrottled = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> shed = new EnumMap<>(Priority.class);
+
+    private final class Connection {
+        // Null where the budget is unlimited.
+        final Map<Priority, TokenBucket> buckets = new EnumMap<>(Priority.class);
+        // Both guarded by the connection's monitor.
+        String roomId;
+        boolean closed;
+
+        Connection() {
+            for (Priority priority : Priority.values()) {
+                SignalingAdmissionProperties.Budget budget = properties.session().get(priority.tag());
+                if (budget != null && !budget.unlimited()) {
+                    buckets.put(priority, new TokenBucket(budget.rate(), budget.burst()));
+                }
+            }
+        }
+    }
+
+    // Only changed inside rooms.compute for its id.
+    private static final class Room {
+        final TokenBucket bucket;
+        int members;
+
+        Room(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    public AdmissionControl(SignalingAdmissionProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        for (Priority priority : Priority.values()) {
+            sessionThrottled.put(priority, throttled(registry, priority, "session"));
+            roomThrottled.put(priority, throttled(registry, priority, "room"));
+            shed.put(priority, Counter.builder("signaling.admission.shed")
+                    .description("Signaling messages dropped because the node was overloaded")
+                    .tag("priority", priority.tag())
+                    .register(registry));
+        }
+        Gauge.builder("signaling.admission.in_flight", inFlight, AtomicInteger::get)
+                .description("Signaling messages admitted but not handled yet")
+                .register(registry);
+    }
+
+    /**
+     * Admission control that lets everything through, for benchmarks and tests that drive the handler directly.
+     */
+    public static AdmissionControl disabled() {
+        return new AdmissionControl(new SignalingAdmissionProperties(false, null, null, 0, 0, 0, 0), new SimpleMeterRegistry());
+    }
+
+    /**
+     * Decides whether a message from a connection is handled or dropped.
+     *
+     * @param roomId The room the message is for, or null if it is not for one yet.
+     */
+    public boolean admit(WebSocketSession session, String roomId, SignalingMessage message) {
+        if (!properties.enabled()) {
+            return true;
+        }
+        Priority priority = Priority.of(message);
+        int shedAt = switch (priority) {
+            case ICE -> properties.shedIceAt();
+            case PRESENCE -> properties.shedPresenceAt();
+            default -> 0;
+        };
+        if (shedAt > 0 && inFlight.get() >= shedAt) {
+            shed.get(priority).increment();
+            logger.debug("Shedding '{}' from session {}: {} messages in flight", message.type(), session.getId(), inFlight.get());
+            return false;
+        }
+        // A batch of candidates costs as much as sending them one by one.
+        double cost = message instanceof SignalingMessage.IceCandidates batch ? Math.max(1, batch.candidates().size()) : 1;
+        TokenBucket own = connections.computeIfAbsent(session.getId(), id -> new Connection()).buckets.get(priority);
+        if (own != null && !own.tryAcquire(cost, 0)) {
+            sessionThrottled.get(priority).increment();
+            logger.debug("Throttling '{}' from session {}", message.type(), session.getId());
+            return false;
+        }
+        Room room = roomId == null ? null : rooms.get(roomId);
+        if (room != null && room.bucket != null) {
+            double reserve = switch (priority) {
+                case ICE -> properties.iceReserve();
+                case PRESENCE -> properties.presenceReserve();
+                default -> 0;
+            };
+            if (!room.bucket.tryAcquire(cost, reserve * room.bucket.capacity())) {
+                roomThrottled.get(priority).increment();
+                logger.debug("Throttling '{}' from session {} in room {}", message.type(), session.getId(), roomId);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wraps the work for an admitted message, so that it counts towards the node's backlog until it has run.
+     */
+    public Runnable tracked(Runnable task) {
+        if (!properties.enabled()) {
+            return task;
+        }
+        inFlight.incrementAndGet();
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * The connection now belongs to a room (by joining or resuming), whose shared budget grows by one member.
+     */
+    public void joined(WebSocketSession session, String roomId) {
+        if (!properties.enabled()) {
+            return;
+        }
+        Connection connection = connections.computeIfAbsent(session.getId(), id -> new Connection());
+        synchronized (connection) {
+            if (connection.closed || Objects.equals(connection.roomId, roomId)) {
+                return;
+            }
+            if (connection.roomId != null) {
+                resize(connection.roomId, -1);
+            }
+            connection.roomId = roomId;
+            resize(roomId, 1);
+        }
+    }
+
+    /**
+     * Forgets a connection that has closed.
+     */
+    public void close(WebSocketSession session) {
+        Connection connection = connections.remove(session.getId());
+        if (connection == null) {
+            return;
+        }
+        synchronized (connection) {
+            connection.closed = true;
+            if (connection.roomId != null) {
+                resize(connection.roomId, -1);
+            }
+        }
+    }
+
+    private void resize(String roomId, int delta) {
+        SignalingAdmissionProperties.Budget perMember = properties.roomPerMember();
+        rooms.compute(roomId, (id, room) -> {
+            int members = (room == null ? 0 : room.members) + delta;
+            if (members <= 0) {
+                return null;
+            }
+            if (room == null) {
+                room = new Room(perMember.unlimited() ? null : new TokenBucket(perMember.rate(), perMember.burst()));
+            }
+            room.members = members;
+            if (room.bucket != null) {
+                room.bucket.resize(perMember.rate() * members, perMember.burst() * members);
+            }
+            return room;
+        });
+    }
+
+    private static Counter throttled(MeterRegistry registry, Priority priority, String scope) {
+        return Counter.builder("signaling.admission.throttled")
+                .description("Signaling messages dropped for exceeding a session or room budget")
+                .tag("priority", priority.tag())
+                .tag("scope", scope)
+                .register(registry);
+    }
+}
@@ -0,0 +1,191 @@
+package com.ayush.ayush.signaling;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The optional binary signaling subprotocol, offered as {@value #SUBPROTOCOL}. Clients that do not ask for it keep
+ * the JSON text protocol.
+ * <p>
+ * A binary frame is {@code tag | flags | [type] | body}: a one-byte message type tag replaces the
+ * { "type": ..., "payload": ... } envelope (tag 0 is followed by the type as a short length and UTF-8 bytes),
+ * and the body is the payload's JSON. Bodies of at least the compression threshold, in practice SDPs, are zlib
+ * compressed against a preset dictionary of common SDP lines ({@link #FLAG_DEFLATED}). Every frame is
+ * compressed on its own rather than with a per-connection context, so one encoded frame can still be shared by
+ * all recipients of a broadcast.
+ */
+@Component
+public class BinaryProtocol {
+
+    public static final String SUBPROTOCOL = "sfu-signaling.bin.v1";
+
+    public static final int FLAG_DEFLATED = 1;
+
+    // Same bound as a text frame: nothing a client sends legitimately comes close.
+    private static final int MAX_INFLATED_SIZE = 1 << 20;
+
+    // Tag n is TYPES.get(n - 1).
+    private static final List<String> TYPES = List.of("join", "offer", "answer", "ice_candidate", "ice_candidates",
+            "existing_participants", "new_participant", "participant_left", "roster", "roster_delta", "roster_sync",
+            "session", "resume", "resume_failed");
+
+    // Pooled because each Deflater/Inflater holds native buffers; writers run on virtual threads, so no ThreadLocals.
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final int compressionThreshold;
+
+    /**
+     * A decoded inbound frame.
+     *
+     * @param type    The message type.
+     * @param payload The payload as JSON text.
+     */
+    public record Decoded(String type, String payload) {
+    }
+
+    public BinaryProtocol(@Value("${signaling.binary.compression-threshold:256}") int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Converts an encoded JSON frame into its binary form.
+     */
+    public byte[] encode(byte[] jsonFrame) throws IOException {
+        String type = null;
+        int payloadStart = -1;
+        int payloadEnd = -1;
+        try (JsonParser parser = jsonFactory.createParser(jsonFrame)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if (name.equals("type")) {
+                    type = parser.getText();
+                } else if (name.equals("payload")) {
+                    payloadStart = (int) parser.currentTokenLocation().getByteOffset();
+                    parser.skipChildren();
+                    payloadEnd = (int) parser.currentLocation().getByteOffset();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (type == null || payloadStart < 0) {
+            throw new IOException("Not a signaling frame");
+        }
+
+        int tag = TYPES.indexOf(type) + 1;
+        byte[] typeBytes = tag == 0 ? type.getBytes(StandardCharsets.UTF_8) : null;
+        int length = payloadEnd - payloadStart;
+        byte[] body = length >= compressionThreshold ? deflate(jsonFrame, payloadStart, length) : null;
+        boolean deflated = body != null && body.length < length;
+
+        ByteBuffer frame = ByteBuffer.allocate(2 + (typeBytes == null ? 0 : 2 + typeBytes.length) + (deflated ? body.length : length));
+        frame.put((byte) tag);
+        frame.put((byte) (deflated ? FLAG_DEFLATED : 0));
+        if (typeBytes != null) {
+            frame.putShort((short) typeBytes.length);
+            frame.put(typeBytes);
+        }
+        if (deflated) {
+            frame.put(body);
+        } else {
+            frame.put(jsonFrame, payloadStart, length);
+        }
+        return frame.array();
+    }
+
+    /**
+     * Decodes an inbound binary frame.
+     */
+    public Decoded decode(ByteBuffer frame) throws IOException {
+        try {
+            int tag = frame.get() & 0xFF;
+            int flags = frame.get();
+            String type;
+            if (tag == 0) {
+                byte[] typeBytes = new byte[frame.getShort()];
+                frame.get(typeBytes);
+                type = new String(typeBytes, StandardCharsets.UTF_8);
+            } else if (tag <= TYPES.size()) {
+                type = TYPES.get(tag - 1);
+            } else {
+                throw new IOException("Unknown message tag " + tag);
+            }
+            byte[] body = new byte[frame.remaining()];
+            frame.get(body);
+            if ((flags & FLAG_DEFLATED) != 0) {
+                body = inflate(body);
+            }
+            return new Decoded(type, new String(body, StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed binary frame", e);
+        }
+    }
+
+    private byte[] deflate(byte[] input, int offset, int length) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        try {
+            deflater.setDictionary(SdpDictionary.BYTES);
+            deflater.setInput(input, offset, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2);
+            byte[] chunk = new byte[Math.max(64, length / 2)];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.reset();
+            deflaters.offer(deflater);
+        }
+    }
+
+    private byte[] inflate(byte[] input) throws IOException {
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            byte[] chunk = new byte[Math.max(256, input.length * 2)];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0) {
+                    if (!inflater.needsDictionary()) {
+                        throw new IOException("Truncated compressed frame");
+                    }
+                    inflater.setDictionary(SdpDictionary.BYTES);
+                }
+                if (out.size() + n > MAX_INFLATED_SIZE) {
+                    throw new IOException("Compressed frame inflates beyond " + MAX_INFLATED_SIZE + " bytes");
+                }
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed frame", e);
+        } finally {
+            inflater.reset();
+            inflaters.offer(inflater);
+        }
+    }
+}
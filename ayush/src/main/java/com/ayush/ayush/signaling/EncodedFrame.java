@@ -0,0 +1,61 @@
+package com.ayush.ayush.signaling;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.IOException;
+
+/**
+ * A signaling message that has already been serialized to its wire form.
+ * Frames are immutable, so one instance can be queued for every recipient of a broadcast. The binary form is
+ * derived from the JSON text on first use by a binary-protocol recipient and then shared the same way; only the
+ * bytes are shared, because the container consumes a message's buffer as it writes it.
+ */
+public final class EncodedFrame {
+
+    private final String type;
+    private final TextMessage message;
+    // Benign race: two writers may both derive it, and either result is the same.
+    private volatile byte[] binaryPayload;
+
+    /**
+     * @param type    The message type (e.g., "offer", "new_participant").
+     * @param message The encoded { "type": ..., "payload": ... } text frame.
+     */
+    public EncodedFrame(String type, TextMessage message) {
+        this.type = type;
+        this.message = message;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public TextMessage message() {
+        return message;
+    }
+
+    /**
+     * The frame in the binary subprotocol, encoded on first use. Every call returns a new message, so each send
+     * gets its own buffer position.
+     */
+    public BinaryMessage binaryMessage(BinaryProtocol binaryProtocol) throws IOException {
+        byte[] payload = binaryPayload;
+        if (payload == null) {
+            payload = binaryProtocol.encode(message.asBytes());
+            binaryPayload = payload;
+        }
+        return new BinaryMessage(payload);
+    }
+
+    /**
+     * Trickled ICE candidates are the only frames a lagging client can afford to lose.
+     */
+    public boolean droppable() {
+        return "ice_candidate".equals(type) || "ice_candidates".equals(type);
+    }
+
+    public int length() {
+        return message.getPayloadLength();
+    }
+}
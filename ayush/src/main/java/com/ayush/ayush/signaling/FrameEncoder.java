@@ -0,0 +1,61 @@
+package com.ayush.ayush.signaling;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serializes outbound signaling messages into {@link EncodedFrame}s.
+ * Presence frames repeat a lot (the same user joining and leaving, identical rosters), so those are cached
+ * and handed out again instead of being re-encoded.
+ */
+@Component
+public class FrameEncoder {
+
+    private static final int MAX_CACHED_FRAMES = 1024;
+    private static final Set<String> CACHEABLE_TYPES = Set.of("existing_participants", "new_participant", "participant_left");
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<FrameKey, EncodedFrame> cache = new ConcurrentHashMap<>();
+
+    private record FrameKey(String type, Object payload) {
+    }
+
+    public FrameEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Encodes a { "type": ..., "payload": ... } frame, reusing a cached frame when an identical one was built recently.
+     * The payload must not be mutated after it has been passed in.
+     */
+    public EncodedFrame encode(String type, Object payload) throws JsonProcessingException {
+        if (!CACHEABLE_TYPES.contains(type)) {
+            return encodeFresh(type, payload);
+        }
+        FrameKey key = new FrameKey(type, payload);
+        EncodedFrame cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        EncodedFrame frame = encodeFresh(type, payload);
+        if (cache.size() >= MAX_CACHED_FRAMES) {
+            // Presence frames are cheap to rebuild; a coarse reset keeps the cache bounded without LRU bookkeeping.
+            cache.clear();
+        }
+        cache.putIfAbsent(key, frame);
+        return frame;
+    }
+
+    private EncodedFrame encodeFresh(String type, Object payload) throws JsonProcessingException {
+        // The message structure { "type": "...", "payload": { ... } } matches the frontend's expectation.
+        Map<String, Object> message = Map.of("type", type, "payload", payload);
+        // Built from bytes so the TextMessage keeps them; otherwise every length check would re-encode the payload.
+        return new EncodedFrame(type, new TextMessage(objectMapper.writeValueAsBytes(message)));
+    }
+}
@@ -0,0 +1,233 @@
+package com.ayush.ayush.signaling;
+
+import com.ayush.ayush.util.TimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Finds connections that are gone without TCP having noticed. Every connection has exactly one pending timeout on
+ * a shared {@link TimingWheel}, and traffic only updates a timestamp, so 100k connections cost 100k wheel entries
+ * and no scheduler work per message. When the timeout fires:
+ * <ul>
+ *     <li>A connection that has not joined within the join timeout is reaped ({@link Reason#NOT_JOINED}).</li>
+ *     <li>A joined one that has been silent for the heartbeat interval gets a WebSocket ping through its outbound
+ *     queue, and is reaped if nothing at all arrives within the pong timeout ({@link Reason#MISSED_PONG}).</li>
+ *     <li>Optionally, one that has not sent a signaling message for the idle timeout is reaped ({@link Reason#IDLE}).</li>
+ * </ul>
+ * Reaping is counted in "signaling.sessions.reaped" by reason and runs on its own virtual thread, since closing a
+ * dead socket can block.
+ */
+@Component
+public class Heartbeats {
+
+    private static final Logger logger = LoggerFactory.getLogger(Heartbeats.class);
+
+    public enum Reason {
+        NOT_JOINED, MISSED_PONG, IDLE;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final long intervalNanos;
+    private final long pongTimeoutNanos;
+    private final long joinTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final TimingWheel wheel;
+    private final ExecutorService reapers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<String, Connection> connections = new ConcurrentHashMap<>();
+    private final Map<Reason, Counter> reaped = new EnumMap<>(Reason.class);
+
+    private final class Connection {
+        final WebSocketSession session;
+        final Consumer<Reason> reaper;
+        final long openedAt = System.nanoTime();
+        volatile long lastReceivedAt = openedAt;
+        volatile long lastMessageAt = openedAt;
+        // Null until the connection has joined (or resumed) a session.
+        volatile OutboundQueue outbound;
+        // Worker-only after the first schedule.
+        long pingSentAt;
+        volatile TimingWheel.Timeout timeout;
+        volatile boolean closed;
+
+        Connection(WebSocketSession session, Consumer<Reason> reaper) {
+            this.session = session;
+            this.reaper = reaper;
+        }
+    }
+
+    public Heartbeats(@Value("${signaling.heartbeat.interval-ms:15000}") long intervalMillis,
+                      @Value("${signaling.heartbeat.pong-timeout-ms:10000}") long pongTimeoutMillis,
+                      @Value("${signaling.heartbeat.join-timeout-ms:30000}") long joinTimeoutMillis,
+                      @Value("${signaling.heartbeat.idle-timeout-ms:0}") long idleTimeoutMillis,
+                      @Value("${signaling.heartbeat.tick-ms:100}") long tickMillis,
+                      MeterRegistry registry) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.pongTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(pongTimeoutMillis);
+        this.joinTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(joinTimeoutMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.wheel = intervalMillis > 0 ? new TimingWheel("heartbeat-wheel", tickMillis, TimeUnit.MILLISECONDS) : null;
+        for (Reason reason : Reason.values()) {
+            reaped.put(reason, Counter.builder("signaling.sessions.reaped")
+                    .description("Connections closed because they stopped responding or never joined")
+                    .tag("reason", reason.tag())
+                    .register(registry));
+        }
+        Gauge.builder("signaling.heartbeat.connections", connections, Map::size)
+                .description("Connections watched by the heartbeat")
+                .register(registry);
+    }
+
+    /**
+     * Heartbeats that watch nothing, for benchmarks and tests that drive the handler directly.
+     */
+    public static Heartbeats disabled() {
+        return new Heartbeats(0, 0, 0, 0, 100, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Starts watching a new connection.
+     *
+     * @param reaper Called, off the wheel, if the connection has to be closed.
+     */
+    public void open(WebSocketSession session, Consumer<Reason> reaper) {
+        if (wheel == null) {
+            return;
+        }
+        Connection connection = new Connection(session, reaper);
+        connections.put(session.getId(), connection);
+        schedule(connection, Math.min(joinTimeoutNanos, intervalNanos));
+    }
+
+    /**
+     * The connection now carries a joined session; from here on it is pinged through its outbound queue.
+     */
+    public void joined(WebSocketSession session, OutboundQueue outbound) {
+        Connection connection = connections.get(session.getId());
+        if (connection != null) {
+            connection.outbound = outbound;
+        }
+    }
+
+    /**
+     * Records a signaling message from the connection.
+     */
+    public void received(WebSocketSession session) {
+        Connection connection = connections.get(session.getId());
+        if (connection != null) {
+            long now = System.nanoTime();
+            connection.lastReceivedAt = now;
+            connection.lastMessageAt = now;
+        }
+    }
+
+    /**
+     * Records a pong, which proves the connection is alive but is not activity.
+     */
+    public void pong(WebSocketSession session) {
+        Connection connection = connections.get(session.getId());
+        if (connection != null) {
+            connection.lastReceivedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stops watching a connection that has closed.
+     */
+    public void close(WebSocketSession session) {
+        Connection connection = connections.remove(session.getId());
+        if (connection != null) {
+            connection.closed = true;
+            TimingWheel.Timeout timeout = connection.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+
+    private void schedule(Connection connection, long delayNanos) {
+        if (!connection.closed) {
+            connection.timeout = wheel.schedule(() -> check(connection), Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Runs on the wheel's worker, which is the only thread that reschedules a connection.
+    private void check(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        OutboundQueue outbound = connection.outbound;
+        if (outbound == null) {
+            long deadline = connection.openedAt + joinTimeoutNanos;
+            if (now - deadline >= 0) {
+                reap(connection, Reason.NOT_JOINED);
+            } else {
+                schedule(connection, Math.min(deadline - now, intervalNanos));
+            }
+            return;
+        }
+        if (idleTimeoutNanos > 0 && now - connection.lastMessageAt >= idleTimeoutNanos) {
+            reap(connection, Reason.IDLE);
+            return;
+        }
+        long lastReceivedAt = connection.lastReceivedAt;
+        if (connection.pingSentAt != 0 && lastReceivedAt - connection.pingSentAt < 0) {
+            if (now - connection.pingSentAt >= pongTimeoutNanos) {
+                reap(connection, Reason.MISSED_PONG);
+            } else {
+                schedule(connection, connection.pingSentAt + pongTimeoutNanos - now);
+            }
+            return;
+        }
+        connection.pingSentAt = 0;
+        long quietFor = now - lastReceivedAt;
+        if (quietFor >= intervalNanos) {
+            // Anything received proves the connection is alive, so only quiet connections are pinged.
+            connection.pingSentAt = now;
+            outbound.ping();
+            schedule(connection, pongTimeoutNanos);
+            return;
+        }
+        long next = intervalNanos - quietFor;
+        if (idleTimeoutNanos > 0) {
+            next = Math.min(next, connection.lastMessageAt + idleTimeoutNanos - now);
+        }
+        schedule(connection, next);
+    }
+
+    private void reap(Connection connection, Reason reason) {
+        if (connections.remove(connection.session.getId(), connection)) {
+            connection.closed = true;
+            reaped.get(reason).increment();
+            logger.info("Reaping connection {}: {}", connection.session.getId(), reason.tag());
+            reapers.execute(() -> connection.reaper.accept(reason));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+        reapers.shutdown();
+    }
+}
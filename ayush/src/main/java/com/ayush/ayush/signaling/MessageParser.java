@@ -0,0 +1,168 @@
+package com.ayush.ayush.signaling;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for inbound { "type": ..., "payload": { ... } } frames.
+ * Instead of building a Map tree, it reads the routing fields straight off the token stream and keeps "sdp",
+ * "candidate" and each of "candidates" as slices of the original text, so a multi-kilobyte SDP is scanned once
+ * and later copied into the outgoing frame as is. Field order does not matter: "payload" may come before "type".
+ */
+@Component
+public class MessageParser {
+
+    private final JsonFactory jsonFactory;
+
+    public MessageParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Parses one text frame.
+     *
+     * @throws IOException if the frame is not valid JSON.
+     */
+    public SignalingMessage parse(String text) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new SignalingMessage.Malformed("Not a JSON object");
+            }
+            String type = null;
+            Payload payload = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (name.equals("type") && value == JsonToken.VALUE_STRING) {
+                    type = parser.getText();
+                } else if (name.equals("payload") && value == JsonToken.START_OBJECT) {
+                    payload = readPayload(parser, text);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (type == null || payload == null) {
+                return new SignalingMessage.Malformed("Missing 'type' or 'payload'");
+            }
+            return payload.toMessage(type);
+        }
+    }
+
+    /**
+     * Parses a message whose type arrived separately, as in the binary subprotocol.
+     *
+     * @param payload The payload object as JSON text.
+     * @throws IOException if the payload is not valid JSON.
+     */
+    public SignalingMessage parse(String type, String payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new SignalingMessage.Malformed("Payload is not a JSON object");
+            }
+            return readPayload(parser, payload).toMessage(type);
+        }
+    }
+
+    // The payload fields of every message type; which of them are used depends on "type", which may not be known yet.
+    private static final class Payload {
+        String roomId;
+        String userId;
+        String remoteUserId;
+        String resumeToken;
+        boolean iceBatching;
+        long version = -1;
+        RawJson sdp = RawJson.NULL;
+        RawJson candidate = RawJson.NULL;
+        List<RawJson> candidates = List.of();
+
+        SignalingMessage toMessage(String type) {
+            return switch (type) {
+                case "join" -> roomId == null || userId == null
+                        ? new SignalingMessage.Malformed("'join' message is missing 'roomId' or 'userId'")
+                        : new SignalingMessage.Join(roomId, userId, iceBatching);
+                case "offer" -> remoteUserId == null
+                        ? missing(type, "remoteUserId")
+                        : new SignalingMessage.Offer(remoteUserId, sdp);
+                case "answer" -> remoteUserId == null
+                        ? missing(type, "remoteUserId")
+                        : new SignalingMessage.Answer(remoteUserId, sdp);
+                case "ice_candidate" -> remoteUserId == null
+                        ? missing(type, "remoteUserId")
+                        : new SignalingMessage.IceCandidate(remoteUserId, candidate);
+                case "ice_candidates" -> remoteUserId == null
+                        ? missing(type, "remoteUserId")
+                        : new SignalingMessage.IceCandidates(remoteUserId, candidates);
+                case "roster_sync" -> new SignalingMessage.RosterSync(version);
+                case "resume" -> resumeToken == null
+                        ? missing(type, "resumeToken")
+                        : new SignalingMessage.Resume(resumeToken);
+                default -> new SignalingMessage.Unknown(type);
+            };
+        }
+
+        private static SignalingMessage.Malformed missing(String type, String field) {
+            return new SignalingMessage.Malformed("'" + type + "' message is missing '" + field + "'");
+        }
+    }
+
+    private static Payload readPayload(JsonParser parser, String text) throws IOException {
+        Payload payload = new Payload();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "roomId" -> payload.roomId = readString(parser, value);
+                case "userId" -> payload.userId = readString(parser, value);
+                case "remoteUserId" -> payload.remoteUserId = readString(parser, value);
+                case "resumeToken" -> payload.resumeToken = readString(parser, value);
+                case "iceBatching" -> payload.iceBatching = value == JsonToken.VALUE_TRUE;
+                case "version" -> payload.version = value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : -1;
+                case "sdp" -> payload.sdp = readRaw(parser, text);
+                case "candidate" -> payload.candidate = readRaw(parser, text);
+                case "candidates" -> payload.candidates = readRawArray(parser, text);
+                default -> parser.skipChildren();
+            }
+        }
+        return payload;
+    }
+
+    private static String readString(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Returns the current value, whatever its shape, as the exact text the client sent.
+     * Skipping still tokenizes the value, so a slice is only ever taken from well-formed JSON.
+     */
+    private static RawJson readRaw(JsonParser parser, String text) throws IOException {
+        int start = (int) parser.currentTokenLocation().getCharOffset();
+        // Strings are read lazily; finish the token so the location below is past its closing quote.
+        parser.finishToken();
+        parser.skipChildren();
+        int end = (int) parser.currentLocation().getCharOffset();
+        return new RawJson(text, start, end);
+    }
+
+    private static List<RawJson> readRawArray(JsonParser parser, String text) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<RawJson> values = new ArrayList<>();
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY && token != null; token = parser.nextToken()) {
+            values.add(readRaw(parser, text));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ayush.ayush.signaling;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the per-session outbound queues and owns the writers that drain them.
+ * Each drain runs on a virtual thread, so a slow socket only ever parks its own writer.
+ */
+@Component
+public class OutboundDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundDispatcher.class);
+
+    // Tomcat's own cap on a single blocking write; without it a dead peer can hold a writer for 20s.
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final long sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+    private final OutboundQueue.Meters meters;
+    private final BinaryProtocol binaryProtocol;
+
+    public OutboundDispatcher(@Value("${signaling.outbound.send-time-limit-ms:10000}") long sendTimeLimitMillis,
+                              @Value("${signaling.outbound.buffer-size-limit:524288}") int bufferSizeLimit,
+                              MeterRegistry meterRegistry, BinaryProtocol binaryProtocol) {
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.meters = OutboundQueue.Meters.of(meterRegistry);
+        this.binaryProtocol = binaryProtocol;
+    }
+
+    /**
+     * Opens the outbound queue for a newly joined WebSocket session.
+     */
+    public OutboundQueue open(WebSocketSession session) {
+        return new OutboundQueue(configure(session), writers, sendTimeLimitMillis, bufferSizeLimit, meters, protocolOf(session));
+    }
+
+    /**
+     * Moves a resumed session's queue onto its new connection.
+     *
+     * @return false if the queue has been closed in the meantime.
+     */
+    public boolean reattach(OutboundQueue outbound, WebSocketSession session) {
+        return outbound.reattach(configure(session), protocolOf(session));
+    }
+
+    /**
+     * Closes a connection that no queue writes to any more, such as one a resumed session was taken over from.
+     * The close runs on a writer thread: a socket whose client stopped reading can block it for the send time limit.
+     */
+    public void close(WebSocketSession session, CloseStatus status) {
+        writers.execute(() -> {
+            try {
+                session.close(status);
+            } catch (Exception e) {
+                logger.debug("Error while closing session {}: {}", session.getId(), e.getMessage());
+            }
+        });
+    }
+
+    private WebSocketSession configure(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession
+                && nativeSession.getNativeSession() instanceof jakarta.websocket.Session standardSession) {
+            standardSession.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, sendTimeLimitMillis);
+        }
+        return session;
+    }
+
+    private BinaryProtocol protocolOf(WebSocketSession session) {
+        return BinaryProtocol.SUBPROTOCOL.equals(session.getAcceptedProtocol()) ? binaryProtocol : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdown();
+    }
+}
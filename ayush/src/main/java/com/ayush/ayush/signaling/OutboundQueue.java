@@ -0,0 +1,303 @@
+package com.ayush.ayush.signaling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded outbound queue for a single WebSocket session.
+ * Callers only enqueue; a single writer task drains the queue, so the socket never has two writers
+ * and no signaling thread ever blocks on a slow client. Disconnecting a client goes through the same writer,
+ * after whatever send is in progress.
+ * <p>
+ * A queue outlives its connection while the session waits to be resumed (see {@link SessionResumption}): it is
+ * detached, keeps buffering within the same limits, and is drained to the new connection once reattached.
+ */
+public class OutboundQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundQueue.class);
+
+    // Stands in for a WebSocket ping, so pings are written by the same single writer as everything else.
+    private static final EncodedFrame PING = new EncodedFrame("ping", new TextMessage(""));
+
+    private final Executor writer;
+    private final long sendTimeLimitNanos;
+    private final int bufferSizeLimit;
+    private final Meters meters;
+
+    // Guarded by "this". The lock is only held for queue bookkeeping, never for socket I/O.
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private WebSocketSession session;
+    // Null for the JSON text protocol.
+    private BinaryProtocol binaryProtocol;
+    private int queuedBytes;
+    private boolean draining;
+    private boolean detached;
+    private boolean closed;
+    // Set when the queue gave up on its client; the writer closes the connection with it.
+    private CloseStatus closeStatus;
+
+    private record Pending(EncodedFrame frame, long enqueuedAt) {
+    }
+
+    /**
+     * Outbound delivery metrics, shared by all queues: "signaling.outbound.latency" from enqueue until the frame
+     * was written, "signaling.outbound.failures" by reason, and "signaling.outbound.shed" for dropped ICE frames.
+     */
+    public record Meters(Timer sendLatency, Counter sendErrors, Counter timeouts, Counter overflows, Counter shed) {
+
+        /**
+         * Meters that are registered nowhere, for queues created outside the application context.
+         */
+        public static final Meters NONE = of(new CompositeMeterRegistry());
+
+        public static Meters of(MeterRegistry registry) {
+            return new Meters(
+                    Timer.builder("signaling.outbound.latency")
+                            .description("Time from queueing an outbound frame until it was written to the socket")
+                            .register(registry),
+                    failures(registry, "error"),
+                    failures(registry, "timeout"),
+                    failures(registry, "overflow"),
+                    Counter.builder("signaling.outbound.shed")
+                            .description("ICE frames dropped for lagging clients")
+                            .register(registry));
+        }
+
+        private static Counter failures(MeterRegistry registry, String reason) {
+            return Counter.builder("signaling.outbound.failures")
+                    .description("Outbound deliveries that disconnected the client")
+                    .tag("reason", reason)
+                    .register(registry);
+        }
+    }
+
+    public OutboundQueue(WebSocketSession session, Executor writer, long sendTimeLimitMillis, int bufferSizeLimit) {
+        this(session, writer, sendTimeLimitMillis, bufferSizeLimit, Meters.NONE, null);
+    }
+
+    /**
+     * @param binaryProtocol The codec for sessions that negotiated the binary subprotocol; null for JSON text.
+     */
+    public OutboundQueue(WebSocketSession session, Executor writer, long sendTimeLimitMillis, int bufferSizeLimit,
+                         Meters meters, BinaryProtocol binaryProtocol) {
+        this.session = session;
+        this.writer = writer;
+        this.sendTimeLimitNanos = sendTimeLimitMillis * 1_000_000L;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.meters = meters;
+        this.binaryProtocol = binaryProtocol;
+    }
+
+    /**
+     * Queues a frame for delivery and returns immediately.
+     * If the client has fallen too far behind, droppable frames (trickled ICE candidates) are shed first;
+     * if that is not enough, the client is disconnected.
+     */
+    public void enqueue(EncodedFrame frame) {
+        int bytes = frame.length();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (queuedBytes + bytes > bufferSizeLimit) {
+                int shed = shedDroppable();
+                meters.shed().increment(shed);
+                if (queuedBytes + bytes > bufferSizeLimit) {
+                    meters.overflows().increment();
+                    logger.warn("Outbound buffer of session {} exceeded {} bytes; disconnecting slow client", session.getId(), bufferSizeLimit);
+                    abort(CloseStatus.SESSION_NOT_RELIABLE);
+                } else {
+                    logger.warn("Session {} is lagging; dropped {} pending ICE messages", session.getId(), shed);
+                }
+            }
+            if (!closed) {
+                pending.add(new Pending(frame, System.nanoTime()));
+                queuedBytes += bytes;
+            }
+            if (draining || (detached && closeStatus == null)) {
+                return;
+            }
+            draining = true;
+        }
+        writer.execute(this::drain);
+    }
+
+    /**
+     * Queues a WebSocket ping behind whatever is already pending.
+     */
+    public void ping() {
+        enqueue(PING);
+    }
+
+    /**
+     * Discards anything still queued. Called once the underlying connection has closed.
+     */
+    public synchronized void close() {
+        closed = true;
+        pending.clear();
+        queuedBytes = 0;
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * The connection frames are written to; after a resume, not the one the session joined on.
+     */
+    public synchronized WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * Stops writing but keeps queueing, because the connection is gone and the session may be resumed.
+     *
+     * @return false if the queue has already been closed, e.g. because the client fell too far behind.
+     */
+    public synchronized boolean detach() {
+        detached = true;
+        return !closed;
+    }
+
+    /**
+     * Moves the queue onto a new connection and delivers whatever was buffered in the meantime.
+     *
+     * @return false if the queue has been closed and cannot be resumed.
+     */
+    public boolean reattach(WebSocketSession session, BinaryProtocol binaryProtocol) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            this.session = session;
+            this.binaryProtocol = binaryProtocol;
+            detached = false;
+            // Time spent detached does not count against the send time limit.
+            long now = System.nanoTime();
+            for (int i = pending.size(); i > 0; i--) {
+                pending.add(new Pending(pending.poll().frame(), now));
+            }
+            if (draining || pending.isEmpty()) {
+                return true;
+            }
+            draining = true;
+        }
+        writer.execute(this::drain);
+        return true;
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            WebSocketSession session;
+            BinaryProtocol binaryProtocol;
+            CloseStatus closeStatus;
+            synchronized (this) {
+                session = this.session;
+                closeStatus = this.closeStatus;
+                if (closeStatus != null) {
+                    this.closeStatus = null;
+                    draining = false;
+                    next = null;
+                    binaryProtocol = null;
+                } else {
+                    next = pending.poll();
+                    if (next == null || closed || detached) {
+                        if (next != null && detached) {
+                            pending.addFirst(next);
+                        }
+                        draining = false;
+                        return;
+                    }
+                    queuedBytes -= next.frame().length();
+                    binaryProtocol = this.binaryProtocol;
+                }
+            }
+            if (closeStatus != null) {
+                // The queue is closed by now, so no other writer can start on this connection.
+                try {
+                    session.close(closeStatus);
+                } catch (Exception e) {
+                    logger.debug("Error while closing session {}: {}", session.getId(), e.getMessage());
+                }
+                return;
+            }
+            if (System.nanoTime() - next.enqueuedAt() > sendTimeLimitNanos) {
+                meters.timeouts().increment();
+                logger.warn("Message for session {} waited longer than the send time limit; disconnecting slow client", session.getId());
+                synchronized (this) {
+                    abort(CloseStatus.SESSION_NOT_RELIABLE);
+                }
+                continue;
+            }
+            try {
+                if (next.frame() == PING) {
+                    session.sendMessage(new PingMessage());
+                    continue;
+                }
+                WebSocketMessage<?> message = binaryProtocol == null
+                        ? next.frame().message()
+                        : next.frame().binaryMessage(binaryProtocol);
+                session.sendMessage(message);
+                meters.sendLatency().record(System.nanoTime() - next.enqueuedAt(), TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                meters.sendErrors().increment();
+                logger.error("Failed to send message to session {}: {}", session.getId(), e.getMessage());
+                synchronized (this) {
+                    if (!session.isOpen() && !closed) {
+                        // The connection dropped under us; keep the frame in case the session is resumed.
+                        pending.addFirst(next);
+                        queuedBytes += next.frame().length();
+                        if (detached || this.session == session) {
+                            draining = false;
+                            return;
+                        }
+                        // Already reattached while this frame was in flight: carry on with the new connection.
+                        continue;
+                    }
+                    abort(CloseStatus.SERVER_ERROR);
+                }
+            }
+        }
+    }
+
+    private int shedDroppable() {
+        int shed = 0;
+        Iterator<Pending> it = pending.iterator();
+        while (it.hasNext()) {
+            Pending p = it.next();
+            if (p.frame().droppable()) {
+                it.remove();
+                queuedBytes -= p.frame().length();
+                shed++;
+            }
+        }
+        return shed;
+    }
+
+    // Must be called while holding the lock. The close is left to the writer, which is either running and picks
+    // it up after its current send, or started by the caller.
+    private void abort(CloseStatus status) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending.clear();
+        queuedBytes = 0;
+        closeStatus = status;
+    }
+}
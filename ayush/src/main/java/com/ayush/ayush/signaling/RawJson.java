@@ -0,0 +1,57 @@
+package com.ayush.ayush.signaling;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * A JSON value kept exactly as the client sent it (an SDP, an ICE candidate).
+ * The server never looks inside these, so they are neither parsed into objects nor copied out of the inbound
+ * frame: a RawJson is only a range of the original text, and serializing it writes that range back verbatim.
+ */
+public final class RawJson implements JsonSerializable {
+
+    public static final RawJson NULL = new RawJson("null");
+
+    private final String source;
+    private final int start;
+    private final int end;
+
+    /**
+     * @param json Well-formed JSON text, e.g. {@code {"type":"offer","sdp":"v=0..."}}.
+     */
+    public RawJson(String json) {
+        this(json, 0, json.length());
+    }
+
+    RawJson(String source, int start, int end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * The value's JSON text. This copies it out of the inbound frame, so it is meant for tests and diagnostics.
+     */
+    public String json() {
+        return source.substring(start, end);
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeRawValue(source, start, end - start);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return json();
+    }
+}
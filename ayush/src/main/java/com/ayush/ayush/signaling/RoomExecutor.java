@@ -0,0 +1,119 @@
+package com.ayush.ayush.signaling;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decides where the work for a signaling message runs.
+ * In {@link Mode#DIRECT} mode it runs on the caller, i.e. the Tomcat thread that received the message.
+ * In {@link Mode#ROOM_ACTOR} mode every room gets a serial mailbox drained by a virtual thread, so all state
+ * changes and fan-out for one room happen in arrival order while different rooms run in parallel.
+ */
+@Component
+public class RoomExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomExecutor.class);
+
+    public enum Mode {
+        DIRECT,
+        ROOM_ACTOR
+    }
+
+    private final Mode mode;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Only rooms with queued or running work have a mailbox; an idle mailbox removes itself.
+    private final ConcurrentMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public RoomExecutor(@Value("${signaling.execution-mode:direct}") Mode mode) {
+        this.mode = mode;
+        logger.info("Signaling execution mode: {}", mode);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Runs a task for a room: inline, or after every task submitted earlier for the same room.
+     */
+    public void execute(String roomId, Runnable task) {
+        if (mode == Mode.DIRECT) {
+            task.run();
+            return;
+        }
+        // Enqueue and scheduling decision under the map's bin lock, so they cannot interleave with a mailbox retiring.
+        boolean[] schedule = new boolean[1];
+        Mailbox mailbox = mailboxes.compute(roomId, (id, existing) -> {
+            Mailbox mb = existing != null ? existing : new Mailbox(id);
+            mb.tasks.add(task);
+            if (!mb.running) {
+                mb.running = true;
+                schedule[0] = true;
+            }
+            return mb;
+        });
+        if (schedule[0]) {
+            workers.execute(mailbox::drain);
+        }
+    }
+
+    /**
+     * Rooms that currently have a mailbox, i.e. queued or running work.
+     */
+    int activeRooms() {
+        return mailboxes.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private final class Mailbox {
+
+        private final String roomId;
+
+        // Both guarded by the mailboxes map's lock for this roomId (all access goes through compute).
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+
+        private Mailbox(String roomId) {
+            this.roomId = roomId;
+        }
+
+        private void drain() {
+            Runnable next;
+            while ((next = poll()) != null) {
+                try {
+                    next.run();
+                } catch (Exception e) {
+                    logger.error("❌ Signaling task for room {} failed:", roomId, e);
+                }
+            }
+        }
+
+        // Takes the next task, or retires the mailbox when there is none left.
+        private Runnable poll() {
+            Runnable[] next = new Runnable[1];
+            mailboxes.compute(roomId, (id, mb) -> {
+                next[0] = tasks.poll();
+                if (next[0] != null) {
+                    return this;
+                }
+                running = false;
+                return null;
+            });
+            return next[0];
+        }
+    }
+}
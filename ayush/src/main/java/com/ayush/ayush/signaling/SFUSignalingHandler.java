@@ -1,19 +1,19 @@
 package com.ayush.ayush.signaling;
 
+import com.ayush.ayush.journal.SignalingJournal;
 import com.ayush.ayush.participant.UserSession;
 import com.ayush.ayush.service.SfuService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Component
@@ -22,88 +22,225 @@ public class SFUSignalingHandler extends TextWebSocketHandler {
     private static final Logger logger = LoggerFactory.getLogger(SFUSignalingHandler.class);
 
     private final SfuService sfuService;
-    private final ObjectMapper objectMapper;
+    private final MessageParser messageParser;
+    private final OutboundDispatcher outboundDispatcher;
+    private final RoomExecutor roomExecutor;
+    private final SignalingMetrics signalingMetrics;
+    private final SignalingJournal journal;
+    private final BinaryProtocol binaryProtocol;
+    private final SessionResumption sessionResumption;
+    private final Heartbeats heartbeats;
+    private final AdmissionControl admissionControl;
     private final ConcurrentHashMap<String, UserSession> sessions = new ConcurrentHashMap<>();
 
-    public SFUSignalingHandler(SfuService sfuService, ObjectMapper objectMapper) {
+    public SFUSignalingHandler(SfuService sfuService, MessageParser messageParser, OutboundDispatcher outboundDispatcher,
+                               RoomExecutor roomExecutor, SignalingMetrics signalingMetrics,
+                               SignalingJournal journal, BinaryProtocol binaryProtocol, SessionResumption sessionResumption,
+                               Heartbeats heartbeats, AdmissionControl admissionControl) {
         this.sfuService = sfuService;
-        this.objectMapper = objectMapper;
+        this.messageParser = messageParser;
+        this.outboundDispatcher = outboundDispatcher;
+        this.roomExecutor = roomExecutor;
+        this.signalingMetrics = signalingMetrics;
+        this.journal = journal;
+        this.binaryProtocol = binaryProtocol;
+        this.sessionResumption = sessionResumption;
+        this.heartbeats = heartbeats;
+        this.admissionControl = admissionControl;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         // ✅ ADDED LOG: More explicit confirmation of connection.
         logger.info("✅ Connection established: {}. Waiting for 'join' message...", session.getId());
+        heartbeats.open(session, reason -> reap(session, reason));
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-        // ✅ ADDED LOG: This is the most important new log. It shows you exactly what the server received.
-        logger.info("⬇️ Message received from [{}]: {}", session.getId(), message.getPayload());
+        long receivedAt = System.nanoTime();
+        heartbeats.received(session);
+        // Inbound frames go to the signaling journal (see JournalReader), not the log: a synchronous INFO line
+        // with a whole SDP on every message kept the WebSocket threads busy in the appenders.
+        logger.debug("⬇️ Message received from [{}]: {}", session.getId(), message.getPayload());
 
         try {
-            Map<String, Object> msg = objectMapper.readValue(message.getPayload(), new TypeReference<>() {});
-            String type = (String) msg.get("type");
-            Map<String, Object> payload = (Map<String, Object>) msg.get("payload");
+            dispatch(session, messageParser.parse(message.getPayload()), message.getPayload(), receivedAt);
+        } catch (IOException e) {
+            signalingMetrics.malformed();
+            logger.error("❌ Error parsing message from session {}: {}", session.getId(), message.getPayload(), e);
+        } catch (Exception e) {
+            logger.error("❌ An unexpected error occurred while handling a message from session {}:", session.getId(), e);
+        }
+    }
 
-            if (type == null || payload == null) {
-                logger.warn("⚠️ Malformed message from session {}: Missing 'type' or 'payload'", session.getId());
+    /**
+     * Frames of the binary subprotocol (see {@link BinaryProtocol}); after decoding they take the same path as text.
+     */
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        long receivedAt = System.nanoTime();
+        heartbeats.received(session);
+        try {
+            BinaryProtocol.Decoded decoded = binaryProtocol.decode(message.getPayload());
+            logger.debug("⬇️ Binary message received from [{}]: {} {}", session.getId(), decoded.type(), decoded.payload());
+            dispatch(session, messageParser.parse(decoded.type(), decoded.payload()), decoded.payload(), receivedAt);
+        } catch (IOException e) {
+            signalingMetrics.malformed();
+            logger.error("❌ Error decoding binary message from session {}: {}", session.getId(), e.getMessage());
+        } catch (Exception e) {
+            logger.error("❌ An unexpected error occurred while handling a message from session {}:", session.getId(), e);
+        }
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        heartbeats.pong(session);
+    }
+
+    private void dispatch(WebSocketSession session, SignalingMessage msg, String frame, long receivedAt) {
+        if (msg instanceof SignalingMessage.Malformed malformed) {
+            signalingMetrics.malformed();
+            logger.warn("⚠️ Malformed message from session {}: {}", session.getId(), malformed.reason());
+            return;
+        }
+
+        if (msg instanceof SignalingMessage.Join join) {
+            // Only the connection's own budget applies; the room's is for the traffic of its members.
+            if (!admissionControl.admit(session, null, msg) || alreadyJoined(session, msg)) {
                 return;
             }
+            journal.received(join.roomId(), join.userId(), msg.type(), frame);
+            // Clients opt in to receiving coalesced "ice_candidates" batches; older clients keep getting single candidates.
+            // A connection whose resume was rejected already has a queue, which the session takes over.
+            OutboundQueue outbound = sessionResumption.takeRejected(session).orElseGet(() -> outboundDispatcher.open(session));
+            UserSession newUserSession = new UserSession(join.userId(), join.roomId(), session, outbound, join.iceBatching());
+            sessions.put(session.getId(), newUserSession);
+            heartbeats.joined(session, newUserSession.getOutbound());
+            sessionResumption.issue(newUserSession);
+            admissionControl.joined(session, join.roomId());
+            roomExecutor.execute(join.roomId(), admissionControl.tracked(
+                    signalingMetrics.timed(msg.type(), receivedAt, () -> sfuService.handleJoin(newUserSession))));
+            return;
+        }
 
-            // ✅ ADDED LOG: Shows which message type is being processed.
-            logger.info("➡️ Processing message type '{}' for session {}", type, session.getId());
-
-            switch (type) {
-                case "join":
-                    String roomId = (String) payload.get("roomId");
-                    String userId = (String) payload.get("userId");
-                    if (roomId == null || userId == null) {
-                        logger.warn("⚠️ 'join' message is missing 'roomId' or 'userId'");
-                        return;
-                    }
-                    UserSession newUserSession = new UserSession(userId, roomId, session);
-                    sessions.put(session.getId(), newUserSession);
-                    sfuService.handleJoin(newUserSession);
-                    break;
-
-                default:
-                    UserSession senderSession = sessions.get(session.getId());
-                    if (senderSession == null) {
-                        logger.warn("⚠️ Message received from a session that has not joined a room: {}", session.getId());
-                        return;
-                    }
-
-                    switch (type) {
-                        case "offer":
-                            sfuService.handleOffer(senderSession, payload);
-                            break;
-                        case "answer":
-                            sfuService.handleAnswer(senderSession, payload);
-                            break;
-                        case "ice_candidate":
-                            sfuService.handleIceCandidate(senderSession, payload);
-                            break;
-                        default:
-                            logger.warn("⚠️ Unknown message type '{}' from session {}", type, session.getId());
-                    }
+        if (msg instanceof SignalingMessage.Resume resume) {
+            if (!admissionControl.admit(session, null, msg) || alreadyJoined(session, msg)) {
+                return;
+            }
+            signalingMetrics.timed(msg.type(), receivedAt, () -> resume(session, resume, frame)).run();
+            return;
+        }
+
+        UserSession senderSession = sessions.get(session.getId());
+        if (senderSession == null) {
+            signalingMetrics.notJoined();
+            logger.warn("⚠️ Message received from a session that has not joined a room: {}", session.getId());
+            return;
+        }
+        if (!admissionControl.admit(session, senderSession.getRoomId(), msg)) {
+            return;
+        }
+        journal.received(senderSession.getRoomId(), senderSession.getUserId(), msg.type(), frame);
+        roomExecutor.execute(senderSession.getRoomId(), admissionControl.tracked(
+                signalingMetrics.timed(msg.type(), receivedAt, () -> route(msg, senderSession))));
+    }
+
+    /**
+     * A connection carries one session for its whole life. Another join or resume on it would open a second writer
+     * on the socket and leave the first session behind in its room, so it is dropped.
+     */
+    private boolean alreadyJoined(WebSocketSession session, SignalingMessage msg) {
+        UserSession existing = sessions.get(session.getId());
+        if (existing == null) {
+            return false;
+        }
+        signalingMetrics.alreadyJoined();
+        logger.warn("⚠️ Ignoring '{}' from session {}, which is already {} in room {}", msg.type(), session.getId(),
+                existing.getUserId(), existing.getRoomId());
+        return true;
+    }
+
+    /**
+     * Puts a parked session (see {@link SessionResumption}) on this connection, or tells the client to join again.
+     */
+    private void resume(WebSocketSession session, SignalingMessage.Resume resume, String frame) {
+        var resumed = sessionResumption.resume(resume.resumeToken(), session);
+        if (resumed.isEmpty()) {
+            logger.info("🔁 Session {} could not be resumed; the client has to join again", session.getId());
+            sessionResumption.rejected(session);
+            return;
+        }
+        UserSession userSession = resumed.get().user();
+        journal.received(userSession.getRoomId(), userSession.getUserId(), "resume", frame);
+        sessions.put(session.getId(), userSession);
+        heartbeats.joined(session, userSession.getOutbound());
+        admissionControl.joined(session, userSession.getRoomId());
+        WebSocketSession previous = resumed.get().previous();
+        if (previous != null) {
+            // Taken over from a connection that has not noticed it is dead; its close must not park or leave.
+            sessions.remove(previous.getId(), userSession);
+            outboundDispatcher.close(previous, CloseStatus.NORMAL);
+        }
+        sessionResumption.issue(userSession);
+        logger.info("🔁 {} resumed their session in room {} on connection {}", userSession.getUserId(), userSession.getRoomId(), session.getId());
+    }
+
+    private void route(SignalingMessage message, UserSession senderSession) {
+        switch (message) {
+            case SignalingMessage.Offer offer -> sfuService.handleOffer(senderSession, offer);
+            case SignalingMessage.Answer answer -> sfuService.handleAnswer(senderSession, answer);
+            case SignalingMessage.IceCandidate candidate -> sfuService.handleIceCandidate(senderSession, candidate);
+            case SignalingMessage.IceCandidates candidates -> sfuService.handleIceCandidates(senderSession, candidates);
+            case SignalingMessage.RosterSync sync -> sfuService.handleRosterSync(senderSession, sync);
+            default -> {
+                signalingMetrics.unknownType();
+                logger.warn("⚠️ Unknown message type '{}' from session {}", message.type(), senderSession.getWebSocketSession().getId());
             }
-        } catch (IOException e) {
-            logger.error("❌ Error parsing message from session {}: {}", session.getId(), message.getPayload(), e);
-        } catch (Exception e) {
-            logger.error("❌ An unexpected error occurred while handling a message from session {}:", session.getId(), e);
         }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         logger.info("❌ Connection closed: {} with status: {}", session.getId(), status);
+        // A connection that dropped without a proper close may come back. Closing with 1000 or 1001 means the client is gone for good.
+        boolean deliberate = status.equalsCode(CloseStatus.NORMAL) || status.equalsCode(CloseStatus.GOING_AWAY);
+        disconnected(session, !deliberate);
+    }
+
+    /**
+     * Closes a connection the heartbeat found dead or idle. It is handled as disconnected right away, because
+     * closing a dead socket can take until the send time limit. Only one that stopped answering pings may resume.
+     */
+    private void reap(WebSocketSession session, Heartbeats.Reason reason) {
+        disconnected(session, reason == Heartbeats.Reason.MISSED_PONG);
+        try {
+            session.close(reason == Heartbeats.Reason.MISSED_PONG ? CloseStatus.SESSION_NOT_RELIABLE : CloseStatus.POLICY_VIOLATION);
+        } catch (IOException e) {
+            logger.debug("Error while closing reaped session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void disconnected(WebSocketSession session, boolean resumable) {
+        heartbeats.close(session);
+        admissionControl.close(session);
+        sessionResumption.closed(session);
         UserSession removedSession = sessions.remove(session.getId());
         if (removedSession != null) {
-            sfuService.handleLeave(removedSession.getWebSocketSession().getId());
+            // Peers only hear about the leave if a resumable session does not come back within the grace period.
+            if (!resumable || !sessionResumption.park(removedSession, session, () -> leave(removedSession))) {
+                leave(removedSession);
+            }
         } else {
             // ✅ ADDED LOG: For cases where a connection closes before joining.
             logger.info("A session that never joined a room has disconnected.");
         }
     }
+
+    private void leave(UserSession userSession) {
+        userSession.getOutbound().close();
+        sessionResumption.discard(userSession);
+        roomExecutor.execute(userSession.getRoomId(), signalingMetrics.timed("leave", System.nanoTime(),
+                () -> sfuService.handleLeave(userSession.getWebSocketSession().getId())));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.ayush.ayush.signaling;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The preset zlib dictionary of the binary subprotocol: the lines and JSON keys that appear in almost every
+ * browser SDP, written the way they appear inside a JSON string (CRLF escaped). With it, the first occurrence
+ * of these strings in a frame already compresses to a back-reference. Clients must use exactly these bytes,
+ * so the dictionary can never change within a protocol version. Deflate favours short distances, so the most
+ * common strings come last.
+ */
+final class SdpDictionary {
+
+    private static final String LINES = """
+            a=rtcp-fb:35 nack pli
+            a=rtpmap:35 AV1/90000
+            a=rtpmap:98 VP9/90000
+            a=fmtp:98 profile-id=0
+            a=rtpmap:102 H264/90000
+            a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f
+            a=rtpmap:63 red/48000/2
+            a=fmtp:63 111/111
+            a=rtpmap:9 G722/8000
+            a=rtpmap:0 PCMU/8000
+            a=rtpmap:8 PCMA/8000
+            a=rtpmap:13 CN/8000
+            a=rtpmap:110 telephone-event/48000
+            a=rtpmap:126 telephone-event/8000
+            a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time
+            a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01
+            a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid
+            a=extmap:9 urn:ietf:params:rtp-hdrext:sdes:rtp-stream-id
+            a=extmap:10 urn:ietf:params:rtp-hdrext:sdes:repaired-rtp-stream-id
+            a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level
+            a=extmap:14 urn:ietf:params:rtp-hdrext:toffset
+            a=extmap:13 urn:3gpp:video-orientation
+            a=extmap:5 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay
+            a=extmap:6 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type
+            a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing
+            a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space
+            m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126
+            m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101 102 103 35 36
+            a=rtpmap:111 opus/48000/2
+            a=rtcp-fb:111 transport-cc
+            a=fmtp:111 minptime=10;useinbandfec=1
+            a=rtpmap:96 VP8/90000
+            a=rtpmap:97 rtx/90000
+            a=fmtp:97 apt=96
+            a=rtcp-fb:96 goog-remb
+            a=rtcp-fb:96 transport-cc
+            a=rtcp-fb:96 ccm fir
+            a=rtcp-fb:96 nack
+            a=rtcp-fb:96 nack pli
+            a=rtcp-rsize
+            a=ssrc-group:FID
+            a=msid-semantic: WMS
+            a=extmap-allow-mixed
+            a=group:BUNDLE 0 1
+            a=ice-options:trickle
+            a=fingerprint:sha-256
+            a=setup:actpass
+            a=setup:active
+            a=sendrecv
+            a=recvonly
+            a=sendonly
+            a=rtcp-mux
+            c=IN IP4 0.0.0.0
+            a=rtcp:9 IN IP4 0.0.0.0
+            o=- 4611731400430051336 2 IN IP4 127.0.0.1
+            s=-
+            t=0 0
+            a=ice-ufrag:
+            a=ice-pwd:
+            a=mid:0
+            a=mid:1
+            a=msid:
+            a=ssrc:
+             cname:
+             msid:
+            a=candidate:
+             1 udp 2122260223 192.168.1.1 54321 typ host generation 0 network-id 1 network-cost 10
+             typ srflx raddr 0.0.0.0 rport 0
+            """;
+
+    static final byte[] BYTES = ("{\"candidate\":\"candidate:\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0,\"usernameFragment\":\"\"}"
+            + LINES.replace("\n", "\\r\\n")
+            + "{\"userId\":\"\",\"remoteUserId\":\"\",\"sdp\":{\"type\":\"offer\",\"sdp\":\"v=0\\r\\n"
+            + "\"type\":\"answer\",\"sdp\":\"v=0\\r\\n")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private SdpDictionary() {
+    }
+}
@@ -0,0 +1,220 @@
+package com.ayush.ayush.signaling;
+
+import com.ayush.ayush.participant.UserSession;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets a client whose connection dropped take its place in the room back, so a blip on flaky Wi-Fi is not a leave
+ * for every peer followed by a round of renegotiation.
+ * <p>
+ * Every joined session gets a "session" frame with a single-use resume token. When its connection drops without
+ * a normal close, the session is parked instead of leaving: it stays in the room and its outbound queue keeps
+ * buffering. A client that connects again within the grace period and sends
+ * { "type": "resume", "payload": { "resumeToken": ... } } is put back in the same slot, gets what was buffered and
+ * a fresh token, and nobody else notices. A resume also takes over a connection the server still believes is open.
+ * Otherwise the client gets "resume_failed" and joins anew. When the grace period runs out, the session leaves as
+ * it would have right away. A connection a resume failed on has to join; it cannot try another token.
+ */
+@Component
+public class SessionResumption {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionResumption.class);
+
+    private final FrameEncoder frameEncoder;
+    private final OutboundDispatcher outboundDispatcher;
+    private final long graceMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "session-resumption");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UserSession, String> tokens = new ConcurrentHashMap<>();
+    // Queues that told a connection without a session its resume failed, by connection id, so that connection
+    // never gets a second writer. The session that joins on it next takes the queue over.
+    private final ConcurrentHashMap<String, OutboundQueue> rejections = new ConcurrentHashMap<>();
+
+    // Guarded by its own monitor, which orders a slot's park, resume and expiry.
+    private static final class Slot {
+        final UserSession user;
+        ScheduledFuture<?> expiry;
+        Runnable leave;
+        boolean expired;
+
+        Slot(UserSession user) {
+            this.user = user;
+        }
+    }
+
+    /**
+     * A resumed session, and the connection it was taken from if that one had not closed yet.
+     */
+    public record Resumed(UserSession user, WebSocketSession previous) {
+    }
+
+    public SessionResumption(FrameEncoder frameEncoder, OutboundDispatcher outboundDispatcher,
+                             @Value("${signaling.resume.grace-ms:15000}") long graceMillis) {
+        this.frameEncoder = frameEncoder;
+        this.outboundDispatcher = outboundDispatcher;
+        this.graceMillis = graceMillis;
+    }
+
+    /**
+     * Gives a session a new resume token, replacing any previous one, and sends it to the client.
+     */
+    public void issue(UserSession user) {
+        if (graceMillis <= 0) {
+            return;
+        }
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        slots.put(token, new Slot(user));
+        String previous = tokens.put(user, token);
+        if (previous != null) {
+            slots.remove(previous);
+        }
+        send(user.getOutbound(), "session", Map.of("resumeToken", token, "graceMs", graceMillis));
+    }
+
+    /**
+     * Parks a session whose connection has closed.
+     *
+     * @param closed The connection that closed.
+     * @param leave  Runs if the session is not resumed within the grace period.
+     * @return false if the session cannot be resumed and has to leave now.
+     */
+    public boolean park(UserSession user, WebSocketSession closed, Runnable leave) {
+        String token = tokens.get(user);
+        Slot slot = token == null ? null : slots.get(token);
+        if (slot == null) {
+            return false;
+        }
+        synchronized (slot) {
+            if (slot.expired) {
+                return false;
+            }
+            if (user.getOutbound().getSession() != closed) {
+                // Already resumed on another connection; this one was left behind.
+                return true;
+            }
+            if (!user.getOutbound().detach()) {
+                discard(user);
+                return false;
+            }
+            slot.leave = leave;
+            slot.expiry = reaper.schedule(() -> expire(token, slot), graceMillis, TimeUnit.MILLISECONDS);
+        }
+        logger.info("Session of {} in room {} parked for {}ms", user.getUserId(), user.getRoomId(), graceMillis);
+        return true;
+    }
+
+    /**
+     * Moves the session holding this token onto a new connection.
+     */
+    public Optional<Resumed> resume(String token, WebSocketSession session) {
+        // Its rejection may still be being written, and reattaching would add a second writer.
+        Slot slot = token == null || rejections.containsKey(session.getId()) ? null : slots.get(token);
+        if (slot == null) {
+            return Optional.empty();
+        }
+        synchronized (slot) {
+            if (slot.expired || (slot.expiry != null && !slot.expiry.cancel(false))) {
+                return Optional.empty();
+            }
+            boolean parked = slot.expiry != null;
+            slot.expiry = null;
+            WebSocketSession previous = slot.user.getOutbound().getSession();
+            if (!outboundDispatcher.reattach(slot.user.getOutbound(), session)) {
+                // It overflowed while parked; a session that is still connected will leave when its socket closes.
+                slot.expired = true;
+                discard(slot.user);
+                if (parked) {
+                    slot.leave.run();
+                }
+                return Optional.empty();
+            }
+            logger.info("Session of {} in room {} resumed", slot.user.getUserId(), slot.user.getRoomId());
+            return Optional.of(new Resumed(slot.user, parked ? null : previous));
+        }
+    }
+
+    /**
+     * Tells a client its resume did not work out, on a connection that has no session yet.
+     */
+    public void rejected(WebSocketSession session) {
+        OutboundQueue outbound = rejections.computeIfAbsent(session.getId(), id -> outboundDispatcher.open(session));
+        send(outbound, "resume_failed", Map.of("reason", "Unknown or expired resume token"));
+    }
+
+    /**
+     * The queue a rejected resume opened on this connection, for the session that joins on it.
+     */
+    public Optional<OutboundQueue> takeRejected(WebSocketSession session) {
+        return Optional.ofNullable(rejections.remove(session.getId()));
+    }
+
+    /**
+     * Closes what a rejected resume left open on a connection that closed without joining.
+     */
+    public void closed(WebSocketSession session) {
+        OutboundQueue outbound = rejections.remove(session.getId());
+        if (outbound != null) {
+            outbound.close();
+        }
+    }
+
+    /**
+     * Forgets a session that has left for good.
+     */
+    public void discard(UserSession user) {
+        String token = tokens.remove(user);
+        if (token != null) {
+            slots.remove(token);
+        }
+    }
+
+    private void expire(String token, Slot slot) {
+        synchronized (slot) {
+            if (slot.expiry == null) {
+                return;
+            }
+            slot.expiry = null;
+            slot.expired = true;
+            tokens.remove(slot.user, token);
+            slots.remove(token);
+        }
+        logger.info("Session of {} in room {} was not resumed in time", slot.user.getUserId(), slot.user.getRoomId());
+        slot.leave.run();
+    }
+
+    private void send(OutboundQueue outbound, String type, Object payload) {
+        try {
+            outbound.enqueue(frameEncoder.encode(type, payload));
+        } catch (IOException e) {
+            logger.error("Failed to encode '{}' message: {}", type, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaper.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package com.ayush.ayush.signaling;
+
+import java.util.List;
+
+/**
+ * An inbound signaling message, as produced by {@link MessageParser}.
+ * Only the fields the server routes on are read; SDPs and candidates stay {@link RawJson}.
+ */
+public sealed interface SignalingMessage {
+
+    /**
+     * The message type as sent by the client, e.g. "offer".
+     */
+    String type();
+
+    record Join(String roomId, String userId, boolean iceBatching) implements SignalingMessage {
+        @Override
+        public String type() {
+            return "join";
+        }
+    }
+
+    record Offer(String remoteUserId, RawJson sdp) implements SignalingMessage {
+        @Override
+        public String type() {
+            return "offer";
+        }
+    }
+
+    record Answer(String remoteUserId, RawJson sdp) implements SignalingMessage {
+        @Override
+        public String type() {
+            return "answer";
+        }
+    }
+
+    record IceCandidate(String remoteUserId, RawJson candidate) implements SignalingMessage {
+        @Override
+        public String type() {
+            return "ice_candidate";
+        }
+    }
+
+    /**
+     * A coalesced batch of candidates ("ice_candidates"). The list is empty if the client sent none.
+     */
+    record IceCandidates(String remoteUserId, List<RawJson> candidates) implements SignalingMessage {
+        @Override
+        public String type() {
+            return "ice_candidates";
+        }
+    }
+
+    /**
+     * A client that reconnected asking for its parked session back (see {@link SessionResumption}).
+     */
+    record Resume(String resumeToken) implements SignalingMessage {
+        @Override
+        public String type() {
+            return "resume";
+        }
+    }
+
+    /**
+     * A large-room client asking to catch up on the roster from the last version it applied ("roster_sync").
+     * The version is -1 if the client sent none, which always gets the full roster.
+     */
+    record RosterSync(long version) implements SignalingMessage {
+        @Override
+        public String type() {
+            return "roster_sync";
+        }
+    }
+
+    /**
+     * A well-formed message of a type this server does not handle.
+     */
+    record Unknown(String type) implements SignalingMessage {
+    }
+
+    /**
+     * Valid JSON that is not a usable signaling message, e.g. without a "type" or a "payload".
+     */
+    record Malformed(String reason) implements SignalingMessage {
+        @Override
+        public String type() {
+            return "malformed";
+        }
+    }
+}
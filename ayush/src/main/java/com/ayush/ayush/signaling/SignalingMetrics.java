@@ -0,0 +1,89 @@
+package com.ayush.ayush.signaling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-type signaling metrics: "signaling.messages" times each message from the moment it was received until its
+ * handler finished (including any wait in the room's mailbox), and "signaling.messages.errors" counts the ones
+ * that were rejected or failed. Meters are registered once, so recording never builds tags on the hot path.
+ */
+@Component
+public class SignalingMetrics {
+
+    private static final List<String> TYPES = List.of("join", "offer", "answer", "ice_candidate", "ice_candidates", "roster_sync", "resume", "leave");
+
+    private final Map<String, Timer> timers;
+    private final Timer otherTimer;
+    private final Counter malformed;
+    private final Counter notJoined;
+    private final Counter alreadyJoined;
+    private final Counter unknownType;
+    private final Counter failed;
+
+    public SignalingMetrics(MeterRegistry registry) {
+        this.timers = TYPES.stream().collect(Collectors.toUnmodifiableMap(Function.identity(), type -> timer(registry, type)));
+        this.otherTimer = timer(registry, "other");
+        this.malformed = errors(registry, "malformed");
+        this.notJoined = errors(registry, "not_joined");
+        this.alreadyJoined = errors(registry, "already_joined");
+        this.unknownType = errors(registry, "unknown_type");
+        this.failed = errors(registry, "failed");
+    }
+
+    /**
+     * Wraps a message handler so that, whenever and wherever it runs, its latency since {@code receivedAt}
+     * is recorded under the message type and an exception is counted as a failure.
+     */
+    public Runnable timed(String type, long receivedAt, Runnable handler) {
+        Timer timer = timers.getOrDefault(type, otherTimer);
+        return () -> {
+            try {
+                handler.run();
+            } catch (RuntimeException e) {
+                failed.increment();
+                throw e;
+            } finally {
+                timer.record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    public void malformed() {
+        malformed.increment();
+    }
+
+    public void notJoined() {
+        notJoined.increment();
+    }
+
+    public void alreadyJoined() {
+        alreadyJoined.increment();
+    }
+
+    public void unknownType() {
+        unknownType.increment();
+    }
+
+    private static Timer timer(MeterRegistry registry, String type) {
+        return Timer.builder("signaling.messages")
+                .description("Time from receiving a signaling message until it was handled")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    private static Counter errors(MeterRegistry registry, String reason) {
+        return Counter.builder("signaling.messages.errors")
+                .description("Signaling messages that were rejected or failed")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ayush.ayush.util;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+
+/**
+ * A minimal consecutive-failure circuit breaker for reactive calls.
+ * After {@code failureThreshold} failures in a row the circuit opens and calls fail fast with
+ * {@link OpenException} for {@code openDuration}; the first call after that is let through as a probe.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown instead of making a call while the circuit is open.
+     */
+    public static class OpenException extends RuntimeException {
+        public OpenException(String name) {
+            super("Circuit '" + name + "' is open");
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    // Guarded by "this".
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Wraps a call so that it is skipped while the circuit is open and its outcome is recorded otherwise.
+     * The call is only attempted on subscription, so this composes with retries.
+     */
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.error(new OpenException(name));
+            }
+            return call.doOnSuccess(value -> onSuccess())
+                    .doOnError(error -> onFailure())
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            onCancel();
+                        }
+                    });
+        });
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            return true;
+        }
+        // While half-open only the single probe already in flight is allowed.
+        return state == State.CLOSED;
+    }
+
+    private synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    // A cancelled probe (the caller went away or timed out first) counts as failed, so the circuit opens again
+    // instead of waiting forever for an outcome. Any other cancelled call says nothing about the dependency.
+    private synchronized void onCancel() {
+        if (state == State.HALF_OPEN) {
+            onFailure();
+        }
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+}
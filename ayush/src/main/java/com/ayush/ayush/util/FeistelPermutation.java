@@ -0,0 +1,66 @@
+package com.ayush.ayush.util;
+
+/**
+ * A keyed pseudo-random permutation of the integers [0, domainSize).
+ * A balanced Feistel network scrambles the smallest even-bit-width domain that covers domainSize, and cycle-walking
+ * maps the few outputs that land past domainSize back inside it. Feeding it a counter yields values that look random
+ * but can never repeat until the whole domain has been used.
+ */
+public class FeistelPermutation {
+
+    private static final int ROUNDS = 4;
+
+    private final long domainSize;
+    private final int halfBits;
+    private final long halfMask;
+    private final long key;
+
+    public FeistelPermutation(long domainSize, long key) {
+        if (domainSize < 2 || domainSize > (1L << 62)) {
+            throw new IllegalArgumentException("Unsupported domain size: " + domainSize);
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(domainSize - 1);
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+        this.domainSize = domainSize;
+        this.key = key;
+    }
+
+    public long getDomainSize() {
+        return domainSize;
+    }
+
+    /**
+     * Maps {@code value} in [0, domainSize) to its image in [0, domainSize).
+     */
+    public long permute(long value) {
+        if (value < 0 || value >= domainSize) {
+            throw new IllegalArgumentException("Value outside the permutation domain: " + value);
+        }
+        // Cycle-walking: the cover domain is less than 4x domainSize, so this loops ~1-2 times on average.
+        do {
+            value = encrypt(value);
+        } while (value >= domainSize);
+        return value;
+    }
+
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = left ^ roundFunction(right, round);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long roundFunction(long half, int round) {
+        // SplitMix64 finalizer over the half-block mixed with a per-round subkey.
+        long x = half ^ (key + (round + 1) * 0x9E3779B97F4A7C15L);
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        x ^= x >>> 31;
+        return x & halfMask;
+    }
+}
@@ -1,11 +1,33 @@
 package com.ayush.ayush.util;
 
-import java.util.Random;
-
 public class RoomUtil {
-    public static long generateRoomId() {
-        Random random = new Random();
-        // Janus room IDs should be > 0
-        return 100000 + random.nextInt(900000); // 6-digit room ID
+    // Friendly ids leave out look-alike characters (0/O, 1/I/L).
+    private static final String FRIENDLY_ID_CHARS = "ABCDEFGHJKMNPQRSTUVWXYZ23456789";
+    private static final int FRIENDLY_ID_LENGTH = 6;
+
+    // Number of distinct friendly ids: 31^6.
+    public static final long FRIENDLY_ID_SPACE = pow(FRIENDLY_ID_CHARS.length(), FRIENDLY_ID_LENGTH);
+
+    /**
+     * Encodes an index in [0, FRIENDLY_ID_SPACE) as a 6-character friendly id. Distinct indexes give distinct ids.
+     */
+    public static String toFriendlyId(long index) {
+        if (index < 0 || index >= FRIENDLY_ID_SPACE) {
+            throw new IllegalArgumentException("Friendly id index out of range: " + index);
+        }
+        char[] id = new char[FRIENDLY_ID_LENGTH];
+        for (int i = FRIENDLY_ID_LENGTH - 1; i >= 0; i--) {
+            id[i] = FRIENDLY_ID_CHARS.charAt((int) (index % FRIENDLY_ID_CHARS.length()));
+            index /= FRIENDLY_ID_CHARS.length();
+        }
+        return new String(id);
+    }
+
+    private static long pow(long base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
     }
 }
@@ -0,0 +1,246 @@
+package com.ayush.ayush.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hierarchical timing wheel for large numbers of coarse timeouts, e.g. one heartbeat per connection.
+ * Scheduling and cancelling are O(1) and never take a lock: both are handed to the single worker thread through
+ * queues, and the worker does all the bookkeeping once per tick.
+ * <p>
+ * There are {@value #LEVELS} wheels of {@value #WHEEL_SIZE} slots. Level 0 holds timeouts due within 64 ticks,
+ * level 1 those due within 64² ticks and so on; whenever a wheel has turned once, the next slot of the level above
+ * is cascaded down. Timeouts fire on the worker thread, at most one tick late, and must be quick; anything that
+ * can block belongs on another executor.
+ */
+public class TimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    // Longer delays are clamped; with 100ms ticks this is about 19 days.
+    private static final long MAX_DELAY_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final long startedAt = System.nanoTime();
+    private final Slot[][] wheels = new Slot[LEVELS][WHEEL_SIZE];
+    private final ConcurrentLinkedQueue<Timeout> additions = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancellations = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean running = true;
+    // Only touched by the worker.
+    private long currentTick;
+
+    /**
+     * A scheduled task. Cancelling is only a hint to the worker, so a timeout that fires concurrently may still run.
+     */
+    public final class Timeout {
+
+        private final Runnable task;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Worker-only: the slot holding this timeout and its neighbours there.
+        private Slot slot;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * @return false if the timeout had already fired or been cancelled.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            cancellations.add(this);
+            return true;
+        }
+    }
+
+    // An intrusive doubly linked list, so a cancelled timeout is unlinked without searching its slot.
+    private static final class Slot {
+        Timeout head;
+        Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.slot = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.slot = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        // Empties the slot and returns its former contents, still linked through "next".
+        Timeout drain() {
+            Timeout first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+
+    /**
+     * Starts the worker thread.
+     *
+     * @param name The worker thread's name.
+     * @param tick The resolution; timeouts fire up to one tick late.
+     */
+    public TimingWheel(String name, long tick, TimeUnit unit) {
+        this.tickNanos = unit.toNanos(tick);
+        for (Slot[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = new Slot();
+            }
+        }
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Runs a task on the worker once the delay has passed.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startedAt + unit.toNanos(delay);
+        // Rounded up, so a task never runs early.
+        Timeout timeout = new Timeout(task, (deadline + tickNanos - 1) / tickNanos);
+        pending.incrementAndGet();
+        additions.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Timeouts that have neither fired nor been cancelled.
+     */
+    public int size() {
+        return pending.get();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickAt = startedAt + (currentTick + 1) * tickNanos;
+            long wait;
+            while (running && (wait = nextTickAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            if (!running) {
+                return;
+            }
+            currentTick++;
+            processCancellations();
+            processAdditions();
+            cascade();
+            expire(wheels[0][(int) (currentTick & WHEEL_MASK)].drain());
+        }
+    }
+
+    private void processCancellations() {
+        for (Timeout timeout = cancellations.poll(); timeout != null; timeout = cancellations.poll()) {
+            // Null if it was cancelled before the worker had placed it; then it is dropped in processAdditions.
+            if (timeout.slot != null) {
+                timeout.slot.remove(timeout);
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private void processAdditions() {
+        for (Timeout timeout = additions.poll(); timeout != null; timeout = additions.poll()) {
+            if (timeout.state.get() == CANCELLED) {
+                pending.decrementAndGet();
+            } else {
+                place(timeout);
+            }
+        }
+    }
+
+    /**
+     * Each time a wheel has gone round once, the next slot of the wheel above is spread over the wheels below.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            int index = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            Timeout timeout = wheels[level][index].drain();
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long deadline = Math.max(timeout.deadlineTick, currentTick);
+        long delta = Math.min(deadline - currentTick, MAX_DELAY_TICKS);
+        deadline = currentTick + delta;
+        int level = 0;
+        while (delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        wheels[level][(int) ((deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(timeout);
+    }
+
+    private void expire(Timeout timeout) {
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.slot = null;
+            timeout.previous = null;
+            timeout.next = null;
+            // A timeout cancelled since the last tick is still here; it is counted off now, not in processCancellations.
+            pending.decrementAndGet();
+            if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Timeout task failed", e);
+                }
+            }
+            timeout = next;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ayush.ayush.util;
+
+/**
+ * A token bucket: holds up to {@code burst} tokens and refills at {@code rate} tokens per second.
+ * Refilling is computed lazily from the time of the last call, so an idle bucket costs nothing.
+ */
+public class TokenBucket {
+
+    // Guarded by "this".
+    private double tokensPerNano;
+    private double capacity;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    /**
+     * Starts full.
+     */
+    public TokenBucket(double rate, double burst) {
+        this.tokensPerNano = rate / 1e9;
+        this.capacity = burst;
+        this.tokens = burst;
+    }
+
+    /**
+     * Takes {@code cost} tokens if at least {@code reserve} would be left afterwards, so that lower priorities can
+     * be kept off the last part of a shared budget.
+     */
+    public synchronized boolean tryAcquire(double cost, double reserve) {
+        refill();
+        if (tokens - cost < reserve) {
+            return false;
+        }
+        tokens -= cost;
+        return true;
+    }
+
+    /**
+     * Changes the rate and size. Growing adds the extra capacity as tokens; shrinking drops what no longer fits.
+     */
+    public synchronized void resize(double rate, double burst) {
+        refill();
+        tokens = Math.min(burst, tokens + Math.max(0, burst - capacity));
+        tokensPerNano = rate / 1e9;
+        capacity = burst;
+    }
+
+    public synchronized double capacity() {
+        return capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ayush.ayush.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.ayush.ayush.journal.SignalingJournal;
+import com.ayush.ayush.participant.UserSession;
+import com.ayush.ayush.service.IceCandidateBatcher;
+import com.ayush.ayush.service.LargeRoomPresence;
+import com.ayush.ayush.service.RoomManager;
+import com.ayush.ayush.service.SfuService;
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.signaling.OutboundQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of presence events as the room grows: a participant leaving (participant_left broadcast) and a participant
+ * joining (existing_participants roster plus new_participant broadcast).
+ * Run with the gc profiler: gc.alloc.rate.norm should stay flat in roomSize apart from one queue entry per recipient
+ * and the joiner's roster, because each frame is encoded once and shared.
+ * <p>
+ * With a {@code largeRoomThreshold} at or below the room size the room is in large-room presence mode: a join only
+ * sends the joiner its roster, and the others hear about it in the next tick's delta, which is shared by every
+ * join and leave within the tick and is not part of this measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    @Param({"2", "10", "50", "200", "500"})
+    int roomSize;
+
+    @Param({"0", "100"})
+    int largeRoomThreshold;
+
+    private RoomManager roomManager;
+    private LargeRoomPresence presence;
+    private SfuService sfuService;
+    private UserSession leaver;
+    private UserSession joiner;
+
+    @Setup
+    public void setUp() {
+        quietLogs();
+        roomManager = new RoomManager();
+        FrameEncoder frameEncoder = new FrameEncoder(new ObjectMapper());
+        // Ticks are left out of the measurement, see above.
+        presence = new LargeRoomPresence(roomManager, frameEncoder, SignalingJournal.disabled(), largeRoomThreshold,
+                TimeUnit.DAYS.toMillis(1), 200, 32);
+        sfuService = new SfuService(roomManager, frameEncoder, new IceCandidateBatcher(frameEncoder, 0), SignalingJournal.disabled(),
+                presence, Optional.empty());
+        for (int i = 0; i < roomSize; i++) {
+            UserSession user = newUser("user-" + i);
+            roomManager.addUserToRoom(user);
+            leaver = user;
+        }
+        presence.joined("room-1", roomSize);
+        joiner = newUser("joiner");
+    }
+
+    @TearDown
+    public void tearDown() {
+        presence.shutdown();
+    }
+
+    @Benchmark
+    public void leaveAndRejoin() {
+        sfuService.handleLeave(leaver.getWebSocketSession().getId());
+        roomManager.addUserToRoom(leaver);
+    }
+
+    @Benchmark
+    public void joinAndLeave() {
+        sfuService.handleJoin(joiner);
+        sfuService.handleLeave(joiner.getWebSocketSession().getId());
+    }
+
+    /**
+     * The signaling path logs every message at INFO; left on, the console would be most of what is measured.
+     */
+    static void quietLogs() {
+        ((Logger) LoggerFactory.getLogger("com.ayush")).setLevel(Level.WARN);
+    }
+
+    static UserSession newUser(String userId) {
+        return newUser(userId, "room-1");
+    }
+
+    static UserSession newUser(String userId, String roomId) {
+        StubWebSocketSession session = new StubWebSocketSession(roomId + "/" + userId);
+        // Draining inline on the caller keeps the writer cost inside the measurement.
+        OutboundQueue outbound = new OutboundQueue(session, Runnable::run, 10_000, Integer.MAX_VALUE);
+        return new UserSession(userId, roomId, session, outbound, false);
+    }
+}
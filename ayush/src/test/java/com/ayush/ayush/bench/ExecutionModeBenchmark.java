@@ -0,0 +1,144 @@
+package com.ayush.ayush.bench;
+
+import com.ayush.ayush.journal.SignalingJournal;
+import com.ayush.ayush.service.IceCandidateBatcher;
+import com.ayush.ayush.service.LargeRoomPresence;
+import com.ayush.ayush.service.RoomManager;
+import com.ayush.ayush.service.SfuService;
+import com.ayush.ayush.signaling.AdmissionControl;
+import com.ayush.ayush.signaling.BinaryProtocol;
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.signaling.Heartbeats;
+import com.ayush.ayush.signaling.MessageParser;
+import com.ayush.ayush.signaling.OutboundDispatcher;
+import com.ayush.ayush.signaling.RoomExecutor;
+import com.ayush.ayush.signaling.SFUSignalingHandler;
+import com.ayush.ayush.signaling.SessionResumption;
+import com.ayush.ayush.signaling.SignalingMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signaling throughput of the two execution modes: offers fed through the handler from several "Tomcat" threads,
+ * each owning its own rooms, and counted once the forwarded frame has reached the receiving socket.
+ * DIRECT does the routing and encoding on the receiving thread; ROOM_ACTOR only parses there and hands the rest
+ * to the room's mailbox.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ExecutionModeBenchmark {
+
+    private static final int ROOMS_PER_THREAD = 32;
+    private static final int USERS_PER_ROOM = 4;
+    private static final int MESSAGES_PER_OP = ROOMS_PER_THREAD * (USERS_PER_ROOM - 1);
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"DIRECT", "ROOM_ACTOR"})
+        RoomExecutor.Mode mode;
+
+        SFUSignalingHandler handler;
+        OutboundDispatcher outboundDispatcher;
+        RoomExecutor roomExecutor;
+
+        @Setup
+        public void setUp() {
+            BroadcastBenchmark.quietLogs();
+            ObjectMapper objectMapper = new ObjectMapper();
+            FrameEncoder frameEncoder = new FrameEncoder(objectMapper);
+            RoomManager roomManager = new RoomManager();
+            SfuService sfuService = new SfuService(roomManager, frameEncoder, new IceCandidateBatcher(frameEncoder, 0), SignalingJournal.disabled(),
+                    LargeRoomPresence.disabled(roomManager, frameEncoder), Optional.empty());
+            outboundDispatcher = new OutboundDispatcher(10_000, Integer.MAX_VALUE, new SimpleMeterRegistry(), new BinaryProtocol(256));
+            roomExecutor = new RoomExecutor(mode);
+            handler = new SFUSignalingHandler(sfuService, new MessageParser(objectMapper), outboundDispatcher, roomExecutor,
+                    new SignalingMetrics(new SimpleMeterRegistry()), SignalingJournal.disabled(), new BinaryProtocol(256),
+                    new SessionResumption(frameEncoder, outboundDispatcher, 0), Heartbeats.disabled(), AdmissionControl.disabled());
+        }
+
+        @TearDown
+        public void tearDown() {
+            roomExecutor.shutdown();
+            outboundDispatcher.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Producer {
+
+        StubWebSocketSession[][] sockets;
+        TextMessage[][] offers;
+        long delivered;
+
+        @Setup
+        public void setUp(Server server, ThreadParams threadParams) throws Exception {
+            int thread = threadParams.getThreadIndex();
+            String sdp = "v=0\\r\\n" + "a=candidate:1 1 udp 2130706431 10.0.0.1 50000 typ host\\r\\n".repeat(16);
+            sockets = new StubWebSocketSession[ROOMS_PER_THREAD][USERS_PER_ROOM];
+            offers = new TextMessage[ROOMS_PER_THREAD][USERS_PER_ROOM];
+            for (int r = 0; r < ROOMS_PER_THREAD; r++) {
+                String roomId = "room-" + thread + "-" + r;
+                for (int u = 0; u < USERS_PER_ROOM; u++) {
+                    StubWebSocketSession socket = new StubWebSocketSession(roomId + "/user-" + u);
+                    sockets[r][u] = socket;
+                    server.handler.handleMessage(socket, new TextMessage(
+                            "{\"type\":\"join\",\"payload\":{\"roomId\":\"" + roomId + "\",\"userId\":\"user-" + u + "\"}}"));
+                    offers[r][u] = new TextMessage("{\"type\":\"offer\",\"payload\":{\"remoteUserId\":\"user-" + u
+                            + "\",\"sdp\":{\"type\":\"offer\",\"sdp\":\"" + sdp + "\"}}}");
+                }
+            }
+            // Let the joins and their presence frames settle before measuring.
+            Thread.sleep(200);
+            delivered = receivedSoFar();
+        }
+
+        long receivedSoFar() {
+            long total = 0;
+            for (StubWebSocketSession[] room : sockets) {
+                for (int u = 1; u < USERS_PER_ROOM; u++) {
+                    total += room[u].getMessagesSent();
+                }
+            }
+            return total;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_OP)
+    public void offers(Server server, Producer producer) throws Exception {
+        for (int r = 0; r < ROOMS_PER_THREAD; r++) {
+            // user-0 offers to every other participant of the room.
+            for (int u = 1; u < USERS_PER_ROOM; u++) {
+                server.handler.handleMessage(producer.sockets[r][0], producer.offers[r][u]);
+            }
+        }
+        producer.delivered += MESSAGES_PER_OP;
+        while (producer.receivedSoFar() < producer.delivered) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ayush.ayush.bench;
+
+import com.ayush.ayush.config.SignalingJournalProperties;
+import com.ayush.ayush.journal.SignalingJournal;
+import com.ayush.ayush.service.IceCandidateBatcher;
+import com.ayush.ayush.service.LargeRoomPresence;
+import com.ayush.ayush.service.RoomManager;
+import com.ayush.ayush.service.SfuService;
+import com.ayush.ayush.signaling.AdmissionControl;
+import com.ayush.ayush.signaling.BinaryProtocol;
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.signaling.Heartbeats;
+import com.ayush.ayush.signaling.MessageParser;
+import com.ayush.ayush.signaling.OutboundDispatcher;
+import com.ayush.ayush.signaling.RoomExecutor;
+import com.ayush.ayush.signaling.SFUSignalingHandler;
+import com.ayush.ayush.signaling.SessionResumption;
+import com.ayush.ayush.signaling.SignalingMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One inbound message through SFUSignalingHandler.handleTextMessage: JSON parsing, routing and re-encoding
+ * the forwarded frame. Writes go to a stub socket, so the score is our own CPU and allocation per message.
+ * "journaled" also records every message in the signaling journal, as the application does when it is enabled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandlerBenchmark {
+
+    @Param({"offer", "ice_candidate"})
+    String type;
+
+    @Param({"false", "true"})
+    boolean journaled;
+
+    private SFUSignalingHandler handler;
+    private OutboundDispatcher outboundDispatcher;
+    private SignalingJournal journal;
+    private Path journalDirectory;
+    private StubWebSocketSession sender;
+    private TextMessage message;
+
+    @Setup
+    public void setUp() throws Exception {
+        BroadcastBenchmark.quietLogs();
+        ObjectMapper objectMapper = new ObjectMapper();
+        journalDirectory = Files.createTempDirectory("journal-bench");
+        journal = journaled
+                ? new SignalingJournal(new SignalingJournalProperties(true, journalDirectory, DataSize.ofMegabytes(64), 2,
+                        65536, Duration.ofMillis(50), 1.0, 512, Map.of(), Map.of()))
+                : SignalingJournal.disabled();
+        FrameEncoder frameEncoder = new FrameEncoder(objectMapper);
+        RoomManager roomManager = new RoomManager();
+        SfuService sfuService = new SfuService(roomManager, frameEncoder, new IceCandidateBatcher(frameEncoder, 0), journal,
+                LargeRoomPresence.disabled(roomManager, frameEncoder), Optional.empty());
+        outboundDispatcher = new OutboundDispatcher(10_000, Integer.MAX_VALUE, new SimpleMeterRegistry(), new BinaryProtocol(256));
+        handler = new SFUSignalingHandler(sfuService, new MessageParser(objectMapper), outboundDispatcher, new RoomExecutor(RoomExecutor.Mode.DIRECT),
+                new SignalingMetrics(new SimpleMeterRegistry()), journal, new BinaryProtocol(256),
+                new SessionResumption(frameEncoder, outboundDispatcher, 0), Heartbeats.disabled(), AdmissionControl.disabled());
+
+        sender = new StubWebSocketSession("room-1/alice");
+        handler.handleMessage(sender, new TextMessage("{\"type\":\"join\",\"payload\":{\"roomId\":\"room-1\",\"userId\":\"alice\"}}"));
+        handler.handleMessage(new StubWebSocketSession("room-1/bob"),
+                new TextMessage("{\"type\":\"join\",\"payload\":{\"roomId\":\"room-1\",\"userId\":\"bob\"}}"));
+
+        message = new TextMessage(switch (type) {
+            case "offer" -> "{\"type\":\"offer\",\"payload\":{\"remoteUserId\":\"bob\",\"sdp\":{\"type\":\"offer\",\"sdp\":\""
+                    + "v=0\\r\\n" + "a=candidate:1 1 udp 2130706431 10.0.0.1 50000 typ host\\r\\n".repeat(40) + "\"}}}";
+            case "ice_candidate" -> "{\"type\":\"ice_candidate\",\"payload\":{\"remoteUserId\":\"bob\",\"candidate\":"
+                    + "{\"candidate\":\"candidate:1 1 udp 2130706431 10.0.0.1 50000 typ host\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}}}";
+            default -> throw new IllegalArgumentException(type);
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        outboundDispatcher.shutdown();
+        journal.shutdown();
+        FileSystemUtils.deleteRecursively(journalDirectory);
+    }
+
+    @Benchmark
+    public void handleMessage() throws Exception {
+        handler.handleMessage(sender, message);
+    }
+}
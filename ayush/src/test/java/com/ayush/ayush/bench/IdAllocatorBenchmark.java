@@ -0,0 +1,53 @@
+package com.ayush.ayush.bench;
+
+import com.ayush.ayush.service.IdAllocator;
+import com.ayush.ayush.support.InMemoryIdBlockSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation throughput of friendly ids and Janus room ids, single-threaded and under contention.
+ * Block leases are served from memory, so this measures the permutation and the in-process counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdAllocatorBenchmark {
+
+    private IdAllocator allocator;
+
+    @Setup
+    public void setUp() {
+        allocator = new IdAllocator(new InMemoryIdBlockSource(), 1000);
+    }
+
+    @Benchmark
+    public String friendlyId() {
+        return allocator.nextFriendlyId();
+    }
+
+    @Benchmark
+    public long janusRoomId() {
+        return allocator.nextJanusRoomId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String friendlyIdContended() {
+        return allocator.nextFriendlyId();
+    }
+}
@@ -0,0 +1,86 @@
+package com.ayush.ayush.bench;
+
+import com.ayush.ayush.ZoomApplication;
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.service.JanusService;
+import com.ayush.ayush.service.MeetingRoomWriteBehind;
+import com.ayush.ayush.service.MeetingRoomWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meeting rooms persisted per second by concurrent creators: a transaction per room ({@code direct}) against the
+ * write-behind, where a creator only waits for the group-committed log append and rows go in as JDBC batches.
+ * Runs the whole application on a file-backed H2 database, so commits do touch the disk; against MySQL over the
+ * network each of the direct path's transactions costs a round trip or more on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(8)
+public class MeetingRoomPersistenceBenchmark {
+
+    @Param({"direct", "write_behind"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private MeetingRoomWriter writer;
+    private MeetingRoomWriteBehind writeBehind;
+    private final AtomicLong janusRoomIds = new AtomicLong(10_000_000L);
+
+    @Setup
+    public void setUp() throws IOException {
+        Path directory = Files.createTempDirectory("meeting-bench");
+        // As arguments, so they win over application.properties.
+        context = new SpringApplicationBuilder(ZoomApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:file:" + directory.resolve("db") + ";MODE=MySQL",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--meeting.warm-pool.size=0",
+                "--meeting.write-behind.enabled=" + mode.equals("write_behind"),
+                "--meeting.write-behind.directory=" + directory.resolve("write-behind"),
+                "--signaling.journal.enabled=false",
+                "--logging.level.com.ayush=WARN");
+        writer = context.getBean(MeetingRoomWriter.class);
+        writeBehind = context.getBean(MeetingRoomWriteBehind.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MeetingRoom create() {
+        JanusService.JanusRoom janusRoom = new JanusService.JanusRoom(null, janusRoomIds.incrementAndGet());
+        if (writeBehind.isEnabled()) {
+            return writeBehind.insert(janusRoom, "bench").block(Duration.ofSeconds(10));
+        }
+        return writer.insert(janusRoom, "bench", false);
+    }
+}
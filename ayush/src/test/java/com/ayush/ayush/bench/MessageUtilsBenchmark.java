@@ -0,0 +1,53 @@
+package com.ayush.ayush.bench;
+
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.util.MessageUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and sending one offer frame: the org.json path in MessageUtils.send against the Jackson
+ * FrameEncoder that SfuService uses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageUtilsBenchmark {
+
+    private final StubWebSocketSession session = new StubWebSocketSession("room-1/bob");
+    private final FrameEncoder frameEncoder = new FrameEncoder(new ObjectMapper());
+    private String sdp;
+    private JSONObject jsonPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        sdp = "v=0\r\n" + "a=candidate:1 1 udp 2130706431 10.0.0.1 50000 typ host\r\n".repeat(40);
+        jsonPayload = new JSONObject().put("userId", "alice").put("sdp", sdp);
+    }
+
+    @Benchmark
+    public void messageUtilsSend() throws Exception {
+        MessageUtils.send(session, "offer", jsonPayload);
+    }
+
+    @Benchmark
+    public void frameEncoderSend() throws Exception {
+        session.sendMessage(frameEncoder.encode("offer", Map.of("userId", "alice", "sdp", sdp)).message());
+    }
+}
@@ -0,0 +1,152 @@
+package com.ayush.ayush.bench;
+
+import com.ayush.ayush.signaling.BinaryProtocol;
+import com.ayush.ayush.signaling.EncodedFrame;
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.signaling.MessageParser;
+import com.ayush.ayush.signaling.RawJson;
+import com.ayush.ayush.signaling.SignalingMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JSON text protocol against the binary subprotocol, for a browser-sized offer and a single ICE candidate:
+ * CPU per message to decode an inbound frame and to encode the forwarded one. Bytes on the wire for both
+ * directions are printed when the trial starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    @Param({"json", "binary"})
+    String protocol;
+
+    @Param({"offer", "ice_candidate"})
+    String type;
+
+    private MessageParser parser;
+    private FrameEncoder frameEncoder;
+    private BinaryProtocol binaryProtocol;
+    private String inboundText;
+    private byte[] inboundBinary;
+    private Map<String, Object> forwarded;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        parser = new MessageParser(objectMapper);
+        frameEncoder = new FrameEncoder(objectMapper);
+        binaryProtocol = new BinaryProtocol(256);
+
+        String value = switch (type) {
+            case "offer" -> "{\"type\":\"offer\",\"sdp\":" + objectMapper.writeValueAsString(chromeOffer()) + "}";
+            case "ice_candidate" -> "{\"candidate\":\"candidate:842163049 1 udp 1677729535 203.0.113.7 61665 typ srflx "
+                    + "raddr 0.0.0.0 rport 0 generation 0 ufrag 4ZcD network-cost 999\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}";
+            default -> throw new IllegalArgumentException(type);
+        };
+        String field = type.equals("offer") ? "sdp" : "candidate";
+        inboundText = "{\"type\":\"" + type + "\",\"payload\":{\"remoteUserId\":\"bob\",\"" + field + "\":" + value + "}}";
+        inboundBinary = binaryProtocol.encode(inboundText.getBytes(StandardCharsets.UTF_8));
+        forwarded = Map.of("userId", "alice", field, new RawJson(value));
+
+        EncodedFrame outbound = frameEncoder.encode(type, forwarded);
+        System.out.printf("%n%s wire bytes: inbound json=%d binary=%d, forwarded json=%d binary=%d%n", type,
+                inboundText.getBytes(StandardCharsets.UTF_8).length, inboundBinary.length,
+                outbound.length(), outbound.binaryMessage(binaryProtocol).getPayloadLength());
+    }
+
+    @Benchmark
+    public SignalingMessage receive() throws Exception {
+        if (protocol.equals("json")) {
+            return parser.parse(inboundText);
+        }
+        BinaryProtocol.Decoded decoded = binaryProtocol.decode(ByteBuffer.wrap(inboundBinary));
+        return parser.parse(decoded.type(), decoded.payload());
+    }
+
+    @Benchmark
+    public Object forward() throws Exception {
+        EncodedFrame frame = frameEncoder.encode(type, forwarded);
+        return protocol.equals("json") ? frame.message() : frame.binaryMessage(binaryProtocol);
+    }
+
+    /**
+     * An audio + video offer as Chrome produces it, with session-specific credentials, fingerprint and SSRCs.
+     */
+    static String chromeOffer() {
+        StringBuilder sdp = new StringBuilder()
+                .append("v=0\r\no=- 8437166339421543861 2 IN IP4 127.0.0.1\r\ns=-\r\nt=0 0\r\n")
+                .append("a=group:BUNDLE 0 1\r\na=extmap-allow-mixed\r\na=msid-semantic: WMS 3b7f0c1e-7d3a-4d8e-9a6f-1c2d3e4f5a6b\r\n");
+        String fingerprint = "a=fingerprint:sha-256 4F:2A:9C:11:7B:E3:58:D0:6A:3C:B2:91:0F:C4:7E:15:88:2D:A6:39:F1:0B:5E:C7:42:9D:6E:03:B8:71:AC:E2\r\n";
+        sdp.append("m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126\r\nc=IN IP4 0.0.0.0\r\na=rtcp:9 IN IP4 0.0.0.0\r\n")
+                .append("a=ice-ufrag:4ZcD\r\na=ice-pwd:2/1muCWoOi3uLifh0NuRHlbd\r\na=ice-options:trickle\r\n").append(fingerprint)
+                .append("a=setup:actpass\r\na=mid:0\r\n")
+                .append("a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level\r\n")
+                .append("a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n")
+                .append("a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n")
+                .append("a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n")
+                .append("a=sendrecv\r\na=msid:3b7f0c1e-7d3a-4d8e-9a6f-1c2d3e4f5a6b 9e8d7c6b-5a4f-4e3d-2c1b-0a9f8e7d6c5b\r\n")
+                .append("a=rtcp-mux\r\na=rtcp-rsize\r\n")
+                .append("a=rtpmap:111 opus/48000/2\r\na=rtcp-fb:111 transport-cc\r\na=fmtp:111 minptime=10;useinbandfec=1\r\n")
+                .append("a=rtpmap:63 red/48000/2\r\na=fmtp:63 111/111\r\na=rtpmap:9 G722/8000\r\na=rtpmap:0 PCMU/8000\r\n")
+                .append("a=rtpmap:8 PCMA/8000\r\na=rtpmap:13 CN/8000\r\na=rtpmap:110 telephone-event/48000\r\n")
+                .append("a=rtpmap:126 telephone-event/8000\r\n")
+                .append("a=ssrc:1493874503 cname:Qm7kT2pV9xYz3LcA\r\na=ssrc:1493874503 msid:3b7f0c1e-7d3a-4d8e-9a6f-1c2d3e4f5a6b 9e8d7c6b-5a4f-4e3d-2c1b-0a9f8e7d6c5b\r\n");
+        sdp.append("m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101 102 103 35 36\r\nc=IN IP4 0.0.0.0\r\na=rtcp:9 IN IP4 0.0.0.0\r\n")
+                .append("a=ice-ufrag:4ZcD\r\na=ice-pwd:2/1muCWoOi3uLifh0NuRHlbd\r\na=ice-options:trickle\r\n").append(fingerprint)
+                .append("a=setup:actpass\r\na=mid:1\r\n")
+                .append("a=extmap:14 urn:ietf:params:rtp-hdrext:toffset\r\n")
+                .append("a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n")
+                .append("a=extmap:13 urn:3gpp:video-orientation\r\n")
+                .append("a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n")
+                .append("a=extmap:5 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay\r\n")
+                .append("a=extmap:6 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type\r\n")
+                .append("a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing\r\n")
+                .append("a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space\r\n")
+                .append("a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n")
+                .append("a=extmap:10 urn:ietf:params:rtp-hdrext:sdes:rtp-stream-id\r\n")
+                .append("a=extmap:11 urn:ietf:params:rtp-hdrext:sdes:repaired-rtp-stream-id\r\n")
+                .append("a=sendrecv\r\na=msid:3b7f0c1e-7d3a-4d8e-9a6f-1c2d3e4f5a6b 0f1e2d3c-4b5a-4968-8776-a5b4c3d2e1f0\r\n")
+                .append("a=rtcp-mux\r\na=rtcp-rsize\r\n");
+        String[][] codecs = {{"96", "VP8/90000", null}, {"98", "VP9/90000", "profile-id=0"}, {"100", "VP9/90000", "profile-id=2"},
+                {"102", "H264/90000", "level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f"},
+                {"35", "AV1/90000", null}};
+        int rtx = 97;
+        for (String[] codec : codecs) {
+            String pt = codec[0];
+            sdp.append("a=rtpmap:").append(pt).append(' ').append(codec[1]).append("\r\n");
+            for (String fb : new String[]{"goog-remb", "transport-cc", "ccm fir", "nack", "nack pli"}) {
+                sdp.append("a=rtcp-fb:").append(pt).append(' ').append(fb).append("\r\n");
+            }
+            if (codec[2] != null) {
+                sdp.append("a=fmtp:").append(pt).append(' ').append(codec[2]).append("\r\n");
+            }
+            int rtxPt = pt.equals("35") ? 36 : rtx;
+            sdp.append("a=rtpmap:").append(rtxPt).append(" rtx/90000\r\na=fmtp:").append(rtxPt).append(" apt=").append(pt).append("\r\n");
+            rtx += 2;
+        }
+        sdp.append("a=ssrc-group:FID 2831942265 3092775133\r\n")
+                .append("a=ssrc:2831942265 cname:Qm7kT2pV9xYz3LcA\r\na=ssrc:2831942265 msid:3b7f0c1e-7d3a-4d8e-9a6f-1c2d3e4f5a6b 0f1e2d3c-4b5a-4968-8776-a5b4c3d2e1f0\r\n")
+                .append("a=ssrc:3092775133 cname:Qm7kT2pV9xYz3LcA\r\na=ssrc:3092775133 msid:3b7f0c1e-7d3a-4d8e-9a6f-1c2d3e4f5a6b 0f1e2d3c-4b5a-4968-8776-a5b4c3d2e1f0\r\n");
+        return sdp.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.ayush.ayush.bench;
+
+import com.ayush.ayush.participant.UserSession;
+import com.ayush.ayush.service.RoomManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leave latency as the server population grows, up to 10k rooms x 10 users.
+ * A leave is an index lookup, so the score should not move with the number of rooms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomManagerBenchmark {
+
+    private static final int USERS_PER_ROOM = 10;
+
+    @Param({"10", "1000", "10000"})
+    int roomCount;
+
+    private RoomManager roomManager;
+    private UserSession[] users;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        roomManager = new RoomManager();
+        users = new UserSession[roomCount * USERS_PER_ROOM];
+        for (int r = 0; r < roomCount; r++) {
+            for (int u = 0; u < USERS_PER_ROOM; u++) {
+                UserSession user = BroadcastBenchmark.newUser("user-" + u, "room-" + r);
+                roomManager.addUserToRoom(user);
+                users[r * USERS_PER_ROOM + u] = user;
+            }
+        }
+    }
+
+    @Benchmark
+    public void leaveAndRejoin() {
+        // Walk the population so every room and user is exercised, not just one hot entry.
+        UserSession user = users[next];
+        next = (next + 1) % users.length;
+        roomManager.removeUserFromRoom(user.getWebSocketSession().getId());
+        roomManager.addUserToRoom(user);
+    }
+}
@@ -0,0 +1,74 @@
+package com.ayush.ayush.bench;
+
+import com.ayush.ayush.participant.UserSession;
+import com.ayush.ayush.service.RoomManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoomManager join and leave with several threads at once, either all in one hot room or spread over many.
+ * The hot-room case serializes on that room's compute; the spread case should scale with the thread count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RoomManagerContentionBenchmark {
+
+    private static final int USERS_PER_THREAD = 16;
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        @Param({"1", "64"})
+        int roomCount;
+
+        RoomManager roomManager;
+
+        @Setup
+        public void setUp() {
+            roomManager = new RoomManager();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Participants {
+
+        UserSession[] users;
+        int next;
+
+        @Setup
+        public void setUp(Shared shared, ThreadParams threadParams) {
+            int thread = threadParams.getThreadIndex();
+            users = new UserSession[USERS_PER_THREAD];
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                String roomId = "room-" + ((thread * USERS_PER_THREAD + i) % shared.roomCount);
+                users[i] = BroadcastBenchmark.newUser("user-" + thread + "-" + i, roomId);
+                shared.roomManager.joinRoom(users[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public void leaveAndJoin(Shared shared, Participants participants) {
+        UserSession user = participants.users[participants.next];
+        participants.next = (participants.next + 1) % USERS_PER_THREAD;
+        shared.roomManager.removeUserFromRoom(user.getWebSocketSession().getId());
+        shared.roomManager.joinRoom(user);
+    }
+}
@@ -0,0 +1,191 @@
+package com.ayush.ayush.cluster;
+
+import com.ayush.ayush.journal.SignalingJournal;
+import com.ayush.ayush.participant.UserSession;
+import com.ayush.ayush.service.IceCandidateBatcher;
+import com.ayush.ayush.service.LargeRoomPresence;
+import com.ayush.ayush.service.RoomManager;
+import com.ayush.ayush.service.SfuService;
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.signaling.OutboundQueue;
+import com.ayush.ayush.signaling.RawJson;
+import com.ayush.ayush.signaling.SignalingMessage;
+import com.ayush.ayush.support.RecordingWebSocketSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterSignalingTest {
+
+    private final InProcessBackplane.Network network = new InProcessBackplane.Network();
+    private final List<Node> nodes = new ArrayList<>();
+
+    private record Node(RoomManager roomManager, ClusterSignaling cluster, SfuService sfuService) {
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(node -> node.cluster().shutdown());
+    }
+
+    @Test
+    void participantsOnDifferentNodesSeeEachOther() {
+        Node n1 = startNode("n1");
+        Node n2 = startNode("n2");
+        Node n3 = startNode("n3");
+        String roomId = "room-1";
+
+        RecordingWebSocketSession alice = join(n1, roomId, "alice");
+        awaitMembers(roomId, "alice");
+        RecordingWebSocketSession bob = join(n2, roomId, "bob");
+        awaitMembers(roomId, "alice", "bob");
+        RecordingWebSocketSession carol = join(n3, roomId, "carol");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> carol.hasReceived("existing_participants", "alice", "bob"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> alice.hasReceived("new_participant", "carol"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> bob.hasReceived("new_participant", "carol"));
+        assertTrue(alice.hasReceived("new_participant", "bob"));
+    }
+
+    @Test
+    void offersReachTheNodeHoldingTheTarget() {
+        Node n1 = startNode("n1");
+        Node n2 = startNode("n2");
+        String roomId = "room-1";
+        RecordingWebSocketSession alice = join(n1, roomId, "alice");
+        RecordingWebSocketSession bob = join(n2, roomId, "bob");
+        awaitMembers(roomId, "alice", "bob");
+
+        n1.sfuService().handleOffer(participant(n1, roomId, "alice"), new SignalingMessage.Offer("bob", sdp("v=0-from-alice")));
+        n2.sfuService().handleAnswer(participant(n2, roomId, "bob"), new SignalingMessage.Answer("alice", sdp("v=0-from-bob")));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> bob.hasReceived("\"offer\"", "v=0-from-alice"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> alice.hasReceived("\"answer\"", "v=0-from-bob"));
+    }
+
+    @Test
+    void presenceFanOutSendsOneEnvelopePerNode() {
+        Node n1 = startNode("n1");
+        Node n2 = startNode("n2");
+        Node n3 = startNode("n3");
+        String roomId = roomOwnedBy(n1, "n1");
+
+        join(n1, roomId, "host");
+        List<RecordingWebSocketSession> n2Guests = IntStream.range(0, 10)
+                .mapToObj(i -> join(n2, roomId, "guest-" + i))
+                .toList();
+        RecordingWebSocketSession n3Guest = join(n3, roomId, "guest-n3");
+        await().atMost(Duration.ofSeconds(5)).until(() -> n1.cluster().getRoomMembers(roomId).size() == 12);
+        await().atMost(Duration.ofSeconds(5)).until(() -> n3Guest.hasReceived("existing_participants"));
+
+        long before = n1.cluster().stats().envelopesSent();
+        n1.sfuService().handleLeave(roomId + "/host");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> n3Guest.hasReceived("participant_left", "host"));
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                n2Guests.stream().allMatch(guest -> guest.hasReceived("participant_left", "host")));
+        assertEquals(2, n1.cluster().stats().envelopesSent() - before);
+    }
+
+    @Test
+    void roomsMoveWhenANodeJoinsOrLeaves() {
+        Node n1 = startNode("n1");
+        Node n2 = startNode("n2");
+        // A room that will belong to n3 once it joins.
+        ConsistentHashRing future = new ConsistentHashRing(Set.of("n1", "n2", "n3"));
+        String roomId = IntStream.range(0, 1000).mapToObj(i -> "room-" + i)
+                .filter(id -> future.ownerOf(id).equals("n3"))
+                .findFirst().orElseThrow();
+
+        RecordingWebSocketSession alice = join(n1, roomId, "alice");
+        RecordingWebSocketSession bob = join(n2, roomId, "bob");
+        awaitMembers(roomId, "alice", "bob");
+        await().atMost(Duration.ofSeconds(5)).until(() -> alice.hasReceived("new_participant", "bob"));
+
+        Node n3 = startNode("n3");
+        await().atMost(Duration.ofSeconds(5)).until(() -> n3.cluster().getRoomMembers(roomId).equals(Set.of("alice", "bob")));
+
+        n1.sfuService().handleOffer(participant(n1, roomId, "alice"), new SignalingMessage.Offer("bob", sdp("after-move")));
+        await().atMost(Duration.ofSeconds(5)).until(() -> bob.hasReceived("\"offer\"", "after-move"));
+        // Moving the room is silent: nobody is announced twice.
+        assertEquals(1, alice.getReceived().stream().filter(frame -> frame.contains("new_participant")).count());
+
+        // When n3 leaves, the room goes back to one of the remaining nodes and keeps working.
+        network.leave("n3");
+        await().atMost(Duration.ofSeconds(5)).until(() -> !n1.cluster().ownerOf(roomId).equals("n3")
+                && !n2.cluster().ownerOf(roomId).equals("n3"));
+        Node owner = n1.cluster().ownerOf(roomId).equals("n1") ? n1 : n2;
+        await().atMost(Duration.ofSeconds(5)).until(() -> owner.cluster().getRoomMembers(roomId).equals(Set.of("alice", "bob")));
+        n2.sfuService().handleAnswer(participant(n2, roomId, "bob"), new SignalingMessage.Answer("alice", sdp("after-leave")));
+        await().atMost(Duration.ofSeconds(5)).until(() -> alice.hasReceived("\"answer\"", "after-leave"));
+    }
+
+    @Test
+    void ringMovesOnlyTheKeysOfTheChangedMember() {
+        ConsistentHashRing three = new ConsistentHashRing(Set.of("n1", "n2", "n3"));
+        ConsistentHashRing four = new ConsistentHashRing(Set.of("n1", "n2", "n3", "n4"));
+        int keys = 10_000;
+        int moved = 0;
+        for (int i = 0; i < keys; i++) {
+            String owner = four.ownerOf("room-" + i);
+            if (!owner.equals(three.ownerOf("room-" + i))) {
+                assertEquals("n4", owner);
+                moved++;
+            }
+        }
+        // Ideally a quarter of the keys move to the new member.
+        assertTrue(moved > keys / 8 && moved < keys / 2, "moved " + moved);
+    }
+
+    private Node startNode(String nodeId) {
+        RoomManager roomManager = new RoomManager();
+        FrameEncoder frameEncoder = new FrameEncoder(new ObjectMapper());
+        ClusterSignaling cluster = new ClusterSignaling(network.join(nodeId), roomManager, frameEncoder);
+        SfuService sfuService = new SfuService(roomManager, frameEncoder, new IceCandidateBatcher(frameEncoder, 0), SignalingJournal.disabled(),
+                LargeRoomPresence.disabled(roomManager, frameEncoder), Optional.of(cluster));
+        Node node = new Node(roomManager, cluster, sfuService);
+        nodes.add(node);
+        // Every node learns about the newcomer asynchronously; wait until all of them agree on who is in the cluster.
+        Set<String> expected = nodes.stream().map(n -> n.cluster().getLocalNodeId()).collect(Collectors.toSet());
+        await().atMost(Duration.ofSeconds(5)).until(() -> nodes.stream().allMatch(n -> n.cluster().getMembers().equals(expected)));
+        return node;
+    }
+
+    private RecordingWebSocketSession join(Node node, String roomId, String userId) {
+        RecordingWebSocketSession session = new RecordingWebSocketSession(roomId + "/" + userId);
+        OutboundQueue outbound = new OutboundQueue(session, Runnable::run, 10_000, Integer.MAX_VALUE);
+        node.sfuService().handleJoin(new UserSession(userId, roomId, session, outbound, false));
+        return session;
+    }
+
+    private UserSession participant(Node node, String roomId, String userId) {
+        return node.roomManager().getParticipant(roomId, userId).orElseThrow();
+    }
+
+    private static RawJson sdp(String sdp) {
+        return new RawJson("\"" + sdp + "\"");
+    }
+
+    private void awaitMembers(String roomId, String... userIds) {
+        await().atMost(Duration.ofSeconds(5)).until(() -> nodes.stream()
+                .anyMatch(node -> node.cluster().getRoomMembers(roomId).equals(Set.of(userIds))));
+    }
+
+    private String roomOwnedBy(Node node, String nodeId) {
+        return IntStream.range(0, 1000).mapToObj(i -> "room-" + i)
+                .filter(id -> node.cluster().ownerOf(id).equals(nodeId))
+                .findFirst().orElseThrow();
+    }
+}
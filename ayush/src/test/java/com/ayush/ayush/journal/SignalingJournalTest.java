@@ -0,0 +1,97 @@
+package com.ayush.ayush.journal;
+
+import com.ayush.ayush.config.SignalingJournalProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignalingJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private SignalingJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.shutdown();
+        }
+    }
+
+    @Test
+    void replaysARoomsTimelineInOrder() throws Exception {
+        journal = new SignalingJournal(properties(DataSize.ofMegabytes(1), 8, 16, Map.of(), Map.of()));
+        journal.received("room-1", "alice", "join", "{\"type\":\"join\"}");
+        journal.joined("room-1", "alice", 0);
+        journal.received("room-2", "carol", "join", "{\"type\":\"join\"}");
+        journal.received("room-1", "alice", "offer", "{\"type\":\"offer\",\"payload\":{\"sdp\":\"v=0 and a long SDP\"}}");
+        journal.forwarded("room-1", "alice", "bob", "offer");
+        journal.broadcast("room-1", "alice", "participant_left", 1);
+        journal.shutdown();
+
+        List<JournalEvent> timeline = JournalReader.read(directory, "room-1");
+        assertEquals(List.of(SignalingJournal.Kind.RECEIVED, SignalingJournal.Kind.JOINED, SignalingJournal.Kind.RECEIVED,
+                SignalingJournal.Kind.FORWARDED, SignalingJournal.Kind.BROADCAST), timeline.stream().map(JournalEvent::kind).toList());
+        assertEquals("{\"type\":\"join\"}", timeline.get(0).payload());
+        assertFalse(timeline.get(0).truncated());
+        // Payloads are cut at 16 characters.
+        assertEquals("{\"type\":\"offer\",", timeline.get(2).payload());
+        assertTrue(timeline.get(2).truncated());
+        assertEquals("bob", timeline.get(3).peerId());
+        assertNull(timeline.get(3).payload());
+        assertEquals(1, timeline.get(4).count());
+        for (int i = 1; i < timeline.size(); i++) {
+            assertFalse(timeline.get(i).time().isBefore(timeline.get(i - 1).time()));
+        }
+        assertEquals(6, JournalReader.read(directory, null).size());
+    }
+
+    @Test
+    void samplingAndTruncationFollowTypeAndRoomOverrides() throws Exception {
+        journal = new SignalingJournal(properties(DataSize.ofMegabytes(1), 8, 4,
+                Map.of("ice_candidate", new SignalingJournalProperties.Policy(0.0, null)),
+                Map.of("debug-room", new SignalingJournalProperties.Policy(1.0, 1000))));
+        journal.received("room-1", "alice", "ice_candidate", "{\"candidate\":\"a\"}");
+        journal.received("debug-room", "alice", "ice_candidate", "{\"candidate\":\"a\"}");
+        journal.shutdown();
+
+        List<JournalEvent> events = JournalReader.read(directory, null);
+        assertEquals(1, events.size());
+        assertEquals("{\"candidate\":\"a\"}", events.get(0).payload());
+    }
+
+    @Test
+    void rollsSegmentsAndKeepsOnlyTheNewest() throws Exception {
+        journal = new SignalingJournal(properties(DataSize.ofKilobytes(4), 3, 512, Map.of(), Map.of()));
+        String payload = "x".repeat(400);
+        for (int i = 0; i < 200; i++) {
+            journal.received("room-1", "user-" + i, "offer", payload);
+        }
+        journal.shutdown();
+
+        assertEquals(3, JournalWriter.segments(directory).size());
+        List<JournalEvent> kept = JournalReader.read(directory, "room-1");
+        assertTrue(kept.size() > 0 && kept.size() < 200);
+        assertEquals("user-199", kept.get(kept.size() - 1).userId());
+        assertEquals(200, journal.getWritten() + journal.getDropped());
+    }
+
+    private SignalingJournalProperties properties(DataSize segmentSize, int maxSegments, int payloadLimit,
+                                                  Map<String, SignalingJournalProperties.Policy> types,
+                                                  Map<String, SignalingJournalProperties.Policy> rooms) {
+        return new SignalingJournalProperties(true, directory, segmentSize, maxSegments, 1024, Duration.ofMillis(5),
+                1.0, payloadLimit, types, rooms);
+    }
+}
@@ -0,0 +1,169 @@
+package com.ayush.ayush.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * One scripted participant on a real WebSocket connection to /signaling.
+ * It answers every offer it receives and trickles ICE candidates after each offer/answer exchange, the way
+ * a browser would, and reports what it observes to the shared {@link LoadMetrics}.
+ * Outgoing offers and answers carry their send time, so the receiver can measure the forward latency.
+ */
+class LoadClient implements WebSocket.Listener {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String SDP_PADDING = "a=candidate:1 1 udp 2130706431 10.0.0.1 50000 typ host\r\n".repeat(20);
+
+    private final LoadMetrics metrics;
+    private final String roomId;
+    private final String userId;
+    private final int icePerPeer;
+    private final CompletableFuture<List<String>> joined = new CompletableFuture<>();
+    private final StringBuilder partial = new StringBuilder();
+
+    private WebSocket webSocket;
+    // The JDK client allows one outstanding send per socket, so sends are chained.
+    private CompletableFuture<?> sends = CompletableFuture.completedFuture(null);
+    private volatile long joinSentAt;
+    private volatile boolean leaving;
+
+    LoadClient(LoadMetrics metrics, String roomId, String userId, int icePerPeer) {
+        this.metrics = metrics;
+        this.roomId = roomId;
+        this.userId = userId;
+        this.icePerPeer = icePerPeer;
+    }
+
+    CompletableFuture<LoadClient> connect(HttpClient httpClient, URI uri) {
+        return httpClient.newWebSocketBuilder().buildAsync(uri, this).thenApply(ws -> {
+            this.webSocket = ws;
+            return this;
+        });
+    }
+
+    /**
+     * Sends "join"; completes with the existing participants once the roster arrives.
+     */
+    CompletableFuture<List<String>> join() {
+        joinSentAt = System.nanoTime();
+        send("join", Map.of("roomId", roomId, "userId", userId));
+        return joined;
+    }
+
+    void offer(String remoteUserId) {
+        send("offer", Map.of("remoteUserId", remoteUserId, "sdp", stampedSdp()));
+    }
+
+    CompletableFuture<?> leave() {
+        leaving = true;
+        synchronized (this) {
+            sends = sends.thenCompose(v -> webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "bye"));
+            return sends;
+        }
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String text = partial.toString();
+            partial.setLength(0);
+            try {
+                handle(objectMapper.readTree(text));
+            } catch (Exception e) {
+                metrics.error("bad frame for " + userId + ": " + e.getMessage());
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        if (!leaving) {
+            metrics.error("server closed " + userId + " with " + statusCode + " " + reason);
+        }
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        if (!leaving) {
+            metrics.error("socket error for " + userId + ": " + error);
+        }
+    }
+
+    private void handle(JsonNode message) {
+        metrics.received();
+        JsonNode payload = message.path("payload");
+        String from = payload.path("userId").asText();
+        switch (message.path("type").asText()) {
+            case "existing_participants" -> {
+                metrics.recordJoin(System.nanoTime() - joinSentAt);
+                List<String> existing = new ArrayList<>();
+                payload.path("userIds").forEach(id -> existing.add(id.asText()));
+                joined.complete(existing);
+            }
+            case "offer" -> {
+                metrics.recordForward(System.nanoTime() - sentAt(payload));
+                send("answer", Map.of("remoteUserId", from, "sdp", stampedSdp()));
+                trickleIce(from);
+            }
+            case "answer" -> {
+                metrics.recordForward(System.nanoTime() - sentAt(payload));
+                trickleIce(from);
+            }
+            case "ice_candidate" -> metrics.iceReceived();
+            case "new_participant" -> metrics.newParticipantReceived();
+            case "participant_left" -> metrics.participantLeftReceived();
+            // The resume token; these clients never reconnect.
+            case "session" -> {
+            }
+            default -> metrics.error("unexpected frame type for " + userId + ": " + message.path("type").asText());
+        }
+    }
+
+    private void trickleIce(String remoteUserId) {
+        for (int i = 0; i < icePerPeer; i++) {
+            send("ice_candidate", Map.of("remoteUserId", remoteUserId, "candidate", Map.of(
+                    "candidate", "candidate:" + i + " 1 udp 2130706431 10.0.0." + i + " 50000 typ host",
+                    "sdpMid", "0", "sdpMLineIndex", 0)));
+        }
+    }
+
+    private static String stampedSdp() {
+        return "ts=" + System.nanoTime() + "\r\nv=0\r\n" + SDP_PADDING;
+    }
+
+    private static long sentAt(JsonNode payload) {
+        String sdp = payload.path("sdp").asText();
+        return Long.parseLong(sdp.substring(3, sdp.indexOf('\r')));
+    }
+
+    private void send(String type, Object payload) {
+        String text;
+        try {
+            text = objectMapper.writeValueAsString(Map.of("type", type, "payload", payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        metrics.sent();
+        synchronized (this) {
+            sends = sends.thenCompose(v -> webSocket.sendText(text, true))
+                    .exceptionally(e -> {
+                        metrics.error("send failed for " + userId + ": " + e);
+                        return null;
+                    });
+        }
+    }
+}
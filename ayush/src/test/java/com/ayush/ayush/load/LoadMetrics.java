@@ -0,0 +1,64 @@
+package com.ayush.ayush.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Everything the load clients observe: latency histograms (in microseconds) and message and error counts.
+ */
+class LoadMetrics {
+
+    private static final long MAX_TRACKED_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int MAX_KEPT_ERRORS = 20;
+
+    final Histogram joinLatency = new ConcurrentHistogram(MAX_TRACKED_MICROS, 3);
+    final Histogram forwardLatency = new ConcurrentHistogram(MAX_TRACKED_MICROS, 3);
+
+    final LongAdder sent = new LongAdder();
+    final LongAdder received = new LongAdder();
+    final LongAdder iceReceived = new LongAdder();
+    final LongAdder newParticipantReceived = new LongAdder();
+    final LongAdder participantLeftReceived = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final Queue<String> firstErrors = new ConcurrentLinkedQueue<>();
+
+    void recordJoin(long nanos) {
+        joinLatency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_TRACKED_MICROS));
+    }
+
+    void recordForward(long nanos) {
+        forwardLatency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_TRACKED_MICROS));
+    }
+
+    void sent() {
+        sent.increment();
+    }
+
+    void received() {
+        received.increment();
+    }
+
+    void iceReceived() {
+        iceReceived.increment();
+    }
+
+    void newParticipantReceived() {
+        newParticipantReceived.increment();
+    }
+
+    void participantLeftReceived() {
+        participantLeftReceived.increment();
+    }
+
+    void error(String description) {
+        errors.increment();
+        if (firstErrors.size() < MAX_KEPT_ERRORS) {
+            firstErrors.add(description);
+        }
+    }
+}
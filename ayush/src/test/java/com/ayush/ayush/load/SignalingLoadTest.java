@@ -0,0 +1,204 @@
+package com.ayush.ayush.load;
+
+import com.ayush.ayush.support.StubJanusServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the whole application with real WebSocket clients: the app runs on H2 with a stub Janus, every room is
+ * created through the REST API, and then each room's participants join one after another, offer to everyone
+ * already there, get answered, trickle ICE and finally leave. Rooms run concurrently.
+ * <p>
+ * Reports p50/p99/p999 for join -> existing_participants and offer/answer -> forwarded, plus message throughput
+ * and errors, and fails if a p99 exceeds its budget. Only runs with the "load" profile:
+ * <pre>mvn -Pload test -Dload.rooms=500 -Dload.users-per-room=6 -Dload.budget.join-p99-ms=200</pre>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "meeting.warm-pool.size=0",
+        "signaling.journal.enabled=true",
+        "signaling.journal.directory=target/load-journal",
+        // The per-message INFO logs would make the console the bottleneck.
+        "logging.level.com.ayush=WARN"
+})
+class SignalingLoadTest {
+
+    private static final int ROOMS = Integer.getInteger("load.rooms", 200);
+    private static final int USERS_PER_ROOM = Integer.getInteger("load.users-per-room", 5);
+    private static final int WARMUP_ROOMS = Integer.getInteger("load.warmup-rooms", 20);
+    private static final int ICE_PER_PEER = Integer.getInteger("load.ice-per-peer", 4);
+    private static final long JOIN_P99_BUDGET_MS = Long.getLong("load.budget.join-p99-ms", 500);
+    private static final long FORWARD_P99_BUDGET_MS = Long.getLong("load.budget.forward-p99-ms", 250);
+    private static final Duration TIMEOUT = Duration.ofSeconds(Long.getLong("load.timeout-s", 120));
+
+    private static final StubJanusServer janus = startJanus();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private LoadMetrics metrics = new LoadMetrics();
+    private final ExecutorService rooms = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient = HttpClient.newBuilder().executor(rooms).build();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void janusProperties(DynamicPropertyRegistry registry) {
+        registry.add("janus.url", janus::getUrl);
+    }
+
+    @AfterAll
+    static void stopJanus() {
+        janus.close();
+    }
+
+    @Test
+    void signalingStaysWithinLatencyBudget() throws Exception {
+        // A short unmeasured round first, so the numbers are not those of a cold JIT.
+        run(createRooms(WARMUP_ROOMS));
+        metrics = new LoadMetrics();
+        double seconds = run(createRooms(ROOMS));
+
+        report(seconds);
+        long pairs = (long) ROOMS * USERS_PER_ROOM * (USERS_PER_ROOM - 1) / 2;
+        assertEquals(0, metrics.errors.sum(), "errors: " + metrics.firstErrors);
+        assertEquals(pairs, metrics.newParticipantReceived.sum(), "new_participant announcements");
+        assertTrue(p99Millis(metrics.joinLatency) <= JOIN_P99_BUDGET_MS,
+                "join p99 " + p99Millis(metrics.joinLatency) + "ms exceeds the " + JOIN_P99_BUDGET_MS + "ms budget");
+        assertTrue(p99Millis(metrics.forwardLatency) <= FORWARD_P99_BUDGET_MS,
+                "forward p99 " + p99Millis(metrics.forwardLatency) + "ms exceeds the " + FORWARD_P99_BUDGET_MS + "ms budget");
+    }
+
+    /**
+     * Runs the full scenario in the given rooms and returns how long it took, in seconds.
+     */
+    private double run(List<String> roomIds) throws Exception {
+        List<LoadClient> clients = new ArrayList<>();
+        long pairs = (long) roomIds.size() * USERS_PER_ROOM * (USERS_PER_ROOM - 1) / 2;
+
+        long start = System.nanoTime();
+        List<Future<List<LoadClient>>> scripts = new ArrayList<>();
+        for (String roomId : roomIds) {
+            scripts.add(rooms.submit(() -> joinAndNegotiate(roomId)));
+        }
+        for (Future<List<LoadClient>> script : scripts) {
+            clients.addAll(script.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        }
+        // Every pair does one offer and one answer, and each side then trickles its candidates.
+        awaitCount(() -> metrics.forwardLatency.getTotalCount(), 2 * pairs);
+        awaitCount(metrics.iceReceived::sum, 2 * pairs * ICE_PER_PEER);
+
+        // Everyone leaves at once, so participant_left is best effort here: a recipient may be closing too.
+        CompletableFuture.allOf(clients.stream().map(LoadClient::leave).toArray(CompletableFuture[]::new))
+                .get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private List<String> createRooms(int count) throws Exception {
+        List<Future<String>> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            created.add(rooms.submit(() -> {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/meetings/create"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"description\":\"load test\"}"))
+                        .build();
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, response.statusCode(), response.body());
+                return objectMapper.readTree(response.body()).path("friendlyRoomId").asText();
+            }));
+        }
+        List<String> roomIds = new ArrayList<>();
+        for (Future<String> roomId : created) {
+            roomIds.add(roomId.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        }
+        return roomIds;
+    }
+
+    // Participants join one at a time, like people trickling into a meeting; each offers to everyone already there.
+    private List<LoadClient> joinAndNegotiate(String roomId) throws Exception {
+        URI uri = URI.create("ws://localhost:" + port + "/signaling");
+        List<LoadClient> participants = new ArrayList<>();
+        for (int u = 0; u < USERS_PER_ROOM; u++) {
+            LoadClient client = new LoadClient(metrics, roomId, "user-" + u, ICE_PER_PEER)
+                    .connect(httpClient, uri)
+                    .get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            participants.add(client);
+            List<String> existing = client.join().get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            existing.forEach(client::offer);
+        }
+        return participants;
+    }
+
+    private void awaitCount(LongSupplier count, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (count.getAsLong() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        if (count.getAsLong() < expected) {
+            metrics.error("timed out with " + count.getAsLong() + " of " + expected + " expected messages");
+        }
+    }
+
+    private void report(double seconds) {
+        System.out.printf("%n=== Signaling load: %d rooms x %d participants, %d ICE candidates per peer ===%n",
+                ROOMS, USERS_PER_ROOM, ICE_PER_PEER);
+        printLatency("join -> existing_participants", metrics.joinLatency);
+        printLatency("offer/answer -> forwarded", metrics.forwardLatency);
+        System.out.printf("presence: %d new_participant, %d participant_left%n",
+                metrics.newParticipantReceived.sum(), metrics.participantLeftReceived.sum());
+        System.out.printf("messages: %d sent, %d received in %.1fs (%.0f msg/s)%n", metrics.sent.sum(),
+                metrics.received.sum(), seconds, (metrics.sent.sum() + metrics.received.sum()) / seconds);
+        System.out.printf("errors: %d %s%n%n", metrics.errors.sum(), metrics.firstErrors);
+    }
+
+    private static void printLatency(String name, Histogram histogram) {
+        System.out.printf("%-32s n=%-8d p50=%7.2fms p99=%7.2fms p999=%7.2fms max=%7.2fms%n", name,
+                histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double p99Millis(Histogram histogram) {
+        return histogram.getValueAtPercentile(99) / 1000.0;
+    }
+
+    private static StubJanusServer startJanus() {
+        try {
+            return new StubJanusServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.ayush.ayush.load;
+
+import com.ayush.ayush.support.StubJanusServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures how long the packaged application takes from process start until the first participant's "join" gets
+ * its roster, with each fast-startup change added on top of the previous one: the fast-startup Spring profile
+ * (deferred repositories, no schema update), Spring AOT, and the AppCDS archive. Every variant runs the jar
+ * extracted by the "fast-startup" Maven profile on H2 with a stub Janus, and reports its median over several runs
+ * and what it saves against the baseline. Only runs with the "startup" profile, after packaging:
+ * <pre>mvn -Pfast-startup package -DskipTests && mvn -Pstartup test -Dstartup.runs=5</pre>
+ */
+@Tag("startup")
+class StartupTimeTest {
+
+    private static final Path DIRECTORY = Path.of(System.getProperty("startup.directory", "target/fast-startup"));
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final Duration TIMEOUT = Duration.ofSeconds(Long.getLong("startup.timeout-s", 120));
+
+    private static StubJanusServer janus;
+    private static Path jar;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        jar = DIRECTORY.resolve("ayush-0.0.1-SNAPSHOT.jar");
+        assumeTrue(Files.exists(jar), "No extracted jar in " + DIRECTORY + ", run mvn -Pfast-startup package first");
+        janus = new StubJanusServer();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (janus != null) {
+            janus.close();
+        }
+    }
+
+    @Test
+    void reportsTimeToFirstJoin() throws Exception {
+        List<String> fastStartup = List.of("-Dspring.profiles.active=fast-startup");
+        List<String> aot = concat(fastStartup, "-Dspring.aot.enabled=true");
+        // -Xshare:on fails instead of silently starting without the archive if it does not match this JVM.
+        List<String> cds = concat(aot, "-XX:SharedArchiveFile=" + DIRECTORY.resolve("app.jsa").toAbsolutePath(), "-Xshare:on");
+
+        Map<String, Long> medians = new LinkedHashMap<>();
+        medians.put("baseline", median(List.of()));
+        medians.put("+ deferred JPA, no schema update", median(fastStartup));
+        if (hasAotClasses()) {
+            medians.put("+ Spring AOT", median(aot));
+            if (Files.exists(DIRECTORY.resolve("app.jsa"))) {
+                medians.put("+ AppCDS", median(cds));
+            }
+        }
+
+        long baseline = medians.get("baseline");
+        long previous = baseline;
+        System.out.printf("%n=== Startup: process start -> first join (median of %d) ===%n", RUNS);
+        for (Map.Entry<String, Long> variant : medians.entrySet()) {
+            System.out.printf("%-34s %6d ms   step %6d ms   total %6d ms%n", variant.getKey(), variant.getValue(),
+                    previous - variant.getValue(), baseline - variant.getValue());
+            previous = variant.getValue();
+        }
+    }
+
+    private long median(List<String> jvmOptions) throws Exception {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            millis[i] = timeToFirstJoin(jvmOptions);
+        }
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+
+    private long timeToFirstJoin(List<String> jvmOptions) throws Exception {
+        int port = freePort();
+        Path logs = Files.createDirectories(Path.of("target/startup")).toAbsolutePath();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        // Run from the extracted directory with the jar named as in the training run, so the CDS classpath matches.
+        // H2 is only on the test classpath; the jar's manifest brings in everything else from lib/.
+        command.addAll(List.of("-cp", jar.getFileName() + File.pathSeparator + h2Jar(), "com.ayush.ayush.ZoomApplication",
+                "--server.port=" + port,
+                "--janus.url=" + janus.getUrl(),
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--meeting.warm-pool.size=0",
+                "--signaling.journal.enabled=true",
+                "--signaling.journal.directory=" + logs.resolve("journal-" + port),
+                "--logging.level.root=WARN"));
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(DIRECTORY.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(logs.resolve("app-" + port + ".log").toFile());
+        builder.environment().put("DB_URL", "jdbc:h2:mem:startup;MODE=MySQL");
+        builder.environment().put("DB_USER", "sa");
+        builder.environment().put("DB_PASS", "");
+
+        long startedAt = System.nanoTime();
+        Process process = builder.start();
+        try {
+            URI uri = URI.create("ws://localhost:" + port + "/signaling");
+            long deadline = startedAt + TIMEOUT.toNanos();
+            while (true) {
+                assertTrue(process.isAlive(), "The application exited, see " + logs.resolve("app-" + port + ".log"));
+                assertTrue(System.nanoTime() < deadline, "No join within " + TIMEOUT);
+                try {
+                    LoadClient client = new LoadClient(new LoadMetrics(), "startup", "user-0", 0)
+                            .connect(httpClient, uri)
+                            .get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                    client.join().get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                } catch (Exception notListeningYet) {
+                    Thread.sleep(10);
+                }
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static boolean hasAotClasses() throws IOException {
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            return jarFile.getEntry("com/ayush/ayush/ZoomApplication__ApplicationContextInitializer.class") != null;
+        }
+    }
+
+    private static String h2Jar() {
+        return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .filter(entry -> Path.of(entry).getFileName().toString().startsWith("h2-"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("H2 is not on the test classpath"));
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> concat(List<String> options, String... more) {
+        List<String> all = new ArrayList<>(options);
+        all.addAll(List.of(more));
+        return all;
+    }
+}
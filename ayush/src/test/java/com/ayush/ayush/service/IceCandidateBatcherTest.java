@@ -0,0 +1,147 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.journal.SignalingJournal;
+import com.ayush.ayush.participant.UserSession;
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.signaling.OutboundQueue;
+import com.ayush.ayush.signaling.RawJson;
+import com.ayush.ayush.signaling.SignalingMessage;
+import com.ayush.ayush.support.RecordingWebSocketSession;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IceCandidateBatcherTest {
+
+    private static final String ROOM = "room-1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RoomManager roomManager = new RoomManager();
+    private final FrameEncoder frameEncoder = new FrameEncoder(objectMapper);
+    private IceCandidateBatcher batcher;
+    private SfuService sfuService;
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void candidatesWithinTheWindowGoOutAsOneFrame() throws Exception {
+        start(100);
+        UserSession alice = join("alice", false);
+        UserSession bob = join("bob", true);
+
+        for (int i = 0; i < 3; i++) {
+            sfuService.handleIceCandidate(alice, new SignalingMessage.IceCandidate("bob", candidate(i)));
+        }
+        sfuService.handleIceCandidates(alice, new SignalingMessage.IceCandidates("bob", List.of(candidate(3), candidate(4))));
+        assertTrue(frames(bob, "ice_candidates").isEmpty());
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !frames(bob, "ice_candidates").isEmpty());
+        List<JsonNode> batches = frames(bob, "ice_candidates");
+        assertEquals(1, batches.size());
+        assertEquals("alice", batches.get(0).path("userId").asText());
+        assertEquals(List.of("c0", "c1", "c2", "c3", "c4"), candidates(batches.get(0)));
+        assertTrue(frames(bob, "ice_candidate").isEmpty());
+    }
+
+    @Test
+    void anOfferOrAnswerFlushesPendingCandidatesAheadOfIt() throws Exception {
+        // Long enough that only the offer or answer can flush.
+        start(60_000);
+        UserSession alice = join("alice", true);
+        UserSession bob = join("bob", true);
+        UserSession carol = join("carol", true);
+
+        sfuService.handleIceCandidate(alice, new SignalingMessage.IceCandidate("bob", candidate(0)));
+        sfuService.handleIceCandidate(alice, new SignalingMessage.IceCandidate("bob", candidate(1)));
+        sfuService.handleOffer(alice, new SignalingMessage.Offer("bob", new RawJson("\"offer-sdp\"")));
+        sfuService.handleIceCandidate(carol, new SignalingMessage.IceCandidate("alice", candidate(2)));
+        sfuService.handleAnswer(carol, new SignalingMessage.Answer("alice", new RawJson("\"answer-sdp\"")));
+
+        assertEquals(List.of("ice_candidates", "offer"), types(bob));
+        assertEquals(List.of("c0", "c1"), candidates(frames(bob, "ice_candidates").get(0)));
+        assertEquals(List.of("ice_candidates", "answer"), types(alice));
+        assertEquals(List.of("c2"), candidates(frames(alice, "ice_candidates").get(0)));
+    }
+
+    @Test
+    void targetsThatDidNotOptInGetOneFramePerCandidate() throws Exception {
+        start(60_000);
+        UserSession alice = join("alice", false);
+        UserSession bob = join("bob", true);
+
+        for (int i = 0; i < 3; i++) {
+            sfuService.handleIceCandidate(bob, new SignalingMessage.IceCandidate("alice", candidate(i)));
+        }
+        sfuService.handleIceCandidates(bob, new SignalingMessage.IceCandidates("alice", List.of(candidate(3), candidate(4))));
+
+        List<JsonNode> singles = frames(alice, "ice_candidate");
+        assertEquals(5, singles.size());
+        assertEquals("c4", singles.get(4).path("candidate").path("candidate").asText());
+        assertTrue(frames(alice, "ice_candidates").isEmpty());
+    }
+
+    private void start(long windowMillis) {
+        batcher = new IceCandidateBatcher(frameEncoder, windowMillis);
+        sfuService = new SfuService(roomManager, frameEncoder, batcher, SignalingJournal.disabled(),
+                LargeRoomPresence.disabled(roomManager, frameEncoder), Optional.empty());
+    }
+
+    private UserSession join(String userId, boolean iceBatching) {
+        RecordingWebSocketSession session = new RecordingWebSocketSession(ROOM + "/" + userId);
+        OutboundQueue outbound = new OutboundQueue(session, Runnable::run, 10_000, Integer.MAX_VALUE);
+        UserSession user = new UserSession(userId, ROOM, session, outbound, iceBatching);
+        sfuService.handleJoin(user);
+        // Only what the test sends matters, not the join announcements.
+        session.getReceived().clear();
+        return user;
+    }
+
+    private static RawJson candidate(int i) {
+        return new RawJson("{\"candidate\":\"c" + i + "\"}");
+    }
+
+    private List<String> types(UserSession user) throws Exception {
+        List<String> types = new ArrayList<>();
+        for (String frame : received(user)) {
+            String type = objectMapper.readTree(frame).path("type").asText();
+            if (!type.equals("new_participant")) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    private List<JsonNode> frames(UserSession user, String type) throws Exception {
+        List<JsonNode> payloads = new ArrayList<>();
+        for (String frame : received(user)) {
+            JsonNode node = objectMapper.readTree(frame);
+            if (node.path("type").asText().equals(type)) {
+                payloads.add(node.path("payload"));
+            }
+        }
+        return payloads;
+    }
+
+    private static List<String> received(UserSession user) {
+        return ((RecordingWebSocketSession) user.getWebSocketSession()).getReceived();
+    }
+
+    private static List<String> candidates(JsonNode batch) {
+        List<String> candidates = new ArrayList<>();
+        batch.path("candidates").forEach(candidate -> candidates.add(candidate.path("candidate").asText()));
+        return candidates;
+    }
+}
@@ -0,0 +1,93 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.support.InMemoryIdBlockSource;
+import com.ayush.ayush.util.FeistelPermutation;
+import com.ayush.ayush.util.RoomUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdAllocatorTest {
+
+    private static final String FRIENDLY_ID_CHARS = "ABCDEFGHJKMNPQRSTUVWXYZ23456789";
+
+    @Test
+    void millionsOfFriendlyIdsAcrossInstancesNeverRepeat() throws Exception {
+        // Two "instances" leasing from one shared sequence, four threads each.
+        InMemoryIdBlockSource database = new InMemoryIdBlockSource();
+        IdAllocator first = new IdAllocator(database, 1000);
+        IdAllocator second = new IdAllocator(database, 1000);
+        int threads = 8;
+        int perThread = 500_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        @SuppressWarnings("unchecked")
+        Future<long[]>[] results = new Future[threads];
+        for (int t = 0; t < threads; t++) {
+            IdAllocator allocator = t % 2 == 0 ? first : second;
+            results[t] = executor.submit(() -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = decode(allocator.nextFriendlyId());
+                }
+                return ids;
+            });
+        }
+        long[] all = new long[threads * perThread];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(results[t].get(), 0, all, t * perThread, perThread);
+        }
+        executor.shutdown();
+
+        assertNoDuplicates(all);
+        assertTrue(database.getLeases() <= all.length / 1000 + 4);
+    }
+
+    @Test
+    void janusRoomIdsNeverRepeatAndStayAboveTheLegacyRange() {
+        IdAllocator allocator = new IdAllocator(new InMemoryIdBlockSource(), 1000);
+        long[] ids = new long[1_000_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = allocator.nextJanusRoomId();
+            assertTrue(ids[i] >= 1_000_000L);
+        }
+        assertNoDuplicates(ids);
+    }
+
+    @Test
+    void permutationIsABijectionOnASmallDomain() {
+        FeistelPermutation permutation = new FeistelPermutation(31 * 31 * 31, 42L);
+        long[] images = new long[31 * 31 * 31];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = permutation.permute(i);
+        }
+        Arrays.sort(images);
+        for (int i = 0; i < images.length; i++) {
+            assertEquals(i, images[i]);
+        }
+    }
+
+    private static void assertNoDuplicates(long[] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            assertTrue(sorted[i] != sorted[i - 1], "Duplicate id " + sorted[i]);
+        }
+    }
+
+    private static long decode(String friendlyId) {
+        assertEquals(6, friendlyId.length());
+        long value = 0;
+        for (char c : friendlyId.toCharArray()) {
+            value = value * FRIENDLY_ID_CHARS.length() + FRIENDLY_ID_CHARS.indexOf(c);
+        }
+        assertTrue(value < RoomUtil.FRIENDLY_ID_SPACE);
+        return value;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.support.InMemoryIdBlockSource;
+import com.ayush.ayush.support.StubJanusServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JanusNodesTest {
+
+    private final JanusMetrics janusMetrics = new JanusMetrics(new SimpleMeterRegistry());
+    private final List<StubJanusServer> servers = new ArrayList<>();
+    private JanusNodes nodes;
+    private JanusService janusService;
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(StubJanusServer::close);
+    }
+
+    @Test
+    void newRoomsGoToTheLeastLoadedNodeAndAreDestroyedThere() throws Exception {
+        StubJanusServer a = server();
+        StubJanusServer b = server();
+        a.getRooms().addAll(List.of(1L, 2L, 3L));
+        start(JanusServiceTest.newNode("a", a, 0, janusMetrics), JanusServiceTest.newNode("b", b, 0, janusMetrics));
+        nodes.checkHealth();
+
+        List<JanusService.JanusRoom> created = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            created.add(janusService.createRoom().block());
+        }
+
+        assertEquals(List.of("b", "b", "b", "a"), created.stream().map(JanusService.JanusRoom::node).toList());
+        assertTrue(b.getRooms().contains(created.get(0).roomId()));
+        assertTrue(a.getRooms().contains(created.get(3).roomId()));
+        nodes.checkHealth();
+        assertEquals(4, nodes.get("a").orElseThrow().getRooms());
+        assertEquals(3, nodes.get("b").orElseThrow().getRooms());
+
+        janusService.destroyRoom("b", created.get(0).roomId()).block();
+        assertFalse(b.getRooms().contains(created.get(0).roomId()));
+        assertEquals(4, a.getRooms().size());
+    }
+
+    @Test
+    void fullDrainedAndFailingNodesTakeNoNewRooms() throws Exception {
+        StubJanusServer small = server();
+        StubJanusServer drained = server();
+        StubJanusServer failing = server();
+        start(JanusServiceTest.newNode("small", small, 1, janusMetrics),
+                JanusServiceTest.newNode("drained", drained, 0, janusMetrics),
+                JanusServiceTest.newNode("failing", failing, 0, janusMetrics));
+        nodes.setDraining("drained", true);
+        failing.close();
+        nodes.checkHealth();
+        assertTrue(nodes.get("failing").orElseThrow().isHealthy());
+        nodes.checkHealth();
+        assertFalse(nodes.get("failing").orElseThrow().isHealthy());
+
+        assertEquals("small", janusService.createRoom().block().node());
+        assertThrows(IllegalStateException.class, () -> janusService.createRoom().block());
+
+        nodes.setDraining("drained", false);
+        assertEquals("drained", janusService.createRoom().block().node());
+        assertEquals(1, small.getRooms().size());
+    }
+
+    private StubJanusServer server() throws Exception {
+        StubJanusServer server = new StubJanusServer();
+        servers.add(server);
+        return server;
+    }
+
+    private void start(JanusNode... janusNodes) {
+        nodes = new JanusNodes(List.of(janusNodes), "default", 2);
+        janusService = new JanusService(nodes, new IdAllocator(new InMemoryIdBlockSource(), 100), janusMetrics, 10);
+    }
+}
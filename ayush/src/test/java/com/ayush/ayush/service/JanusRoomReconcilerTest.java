@@ -0,0 +1,114 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.repository.MeetingRoomRepository;
+import com.ayush.ayush.support.InMemoryIdBlockSource;
+import com.ayush.ayush.support.StubJanusServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JanusRoomReconcilerTest {
+
+    private final MeetingRoomRepository repository = mock(MeetingRoomRepository.class);
+    private final RoomManager roomManager = mock(RoomManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StubJanusServer janus;
+    private JanusService janusService;
+    private JanusRoomReconciler reconciler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        janus = new StubJanusServer();
+        JanusMetrics janusMetrics = new JanusMetrics(meterRegistry);
+        JanusNodes nodes = new JanusNodes(List.of(JanusServiceTest.newNode("default", janus, 0, janusMetrics)), "default", 2);
+        janusService = new JanusService(nodes, new IdAllocator(new InMemoryIdBlockSource(), 100), janusMetrics, 10);
+        when(roomManager.getRoomIds()).thenReturn(Set.of());
+        reconciler = new JanusRoomReconciler(janusService, repository, mock(MeetingRoomWriteBehind.class), roomManager,
+                new RoomLookupCache(repository, 100, Duration.ofMinutes(5), Duration.ofSeconds(30)), meterRegistry,
+                true, Duration.ofDays(7), 100, 2, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        janus.close();
+    }
+
+    @Test
+    void expiredRoomsAreDeletedAndTheirJanusRoomsDestroyedUnlessOccupied() {
+        MeetingRoom idle = room("idle");
+        MeetingRoom busy = room("busy");
+        MeetingRoom lookedUp = room("looked-up");
+        when(roomManager.getRoomIds()).thenReturn(Set.of("busy"));
+        reconciler.recordActivity("looked-up");
+        when(repository.findExpired(any(), any())).thenReturn(List.of(idle, busy, lookedUp));
+        when(repository.deleteExpired(eq(List.of("idle")), any())).thenReturn(1);
+
+        reconciler.reconcile();
+
+        verify(repository).touch(argThat(ids -> ids.containsAll(List.of("busy", "looked-up"))), any());
+        assertFalse(janus.getRooms().contains(idle.getJanusRoomId()));
+        assertTrue(janus.getRooms().contains(busy.getJanusRoomId()));
+        assertTrue(janus.getRooms().contains(lookedUp.getJanusRoomId()));
+        assertEquals(1, reclaimed("expired"));
+    }
+
+    @Test
+    void anExpiredRoomUsedBeforeItsDeleteKeepsItsJanusRoom() {
+        MeetingRoom first = room("first");
+        MeetingRoom second = room("second");
+        when(repository.findExpired(any(), any())).thenReturn(List.of(first, second));
+        // "second" was joined between the query and the delete, so the guarded delete skipped it.
+        when(repository.deleteExpired(anyCollection(), any())).thenReturn(1);
+        when(repository.findAllById(any())).thenReturn(List.of(second));
+        when(repository.findExistingJanusRoomIds(anyCollection())).thenReturn(List.of(second.getJanusRoomId()));
+
+        reconciler.reconcile();
+
+        assertFalse(janus.getRooms().contains(first.getJanusRoomId()));
+        assertTrue(janus.getRooms().contains(second.getJanusRoomId()));
+    }
+
+    @Test
+    void emptyJanusRoomsWithoutAMeetingAreDestroyedOnTheSecondPass() {
+        long orphan = janusService.createRoom().block().roomId();
+        long occupied = janusService.createRoom().block().roomId();
+        janus.setParticipants(occupied, 3);
+        // Not allocated by this service, so never touched.
+        janus.getRooms().add(1234L);
+        when(repository.findExistingJanusRoomIds(anyCollection())).thenReturn(List.of());
+
+        reconciler.reconcile();
+        assertTrue(janus.getRooms().contains(orphan));
+
+        reconciler.reconcile();
+        assertEquals(Set.of(occupied, 1234L), Set.copyOf(janus.getRooms()));
+        assertEquals(1, reclaimed("orphaned"));
+        verify(repository, never()).deleteExpired(anyCollection(), any());
+    }
+
+    private MeetingRoom room(String friendlyId) {
+        return new MeetingRoom(friendlyId, janusService.createRoom().block().roomId(), null);
+    }
+
+    private long reclaimed(String reason) {
+        return (long) meterRegistry.get("janus.rooms.reclaimed").tag("reason", reason).counter().count();
+    }
+}
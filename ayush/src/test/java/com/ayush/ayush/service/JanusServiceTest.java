@@ -0,0 +1,121 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.config.AppConfig;
+import com.ayush.ayush.config.JanusClientProperties;
+import com.ayush.ayush.support.InMemoryIdBlockSource;
+import com.ayush.ayush.support.StubJanusServer;
+import com.ayush.ayush.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JanusServiceTest {
+
+    private static final Duration CALL_TIMEOUT = Duration.ofMillis(500);
+
+    private StubJanusServer janus;
+    private JanusClient janusClient;
+    private JanusService janusService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void warmUpNetty() throws Exception {
+        // The first Netty connection in a JVM spends over a second loading classes; keep that out of the timed tests.
+        try (StubJanusServer warmUp = new StubJanusServer()) {
+            newClient(warmUp, Duration.ofSeconds(30)).post("", Map.of("janus", "create"), false).block();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        janus = new StubJanusServer();
+        janusClient = newClient(janus, CALL_TIMEOUT);
+        IdAllocator idAllocator = new IdAllocator(new InMemoryIdBlockSource(), 100);
+        meterRegistry = new SimpleMeterRegistry();
+        JanusMetrics janusMetrics = new JanusMetrics(meterRegistry);
+        JanusNode node = new JanusNode("default", janus.getUrl(), 0, 0, janusClient,
+                new JanusSessionPool(janusClient, janusMetrics, 1), janusMetrics);
+        janusService = new JanusService(new JanusNodes(List.of(node), "default", 2), idAllocator, janusMetrics, 10);
+    }
+
+    /**
+     * A node backed by a stub server, with one pooled session.
+     */
+    static JanusNode newNode(String id, StubJanusServer server, int maxRooms, JanusMetrics janusMetrics) {
+        JanusClient client = newClient(server, Duration.ofSeconds(5));
+        return new JanusNode(id, server.getUrl(), maxRooms, 0, client, new JanusSessionPool(client, janusMetrics, 1), janusMetrics);
+    }
+
+    private static JanusClient newClient(StubJanusServer server, Duration callTimeout) {
+        JanusClientProperties properties = new JanusClientProperties(8, Duration.ofSeconds(1), callTimeout,
+                2, Duration.ofMillis(10), 2, Duration.ofSeconds(30));
+        return AppConfig.createJanusClient(new ObjectMapper(), properties, server.getUrl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        janus.close();
+    }
+
+    @Test
+    void warmPoolCreatesRoomsInOneRoundTrip() {
+        JanusService.JanusRoom first = janusService.createRoom().block();
+        JanusService.JanusRoom second = janusService.createRoom().block();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(1, janus.requestCount("create"));
+        assertEquals(1, janus.requestCount("attach"));
+        assertEquals(2, janus.requestCount("videoroom:create"));
+        assertEquals(1, stepCount("create_session"));
+        assertEquals(1, stepCount("attach"));
+        assertEquals(2, stepCount("create_room"));
+    }
+
+    @Test
+    void rebuildsSessionThatJanusForgot() {
+        janusService.createRoom().block();
+        janus.forgetSessions();
+
+        assertNotNull(janusService.createRoom().block());
+        assertEquals(2, janus.requestCount("attach"));
+    }
+
+    @Test
+    void slowJanusTimesOutAndOpensTheBreaker() {
+        janusService.createRoom().block();
+        janus.setLatency(Duration.ofMillis(1500));
+
+        long started = System.nanoTime();
+        Exception first = assertThrows(Exception.class, () -> janusService.createRoom().block());
+        assertInstanceOf(TimeoutException.class, first.getCause());
+        // Room creation is not idempotent, so a timed-out call fails instead of being retried.
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofMillis(1400)) < 0);
+
+        assertThrows(Exception.class, () -> janusService.createRoom().block());
+        assertEquals(CircuitBreaker.State.OPEN, janusClient.getCircuitBreaker().getState());
+
+        int messagesBefore = janus.requestCount("message");
+        RuntimeException rejected = assertThrows(RuntimeException.class, () -> janusService.createRoom().block());
+        assertInstanceOf(CircuitBreaker.OpenException.class, rejected);
+        assertEquals(messagesBefore, janus.requestCount("message"));
+    }
+
+    private long stepCount(String step) {
+        return meterRegistry.get("janus.requests").tag("step", step).tag("outcome", "success").timer().count();
+    }
+}
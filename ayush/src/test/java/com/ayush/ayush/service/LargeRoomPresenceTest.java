@@ -0,0 +1,168 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.journal.SignalingJournal;
+import com.ayush.ayush.participant.UserSession;
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.signaling.OutboundQueue;
+import com.ayush.ayush.signaling.SignalingMessage;
+import com.ayush.ayush.support.RecordingWebSocketSession;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LargeRoomPresenceTest {
+
+    private static final String ROOM = "webinar";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RoomManager roomManager = new RoomManager();
+    private final FrameEncoder frameEncoder = new FrameEncoder(objectMapper);
+    // Threshold 5, pages of 2 ids and a history of 2 deltas; ticks only happen when a test calls tick().
+    private final LargeRoomPresence presence = new LargeRoomPresence(roomManager, frameEncoder, SignalingJournal.disabled(),
+            5, TimeUnit.DAYS.toMillis(1), 2, 2);
+    private final SfuService sfuService = new SfuService(roomManager, frameEncoder, new IceCandidateBatcher(frameEncoder, 0),
+            SignalingJournal.disabled(), presence, Optional.empty());
+
+    @AfterEach
+    void tearDown() {
+        presence.shutdown();
+    }
+
+    @Test
+    void joinsInALargeRoomAreBatchedIntoOneDeltaPerTick() throws Exception {
+        List<RecordingWebSocketSession> sockets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sockets.add(join("user-" + i));
+        }
+        // The fifth join switched the room over, and everyone got the roster to apply deltas to.
+        RecordingWebSocketSession first = sockets.get(0);
+        assertEquals(Set.of("user-0", "user-1", "user-2", "user-3", "user-4"), rosterIds(first, "sync"));
+        int framesBefore = first.getReceived().size();
+
+        for (int i = 5; i < 15; i++) {
+            sockets.add(join("user-" + i));
+        }
+        RecordingWebSocketSession last = sockets.get(14);
+        List<JsonNode> pages = frames(last, "roster");
+        assertEquals(8, pages.size());
+        assertEquals(8, pages.get(0).path("pages").asInt());
+        assertEquals(15, rosterIds(last, "join").size());
+        // Nobody already in the room heard about the joins yet.
+        assertEquals(framesBefore, first.getReceived().size());
+
+        presence.tick();
+
+        List<JsonNode> deltas = frames(first, "roster_delta");
+        assertEquals(1, deltas.size());
+        assertEquals(framesBefore + 1, first.getReceived().size());
+        JsonNode delta = deltas.get(0);
+        assertEquals(1, delta.path("fromVersion").asLong());
+        assertEquals(11, delta.path("version").asLong());
+        assertEquals(10, delta.path("joined").size());
+        assertEquals(pages.get(0).path("version").asLong(), delta.path("version").asLong());
+        assertFalse(first.hasReceived("new_participant", "user-5"));
+    }
+
+    @Test
+    void leavingAndRejoiningWithinATickShowsUpAsBoth() throws Exception {
+        List<UserSession> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(joinSession("user-" + i));
+        }
+        RecordingWebSocketSession observer = (RecordingWebSocketSession) users.get(0).getWebSocketSession();
+
+        sfuService.handleLeave(users.get(1).getWebSocketSession().getId());
+        joinSession("user-1");
+        sfuService.handleLeave(users.get(2).getWebSocketSession().getId());
+        presence.tick();
+
+        JsonNode delta = frames(observer, "roster_delta").get(0);
+        assertEquals(List.of("user-1", "user-2"), textValues(delta.path("left")));
+        assertEquals(List.of("user-1"), textValues(delta.path("joined")));
+        assertFalse(observer.hasReceived("participant_left"));
+
+        // Once the room has emptied it starts over in regular mode.
+        for (String webSocketId : List.copyOf(roomManager.getParticipantsInRoom(ROOM).orElseThrow().values()
+                .stream().map(user -> user.getWebSocketSession().getId()).toList())) {
+            sfuService.handleLeave(webSocketId);
+        }
+        RecordingWebSocketSession newcomer = join("newcomer");
+        assertTrue(newcomer.hasReceived("existing_participants"));
+    }
+
+    @Test
+    void syncReplaysRecentDeltasOrSendsTheFullRoster() throws Exception {
+        List<UserSession> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(joinSession("user-" + i));
+        }
+        for (int tick = 0; tick < 3; tick++) {
+            joinSession("late-" + tick);
+            presence.tick();
+        }
+        UserSession lagging = users.get(0);
+        RecordingWebSocketSession socket = (RecordingWebSocketSession) lagging.getWebSocketSession();
+
+        // Versions 1 -> 4 went out as three deltas, but only the last two are kept.
+        socket.getReceived().clear();
+        sfuService.handleRosterSync(lagging, new SignalingMessage.RosterSync(2));
+        assertEquals(List.of(3L, 4L), frames(socket, "roster_delta").stream().map(d -> d.path("version").asLong()).toList());
+
+        socket.getReceived().clear();
+        sfuService.handleRosterSync(lagging, new SignalingMessage.RosterSync(1));
+        assertTrue(frames(socket, "roster_delta").isEmpty());
+        assertEquals(8, rosterIds(socket, "sync").size());
+        assertEquals(4, frames(socket, "roster").get(0).path("version").asLong());
+    }
+
+    private RecordingWebSocketSession join(String userId) {
+        return (RecordingWebSocketSession) joinSession(userId).getWebSocketSession();
+    }
+
+    private UserSession joinSession(String userId) {
+        RecordingWebSocketSession session = new RecordingWebSocketSession(ROOM + "/" + userId + "/" + System.nanoTime());
+        OutboundQueue outbound = new OutboundQueue(session, Runnable::run, 10_000, Integer.MAX_VALUE);
+        UserSession user = new UserSession(userId, ROOM, session, outbound, false);
+        sfuService.handleJoin(user);
+        return user;
+    }
+
+    private List<JsonNode> frames(RecordingWebSocketSession session, String type) throws Exception {
+        List<JsonNode> payloads = new ArrayList<>();
+        for (String frame : session.getReceived()) {
+            JsonNode node = objectMapper.readTree(frame);
+            if (node.path("type").asText().equals(type)) {
+                payloads.add(node.path("payload"));
+            }
+        }
+        return payloads;
+    }
+
+    private Set<String> rosterIds(RecordingWebSocketSession session, String reason) throws Exception {
+        Set<String> userIds = new HashSet<>();
+        for (JsonNode page : frames(session, "roster")) {
+            if (page.path("reason").asText().equals(reason)) {
+                userIds.addAll(textValues(page.path("userIds")));
+            }
+        }
+        return userIds;
+    }
+
+    private static List<String> textValues(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        array.forEach(value -> values.add(value.asText()));
+        return values;
+    }
+}
@@ -0,0 +1,134 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.repository.MeetingRoomRepository;
+import com.ayush.ayush.support.InMemoryIdBlockSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MeetingRoomWriteBehindTest {
+
+    @TempDir
+    Path directory;
+
+    private final MeetingRoomRepository repository = mock(MeetingRoomRepository.class);
+    private final IdAllocator idAllocator = new IdAllocator(new InMemoryIdBlockSource(), 1000);
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final List<MeetingRoomWriteBehind> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(MeetingRoomWriteBehind::shutdown);
+    }
+
+    @Test
+    void queuedRoomsAreVisibleAndInsertedInBatches() throws Exception {
+        CountDownLatch database = new CountDownLatch(1);
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            database.await(5, TimeUnit.SECONDS);
+            return record(invocation.getArgument(0));
+        });
+        MeetingRoomWriteBehind writeBehind = start(10, Duration.ofMillis(100));
+
+        List<MeetingRoom> rooms = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            rooms.add(writeBehind.insert(janusRoom(1000L + i), "Room " + i).block(Duration.ofSeconds(5)));
+        }
+        // Returned before the database has seen any of them, and found by friendly id regardless.
+        for (MeetingRoom room : rooms) {
+            assertEquals(room.getJanusRoomId(), writeBehind.pending(room.getFriendlyRoomId()).orElseThrow().getJanusRoomId());
+        }
+
+        database.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> rooms.stream().allMatch(r -> writeBehind.pending(r.getFriendlyRoomId()).isEmpty()));
+        assertEquals(25, batches.stream().mapToInt(List::size).sum());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 10));
+        assertTrue(batches.size() <= 4, "batches: " + batches);
+        // Everything made it in, so the log is empty again.
+        await().atMost(Duration.ofSeconds(5)).until(() -> Files.size(directory.resolve(MeetingRoomWriteBehind.LOG_FILE)) == 0);
+    }
+
+    @Test
+    void roomsQueuedWhileTheDatabaseIsDownAreInsertedAfterARestart() throws Exception {
+        when(repository.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("database is down"));
+        MeetingRoomWriteBehind first = start(10, Duration.ofMillis(10));
+        MeetingRoom kept = first.insert(janusRoom(2000L), "Survives").block(Duration.ofSeconds(5));
+        MeetingRoom alreadyIn = first.insert(janusRoom(2001L), "Was inserted before the crash").block(Duration.ofSeconds(5));
+        first.shutdown();
+        started.remove(first);
+
+        // The database is back, and one row had in fact been committed before the process went down.
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(repository).saveAll(anyList());
+        when(repository.findById(any())).thenReturn(Optional.empty());
+        when(repository.findById(alreadyIn.getFriendlyRoomId())).thenReturn(Optional.of(alreadyIn));
+        List<String> inserted = new CopyOnWriteArrayList<>();
+        when(repository.save(any())).thenAnswer(invocation -> {
+            MeetingRoom room = invocation.getArgument(0);
+            inserted.add(room.getFriendlyRoomId());
+            return room;
+        });
+
+        MeetingRoomWriteBehind second = start(10, Duration.ofMillis(10));
+        assertTrue(second.pending(kept.getFriendlyRoomId()).isPresent());
+        await().atMost(Duration.ofSeconds(5)).until(() -> second.pending(kept.getFriendlyRoomId()).isEmpty());
+        assertEquals(List.of(kept.getFriendlyRoomId()), inserted);
+        assertEquals("Survives", kept.getDescription());
+    }
+
+    @Test
+    void aTornRecordAtTheEndOfTheLogIsDropped() throws Exception {
+        when(repository.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("database is down"));
+        MeetingRoomWriteBehind first = start(10, Duration.ofMillis(10));
+        MeetingRoom room = first.insert(janusRoom(3000L), null).block(Duration.ofSeconds(5));
+        first.shutdown();
+        started.remove(first);
+        Path log = directory.resolve(MeetingRoomWriteBehind.LOG_FILE);
+        long intact = Files.size(log);
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        MeetingRoomWriteBehind second = start(10, Duration.ofSeconds(10));
+        MeetingRoom recovered = second.pending(room.getFriendlyRoomId()).orElseThrow();
+        assertEquals(3000L, recovered.getJanusRoomId());
+        assertEquals("node-a", recovered.getJanusNode());
+        assertEquals(room.getCreatedAt(), recovered.getCreatedAt());
+        assertEquals(intact, Files.size(log));
+    }
+
+    private MeetingRoomWriteBehind start(int batchSize, Duration flushInterval) {
+        MeetingRoomWriteBehind writeBehind = new MeetingRoomWriteBehind(repository, idAllocator, true, directory, batchSize, flushInterval);
+        started.add(writeBehind);
+        return writeBehind;
+    }
+
+    private static JanusService.JanusRoom janusRoom(long roomId) {
+        return new JanusService.JanusRoom("node-a", roomId);
+    }
+
+    private List<MeetingRoom> record(List<MeetingRoom> batch) {
+        batches.add(batch.stream().map(MeetingRoom::getFriendlyRoomId).toList());
+        return batch;
+    }
+}
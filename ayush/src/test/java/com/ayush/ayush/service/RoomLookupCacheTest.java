@@ -0,0 +1,58 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.repository.MeetingRoomRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoomLookupCacheTest {
+
+    private final MeetingRoomRepository repository = mock(MeetingRoomRepository.class);
+    private final RoomLookupCache cache = new RoomLookupCache(repository, 100, Duration.ofMinutes(5), Duration.ofSeconds(30));
+
+    @Test
+    void stampedeForOneRoomIssuesASingleQuery() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findById("ABC234")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(new MeetingRoom("ABC234", 1234L, "Standup"));
+        });
+
+        ExecutorService joiners = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 200; i++) {
+            joiners.submit(() -> cache.get("ABC234"));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        joiners.shutdown();
+        assertTrue(joiners.awaitTermination(5, TimeUnit.SECONDS));
+
+        verify(repository, times(1)).findById("ABC234");
+        assertEquals(199, cache.stats().hitCount());
+    }
+
+    @Test
+    void missesAreCachedUntilTheRoomIsCreated() {
+        when(repository.findById("NOPE23")).thenReturn(Optional.empty());
+
+        assertTrue(cache.get("NOPE23").isEmpty());
+        assertTrue(cache.get("NOPE23").isEmpty());
+        verify(repository, times(1)).findById("NOPE23");
+
+        cache.put(new MeetingRoom("NOPE23", 99L, "Created later"));
+        assertEquals(99L, cache.get("NOPE23").orElseThrow().getJanusRoomId());
+    }
+}
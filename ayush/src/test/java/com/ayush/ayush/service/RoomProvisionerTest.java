@@ -0,0 +1,146 @@
+package com.ayush.ayush.service;
+
+import com.ayush.ayush.entity.MeetingRoom;
+import com.ayush.ayush.repository.MeetingRoomRepository;
+import com.ayush.ayush.support.InMemoryIdBlockSource;
+import com.ayush.ayush.support.StubJanusServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the warm pool against H2 and a stub Janus. Tests are not transactional, so concurrent claimers race on
+ * committed rows, as two instances sharing a database would.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoomProvisionerTest {
+
+    @Autowired
+    private MeetingRoomRepository repository;
+
+    private final JanusMetrics janusMetrics = new JanusMetrics(new SimpleMeterRegistry());
+    private final IdAllocator idAllocator = new IdAllocator(new InMemoryIdBlockSource(), 100);
+    private StubJanusServer janus;
+    private JanusNodes nodes;
+    private JanusService janusService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        janus = new StubJanusServer();
+        nodes = new JanusNodes(List.of(JanusServiceTest.newNode("default", janus, 0, janusMetrics)), "default", 2);
+        janusService = new JanusService(nodes, new IdAllocator(new InMemoryIdBlockSource(), 100), janusMetrics, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.shutdown();
+        janus.close();
+        repository.deleteAll();
+    }
+
+    @Test
+    void aRefillProvisionsTheTargetAndTheNextRunAdoptsTheReservedRows() {
+        RoomProvisioner first = provisioner(4, Duration.ofMinutes(30));
+        first.refill();
+
+        assertEquals(4, first.stats().available());
+        assertEquals(4, first.stats().provisioned());
+        assertEquals(4, repository.findByReservedTrue().size());
+        assertEquals(4, janus.getRooms().size());
+
+        // A restarted instance reuses the rooms instead of creating more.
+        RoomProvisioner next = provisioner(4, Duration.ofMinutes(30));
+        next.refill();
+        assertEquals(4, next.stats().available());
+        assertEquals(0, next.stats().provisioned());
+        assertEquals(4, janus.getRooms().size());
+    }
+
+    @Test
+    void concurrentClaimersOnTheSameRowsGetEachRoomOnce() throws Exception {
+        RoomProvisioner first = provisioner(4, Duration.ofMinutes(30));
+        first.refill();
+        RoomProvisioner second = provisioner(4, Duration.ofMinutes(30));
+        second.refill();
+
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Optional<MeetingRoom>>> claims = new ArrayList<>();
+        try (ExecutorService claimers = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                RoomProvisioner provisioner = i % 2 == 0 ? first : second;
+                String description = "Meeting " + i;
+                claims.add(claimers.submit(() -> {
+                    go.await(5, TimeUnit.SECONDS);
+                    return provisioner.claim(description);
+                }));
+            }
+            go.countDown();
+        }
+
+        Set<String> claimed = new HashSet<>();
+        for (Future<Optional<MeetingRoom>> claim : claims) {
+            claim.get().ifPresent(room -> assertTrue(claimed.add(room.getFriendlyRoomId()), "claimed twice: " + room));
+        }
+        assertEquals(4, claimed.size());
+        assertTrue(repository.findByReservedTrue().isEmpty());
+        for (String friendlyId : claimed) {
+            MeetingRoom room = repository.findById(friendlyId).orElseThrow();
+            assertFalse(room.isReserved());
+            assertTrue(room.getDescription().startsWith("Meeting "));
+        }
+        assertEquals(4, first.stats().claimed() + second.stats().claimed());
+        assertTrue(first.claim("Too late").isEmpty());
+    }
+
+    @Test
+    void unusedRoomsAndRoomsOnADrainedNodeAreDestroyed() throws Exception {
+        RoomProvisioner provisioner = provisioner(2, Duration.ofMillis(1));
+        provisioner.refill();
+        Set<Long> stale = new HashSet<>(janus.getRooms());
+        Thread.sleep(10);
+
+        // The idle rooms go, from the database and from Janus, and fresh ones take their place.
+        provisioner.refill();
+        assertEquals(2, provisioner.stats().drained());
+        assertEquals(4, provisioner.stats().provisioned());
+        assertEquals(2, repository.findByReservedTrue().size());
+        assertTrue(janus.getRooms().stream().noneMatch(stale::contains));
+
+        // A drained node keeps no warm rooms and gets no new ones.
+        RoomProvisioner longLived = provisioner(2, Duration.ofMinutes(30));
+        nodes.setDraining("default", true);
+        longLived.refill();
+        assertEquals(0, longLived.stats().available());
+        assertEquals(2, longLived.stats().drained());
+        assertEquals(2, longLived.stats().refillFailures());
+        assertTrue(repository.findByReservedTrue().isEmpty());
+        assertTrue(janus.getRooms().isEmpty());
+    }
+
+    private RoomProvisioner provisioner(int size, Duration maxIdle) {
+        return new RoomProvisioner(repository, new MeetingRoomWriter(repository, idAllocator), janusService,
+                new RoomLookupCache(repository, 100, Duration.ofMinutes(5), Duration.ofSeconds(30)), size, 1, maxIdle);
+    }
+}
@@ -0,0 +1,151 @@
+package com.ayush.ayush.signaling;
+
+import com.ayush.ayush.config.SignalingAdmissionProperties;
+import com.ayush.ayush.config.SignalingAdmissionProperties.Budget;
+import com.ayush.ayush.support.RecordingWebSocketSession;
+import com.ayush.ayush.support.SignalingHarness;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+    // Slow enough that nothing refills while a test runs.
+    private static final double TRICKLE = 0.001;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private SignalingHarness harness;
+
+    @AfterEach
+    void tearDown() {
+        if (harness != null) {
+            harness.close();
+        }
+    }
+
+    @Test
+    void aFloodingClientIsThrottledWithoutStarvingItsOtherTraffic() throws Exception {
+        start(new SignalingAdmissionProperties(true, Map.of("ice", new Budget(TRICKLE, 5), "join", new Budget(TRICKLE, 2)),
+                new Budget(0, 0), 0.25, 0.5, 0, 0));
+        RecordingWebSocketSession alice = join("alice");
+        RecordingWebSocketSession bob = join("bob");
+
+        for (int i = 0; i < 50; i++) {
+            send(alice, candidate("bob", i));
+        }
+        send(alice, "{\"type\":\"offer\",\"payload\":{\"remoteUserId\":\"bob\",\"sdp\":\"still-through\"}}");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> bob.hasReceived("\"offer\"", "still-through"));
+        assertEquals(5, count(bob, "\"ice_candidate\""));
+        assertEquals(45, throttled("ice", "session"));
+
+        // Re-sending join on the same connection is limited as well.
+        send(alice, "{\"type\":\"join\",\"payload\":{\"roomId\":\"room-1\",\"userId\":\"alice\"}}");
+        send(alice, "{\"type\":\"join\",\"payload\":{\"roomId\":\"room-1\",\"userId\":\"alice\"}}");
+        assertEquals(1, throttled("join", "session"));
+    }
+
+    @Test
+    void aRepeatedJoinOnOneConnectionIsIgnored() throws Exception {
+        harness = new SignalingHarness(0, Heartbeats.disabled(), AdmissionControl.disabled());
+        RecordingWebSocketSession alice = join("alice");
+        RecordingWebSocketSession bob = join("bob");
+
+        send(alice, "{\"type\":\"join\",\"payload\":{\"roomId\":\"room-2\",\"userId\":\"alice\"}}");
+        send(alice, SignalingHarness.joinFrame("alice"));
+        send(bob, "{\"type\":\"offer\",\"payload\":{\"remoteUserId\":\"alice\",\"sdp\":\"after-rejoin\"}}");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> alice.hasReceived("\"offer\"", "after-rejoin"));
+        assertEquals(1, count(alice, "existing_participants"));
+        assertEquals(1, count(alice, "new_participant"));
+        assertTrue(harness.getRoomManager().getParticipant("room-2", "alice").isEmpty());
+
+        // The one session leaves with the connection; nothing is left behind in either room.
+        harness.getHandler().afterConnectionClosed(alice, CloseStatus.NORMAL);
+        await().atMost(Duration.ofSeconds(5)).until(() -> bob.hasReceived("participant_left", "alice"));
+        assertTrue(harness.getRoomManager().getParticipant("room-1", "alice").isEmpty());
+    }
+
+    @Test
+    void aRoomOutOfBudgetKeepsOffersAndAnswersAheadOfIce() throws Exception {
+        // Two members with 4 tokens each; ICE has to leave half of the 8 for offers and answers.
+        start(new SignalingAdmissionProperties(true, Map.of("ice", new Budget(0, 0), "sdp", new Budget(0, 0)),
+                new Budget(TRICKLE, 4), 0.5, 0.5, 0, 0));
+        RecordingWebSocketSession alice = join("alice");
+        RecordingWebSocketSession bob = join("bob");
+
+        for (int i = 0; i < 10; i++) {
+            send(alice, candidate("bob", i));
+        }
+        for (int i = 0; i < 6; i++) {
+            send(bob, "{\"type\":\"answer\",\"payload\":{\"remoteUserId\":\"alice\",\"sdp\":\"answer-" + i + "\"}}");
+        }
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> count(bob, "\"ice_candidate\"") == 4 && count(alice, "\"answer\"") == 4);
+        assertEquals(6, throttled("ice", "room"));
+        assertEquals(2, throttled("sdp", "room"));
+    }
+
+    @Test
+    void anOverloadedNodeShedsPresenceThenIceButNeverOffers() {
+        AdmissionControl admission = new AdmissionControl(new SignalingAdmissionProperties(true, Map.of(), new Budget(0, 0),
+                0.25, 0.5, 2, 4), registry);
+        RecordingWebSocketSession session = new RecordingWebSocketSession("room-1/alice");
+        SignalingMessage presence = new SignalingMessage.RosterSync(1);
+        SignalingMessage ice = new SignalingMessage.IceCandidate("bob", new RawJson("{}"));
+        SignalingMessage offer = new SignalingMessage.Offer("bob", new RawJson("\"sdp\""));
+
+        List<Runnable> backlog = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            backlog.add(admission.tracked(() -> { }));
+        }
+        assertFalse(admission.admit(session, "room-1", presence));
+        assertTrue(admission.admit(session, "room-1", ice));
+        for (int i = 0; i < 2; i++) {
+            backlog.add(admission.tracked(() -> { }));
+        }
+        assertFalse(admission.admit(session, "room-1", ice));
+        assertTrue(admission.admit(session, "room-1", offer));
+
+        backlog.forEach(Runnable::run);
+        assertTrue(admission.admit(session, "room-1", presence));
+        assertEquals(1, registry.get("signaling.admission.shed").tag("priority", "presence").counter().count());
+        assertEquals(1, registry.get("signaling.admission.shed").tag("priority", "ice").counter().count());
+    }
+
+    private void start(SignalingAdmissionProperties properties) {
+        harness = new SignalingHarness(0, Heartbeats.disabled(), new AdmissionControl(properties, registry));
+    }
+
+    private RecordingWebSocketSession join(String userId) throws Exception {
+        return harness.join(userId);
+    }
+
+    private void send(RecordingWebSocketSession session, String frame) throws Exception {
+        harness.send(session, frame);
+    }
+
+    private static String candidate(String remoteUserId, int i) {
+        return "{\"type\":\"ice_candidate\",\"payload\":{\"remoteUserId\":\"" + remoteUserId
+                + "\",\"candidate\":{\"candidate\":\"candidate:" + i + "\"}}}";
+    }
+
+    private static long count(RecordingWebSocketSession session, String fragment) {
+        return session.getReceived().stream().filter(frame -> frame.contains(fragment)).count();
+    }
+
+    private double throttled(String priority, String scope) {
+        return registry.get("signaling.admission.throttled").tag("priority", priority).tag("scope", scope).counter().count();
+    }
+}
@@ -0,0 +1,86 @@
+package com.ayush.ayush.signaling;
+
+import com.ayush.ayush.support.RecordingWebSocketSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryProtocolTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinaryProtocol binaryProtocol = new BinaryProtocol(256);
+    private final FrameEncoder frameEncoder = new FrameEncoder(objectMapper);
+
+    @Test
+    void largePayloadsAreCompressedAndRoundTrip() throws Exception {
+        String sdp = "{\"type\":\"offer\",\"sdp\":\"v=0\\r\\n" + "a=rtcp-fb:96 nack pli\\r\\na=rtpmap:111 opus/48000/2\\r\\n".repeat(30) + "\"}";
+        EncodedFrame frame = frameEncoder.encode("offer", Map.of("userId", "alice", "sdp", new RawJson(sdp)));
+
+        BinaryMessage binary = frame.binaryMessage(binaryProtocol);
+        byte[] bytes = binary.getPayload().array();
+        assertEquals(2, bytes[0]);
+        assertEquals(BinaryProtocol.FLAG_DEFLATED, bytes[1]);
+        assertTrue(bytes.length < frame.length() / 5, bytes.length + " of " + frame.length());
+
+        BinaryProtocol.Decoded decoded = binaryProtocol.decode(ByteBuffer.wrap(bytes));
+        assertEquals("offer", decoded.type());
+        assertEquals(objectMapper.readTree(frame.message().getPayload()).path("payload"), objectMapper.readTree(decoded.payload()));
+    }
+
+    @Test
+    void oneFrameSentToSeveralBinarySessionsReachesEachOneWhole() throws Exception {
+        EncodedFrame frame = frameEncoder.encode("new_participant", Map.of("userId", "alice"));
+        RecordingWebSocketSession bob = new RecordingWebSocketSession("bob");
+        RecordingWebSocketSession carol = new RecordingWebSocketSession("carol");
+        for (RecordingWebSocketSession session : List.of(bob, carol)) {
+            new OutboundQueue(session, Runnable::run, 10_000, Integer.MAX_VALUE, OutboundQueue.Meters.NONE, binaryProtocol)
+                    .enqueue(frame);
+        }
+
+        for (RecordingWebSocketSession session : List.of(bob, carol)) {
+            assertEquals(1, session.getReceivedBinary().size(), session.getId());
+            BinaryProtocol.Decoded decoded = binaryProtocol.decode(ByteBuffer.wrap(session.getReceivedBinary().get(0)));
+            assertEquals(new BinaryProtocol.Decoded("new_participant", "{\"userId\":\"alice\"}"), decoded);
+        }
+    }
+
+    @Test
+    void smallPayloadsAndUnknownTypesStayPlain() throws Exception {
+        byte[] bytes = binaryProtocol.encode("{\"type\":\"raise_hand\",\"payload\":{\"userId\":\"bob\"}}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, bytes[0]);
+        assertEquals(0, bytes[1]);
+
+        BinaryProtocol.Decoded decoded = binaryProtocol.decode(ByteBuffer.wrap(bytes));
+        assertEquals(new BinaryProtocol.Decoded("raise_hand", "{\"userId\":\"bob\"}"), decoded);
+    }
+
+    @Test
+    void inboundFramesParseLikeText() throws Exception {
+        MessageParser parser = new MessageParser(objectMapper);
+        String text = "{\"type\":\"answer\",\"payload\":{\"remoteUserId\":\"alice\",\"sdp\":{\"type\":\"answer\",\"sdp\":\"v=0\\r\\n"
+                + "a=setup:active\\r\\n".repeat(40) + "\"}}}";
+        BinaryProtocol.Decoded decoded = binaryProtocol.decode(ByteBuffer.wrap(binaryProtocol.encode(text.getBytes(StandardCharsets.UTF_8))));
+
+        SignalingMessage.Answer fromBinary = (SignalingMessage.Answer) parser.parse(decoded.type(), decoded.payload());
+        SignalingMessage.Answer fromText = (SignalingMessage.Answer) parser.parse(text);
+        assertEquals(fromText.remoteUserId(), fromBinary.remoteUserId());
+        assertEquals(fromText.sdp().json(), fromBinary.sdp().json());
+    }
+
+    @Test
+    void corruptFramesAreRejected() {
+        assertThrows(IOException.class, () -> binaryProtocol.decode(ByteBuffer.wrap(new byte[]{2, BinaryProtocol.FLAG_DEFLATED, 1, 2, 3})));
+        assertThrows(IOException.class, () -> binaryProtocol.decode(ByteBuffer.wrap(new byte[]{99, 0})));
+        assertThrows(IOException.class, () -> binaryProtocol.decode(ByteBuffer.wrap(new byte[]{1})));
+    }
+}
@@ -0,0 +1,109 @@
+package com.ayush.ayush.signaling;
+
+import com.ayush.ayush.support.RecordingWebSocketSession;
+import com.ayush.ayush.support.SignalingHarness;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeartbeatsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private SignalingHarness harness;
+    private SFUSignalingHandler handler;
+
+    /**
+     * A client that answers pings until told to stop, like one whose network went away.
+     */
+    private class Client extends RecordingWebSocketSession {
+
+        final AtomicInteger pings = new AtomicInteger();
+        volatile boolean answering = true;
+
+        Client(String id) {
+            super(id);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            super.sendMessage(message);
+            if (message instanceof PingMessage) {
+                pings.incrementAndGet();
+                if (answering) {
+                    handler.handlePongMessage(this, new PongMessage());
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    void aClientThatStopsAnsweringPingsIsReapedButMayResume() throws Exception {
+        start(10_000, 10_000);
+        Client alice = join("alice");
+        Client bob = join("bob");
+        await().atMost(Duration.ofSeconds(5)).until(() -> alice.hasReceived("\"session\""));
+        alice.answering = false;
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !alice.isOpen());
+        assertEquals(1, reaped("missed_pong"));
+        // Bob kept answering and stays; alice only dropped, so she is parked rather than gone.
+        assertTrue(bob.pings.get() > 0);
+        assertTrue(bob.isOpen());
+        assertFalse(bob.hasReceived("participant_left"));
+        assertTrue(harness.getRoomManager().getParticipant("room-1", "alice").isPresent());
+    }
+
+    @Test
+    void withoutResumptionAMissedPongIsALeave() throws Exception {
+        start(0, 10_000);
+        Client alice = join("alice");
+        Client bob = join("bob");
+        alice.answering = false;
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> bob.hasReceived("participant_left", "alice"));
+        assertFalse(alice.isOpen());
+        assertTrue(harness.getRoomManager().getParticipant("room-1", "alice").isEmpty());
+    }
+
+    @Test
+    void aConnectionThatNeverJoinsIsClosed() {
+        start(0, 100);
+        Client lurker = new Client("lurker");
+        handler.afterConnectionEstablished(lurker);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !lurker.isOpen());
+        assertEquals(1, reaped("not_joined"));
+        assertEquals(0, lurker.pings.get());
+    }
+
+    // Pings every 50ms and gives up 50ms later, on a 10ms wheel.
+    private void start(long graceMillis, long joinTimeoutMillis) {
+        harness = new SignalingHarness(graceMillis, new Heartbeats(50, 50, joinTimeoutMillis, 0, 10, registry),
+                AdmissionControl.disabled());
+        handler = harness.getHandler();
+    }
+
+    private Client join(String userId) throws Exception {
+        return harness.join(new Client("room-1/" + userId), userId);
+    }
+
+    private double reaped(String reason) {
+        return registry.get("signaling.sessions.reaped").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,74 @@
+package com.ayush.ayush.signaling;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MessageParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MessageParser parser = new MessageParser(objectMapper);
+
+    @Test
+    void offerSdpIsForwardedVerbatim() throws Exception {
+        String sdp = "{\"type\":\"offer\",\"sdp\":\"v=0\\r\\no=- 1 2 IN IP4 127.0.0.1\\r\\n\\u00e9\"}";
+        // "payload" before "type", plus fields the server does not know about.
+        SignalingMessage message = parser.parse("{\"payload\":{\"sdp\":" + sdp + ",\"extra\":[1,{\"a\":2}],\"remoteUserId\":\"bob\"},"
+                + "\"type\":\"offer\",\"id\":7}");
+
+        SignalingMessage.Offer offer = assertInstanceOf(SignalingMessage.Offer.class, message);
+        assertEquals("bob", offer.remoteUserId());
+        assertEquals(sdp, offer.sdp().json());
+
+        EncodedFrame frame = new FrameEncoder(objectMapper).encode("offer", Map.of("userId", "alice", "sdp", offer.sdp()));
+        String forwarded = new String(frame.message().asBytes(), StandardCharsets.UTF_8);
+        assertEquals(objectMapper.readTree(sdp), objectMapper.readTree(forwarded).path("payload").path("sdp"));
+        assertEquals(true, forwarded.contains(sdp));
+    }
+
+    @Test
+    void candidatesKeepTheirOriginalText() throws Exception {
+        SignalingMessage single = parser.parse("{\"type\":\"ice_candidate\",\"payload\":{\"remoteUserId\":\"bob\","
+                + "\"candidate\":{\"candidate\":\"candidate:1 1 udp 1 10.0.0.1 5000 typ host\",\"sdpMLineIndex\":0}}}");
+        assertEquals("{\"candidate\":\"candidate:1 1 udp 1 10.0.0.1 5000 typ host\",\"sdpMLineIndex\":0}",
+                assertInstanceOf(SignalingMessage.IceCandidate.class, single).candidate().json());
+
+        SignalingMessage batch = parser.parse("{\"type\":\"ice_candidates\",\"payload\":{\"remoteUserId\":\"bob\","
+                + "\"candidates\":[{\"candidate\":\"a\"}, \"b\" ,null]}}");
+        assertEquals(List.of("{\"candidate\":\"a\"}", "\"b\"", "null"),
+                assertInstanceOf(SignalingMessage.IceCandidates.class, batch).candidates().stream().map(RawJson::json).toList());
+    }
+
+    @Test
+    void joinAndUnusableMessages() throws Exception {
+        assertEquals(new SignalingMessage.Join("room-1", "alice", true),
+                parser.parse("{\"type\":\"join\",\"payload\":{\"roomId\":\"room-1\",\"userId\":\"alice\",\"iceBatching\":true}}"));
+        assertInstanceOf(SignalingMessage.Malformed.class, parser.parse("{\"type\":\"join\",\"payload\":{\"roomId\":\"room-1\"}}"));
+        assertInstanceOf(SignalingMessage.Malformed.class, parser.parse("{\"type\":\"offer\"}"));
+        assertInstanceOf(SignalingMessage.Malformed.class, parser.parse("[]"));
+        assertEquals(new SignalingMessage.Unknown("mute"), parser.parse("{\"type\":\"mute\",\"payload\":{}}"));
+        assertThrows(JsonProcessingException.class, () -> parser.parse("{\"type\":\"offer\",\"payload\":{\"sdp\":{\"type\":}}}"));
+    }
+
+    @Test
+    void messagesMissingTheirTargetOrTokenAreMalformed() throws Exception {
+        for (String type : List.of("offer", "answer", "ice_candidate", "ice_candidates")) {
+            assertEquals(new SignalingMessage.Malformed("'" + type + "' message is missing 'remoteUserId'"),
+                    parser.parse("{\"type\":\"" + type + "\",\"payload\":{\"sdp\":\"v=0\",\"candidate\":{},\"candidates\":[]}}"));
+        }
+        // A target that is not a string counts as missing.
+        assertInstanceOf(SignalingMessage.Malformed.class,
+                parser.parse("{\"type\":\"offer\",\"payload\":{\"remoteUserId\":7,\"sdp\":\"v=0\"}}"));
+        assertEquals(new SignalingMessage.Malformed("'resume' message is missing 'resumeToken'"),
+                parser.parse("{\"type\":\"resume\",\"payload\":{}}"));
+        assertInstanceOf(SignalingMessage.Malformed.class, parser.parse("answer", "{\"sdp\":\"v=0\"}"));
+    }
+}
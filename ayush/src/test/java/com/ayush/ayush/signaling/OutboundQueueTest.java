@@ -0,0 +1,190 @@
+package com.ayush.ayush.signaling;
+
+import com.ayush.ayush.support.RecordingWebSocketSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundQueueTest {
+
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OutboundQueue.Meters meters = OutboundQueue.Meters.of(registry);
+    private final RecordingWebSocketSession session = new RecordingWebSocketSession("alice");
+
+    @AfterEach
+    void tearDown() {
+        session.releaseSends();
+        writers.shutdownNow();
+    }
+
+    @Test
+    void framesFromManyThreadsAreWrittenInOrderByOneWriter() throws Exception {
+        OutboundQueue queue = queue(10_000, Integer.MAX_VALUE);
+        session.setSendMillis(1);
+
+        List<Future<?>> senders = new ArrayList<>();
+        try (ExecutorService threads = Executors.newFixedThreadPool(4)) {
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                senders.add(threads.submit(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        queue.enqueue(frame("offer", thread + ":" + i));
+                    }
+                }));
+            }
+            for (Future<?> sender : senders) {
+                sender.get();
+            }
+        }
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> session.getReceived().size() == 40);
+        for (int t = 0; t < 4; t++) {
+            String prefix = t + ":";
+            List<String> ofThread = session.getReceived().stream().filter(frame -> frame.startsWith(prefix)).toList();
+            assertEquals(List.of(prefix + 0, prefix + 1, prefix + 2, prefix + 3, prefix + 4, prefix + 5, prefix + 6,
+                    prefix + 7, prefix + 8, prefix + 9), ofThread);
+        }
+        assertEquals(1, session.getMaxConcurrentSends());
+    }
+
+    @Test
+    void aLaggingClientLosesIceFirstAndIsDisconnectedWhenThatIsNotEnough() {
+        OutboundQueue queue = queue(10_000, 100);
+        session.holdSends();
+        queue.enqueue(frame("offer", "x".repeat(10)));
+        await().atMost(Duration.ofSeconds(5)).until(() -> session.getSendsInProgress() == 1);
+
+        queue.enqueue(frame("ice_candidate", "i".repeat(40)));
+        queue.enqueue(frame("ice_candidates", "j".repeat(40)));
+        queue.enqueue(frame("answer", "a".repeat(30)));
+        assertEquals(1, queue.size());
+        assertEquals(2, registry.get("signaling.outbound.shed").counter().count());
+        assertTrue(session.isOpen());
+
+        queue.enqueue(frame("offer", "o".repeat(80)));
+        assertEquals(1, failures("overflow"));
+        assertEquals(0, queue.size());
+        // The close waits for the send in progress rather than writing to the socket alongside it.
+        assertTrue(session.isOpen());
+
+        session.releaseSends();
+        await().atMost(Duration.ofSeconds(5)).until(() -> !session.isOpen());
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, session.getCloseStatus());
+        assertEquals(1, session.getMaxConcurrentSends());
+    }
+
+    @Test
+    void aClientDisconnectedAfterAResumeIsClosedOnItsNewConnection() {
+        OutboundQueue queue = queue(10_000, 100);
+        assertTrue(queue.detach());
+        RecordingWebSocketSession again = new RecordingWebSocketSession("alice/2");
+        assertTrue(queue.reattach(again, null));
+
+        again.holdSends();
+        queue.enqueue(frame("offer", "x".repeat(60)));
+        await().atMost(Duration.ofSeconds(5)).until(() -> again.getSendsInProgress() == 1);
+        queue.enqueue(frame("offer", "o".repeat(60)));
+        queue.enqueue(frame("offer", "p".repeat(60)));
+        again.releaseSends();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !again.isOpen());
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, again.getCloseStatus());
+        assertEquals(1, again.getMaxConcurrentSends());
+        assertTrue(session.isOpen());
+    }
+
+    @Test
+    void aFrameThatWaitedPastTheSendTimeLimitDisconnects() throws Exception {
+        OutboundQueue queue = queue(50, Integer.MAX_VALUE);
+        session.holdSends();
+        queue.enqueue(frame("offer", "first"));
+        queue.enqueue(frame("offer", "second"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> session.getSendsInProgress() == 1);
+        Thread.sleep(100);
+
+        session.releaseSends();
+        await().atMost(Duration.ofSeconds(5)).until(() -> !session.isOpen());
+        assertEquals(List.of("first"), session.getReceived());
+        assertEquals(1, failures("timeout"));
+    }
+
+    @Test
+    void aFailedSendOnAnOpenConnectionDisconnects() {
+        OutboundQueue queue = queue(10_000, Integer.MAX_VALUE);
+        session.failSends();
+
+        queue.enqueue(frame("offer", "lost"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> !session.isOpen());
+        assertEquals(1, failures("error"));
+        assertFalse(queue.detach());
+    }
+
+    @Test
+    void aDetachedQueueKeepsBufferingAndDeliversOnTheConnectionItIsReattachedTo() {
+        OutboundQueue queue = queue(10_000, Integer.MAX_VALUE);
+        // The connection drops while a frame is in flight: the frame is kept for a resume.
+        session.failSends();
+        session.close();
+        queue.enqueue(frame("offer", "in-flight"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> failures("error") == 1);
+
+        assertTrue(queue.detach());
+        queue.enqueue(frame("answer", "while-away"));
+        assertEquals(2, queue.size());
+
+        RecordingWebSocketSession again = new RecordingWebSocketSession("alice/2");
+        assertTrue(queue.reattach(again, null));
+        await().atMost(Duration.ofSeconds(5)).until(() -> again.getReceived().size() == 2);
+        assertEquals(List.of("in-flight", "while-away"), again.getReceived());
+        assertEquals(again, queue.getSession());
+        assertTrue(session.getReceived().isEmpty());
+    }
+
+    @Test
+    void closingWhileDrainingDropsTheRestButLeavesTheSocketToItsOwner() {
+        OutboundQueue queue = queue(10_000, Integer.MAX_VALUE);
+        session.holdSends();
+        queue.enqueue(frame("offer", "first"));
+        queue.enqueue(frame("offer", "second"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> session.getSendsInProgress() == 1);
+
+        queue.close();
+        queue.enqueue(frame("offer", "after-close"));
+        session.releaseSends();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> session.getSendsInProgress() == 0);
+        assertEquals(List.of("first"), session.getReceived());
+        assertEquals(0, queue.size());
+        assertTrue(session.isOpen());
+        assertFalse(queue.detach());
+        assertFalse(queue.reattach(new RecordingWebSocketSession("alice/2"), null));
+    }
+
+    private OutboundQueue queue(long sendTimeLimitMillis, int bufferSizeLimit) {
+        return new OutboundQueue(session, writers, sendTimeLimitMillis, bufferSizeLimit, meters, null);
+    }
+
+    private double failures(String reason) {
+        return registry.get("signaling.outbound.failures").tag("reason", reason).counter().count();
+    }
+
+    // The text is the whole frame, so its length is what counts against the buffer limit.
+    private static EncodedFrame frame(String type, String text) {
+        return new EncodedFrame(type, new TextMessage(text));
+    }
+}
@@ -0,0 +1,109 @@
+package com.ayush.ayush.signaling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomExecutorTest {
+
+    private static final int SUBMITTERS = 4;
+    private static final int TASKS_PER_SUBMITTER = 500;
+
+    private final RoomExecutor executor = new RoomExecutor(RoomExecutor.Mode.ROOM_ACTOR);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void tasksForOneRoomRunOneAtATimeInSubmissionOrder() throws Exception {
+        // Only ever touched by the room's tasks, which must not overlap.
+        List<List<Integer>> seen = new ArrayList<>();
+        for (int s = 0; s < SUBMITTERS; s++) {
+            seen.add(new ArrayList<>());
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(SUBMITTERS * TASKS_PER_SUBMITTER);
+
+        List<Future<?>> submitters = new ArrayList<>();
+        try (ExecutorService threads = Executors.newFixedThreadPool(SUBMITTERS)) {
+            for (int s = 0; s < SUBMITTERS; s++) {
+                int submitter = s;
+                submitters.add(threads.submit(() -> {
+                    for (int i = 0; i < TASKS_PER_SUBMITTER; i++) {
+                        int seq = i;
+                        executor.execute("room-1", () -> {
+                            if (running.incrementAndGet() > 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            seen.get(submitter).add(seq);
+                            running.decrementAndGet();
+                            done.countDown();
+                        });
+                    }
+                }));
+            }
+            for (Future<?> submitter : submitters) {
+                submitter.get();
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (List<Integer> ofSubmitter : seen) {
+            assertEquals(TASKS_PER_SUBMITTER, ofSubmitter.size());
+            for (int i = 0; i < TASKS_PER_SUBMITTER; i++) {
+                assertEquals(i, ofSubmitter.get(i));
+            }
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> executor.activeRooms() == 0);
+    }
+
+    @Test
+    void aBusyRoomDoesNotHoldUpOthersAndIdleMailboxesAreRemoved() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busyDone = new CountDownLatch(1);
+        executor.execute("busy", () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute("busy", busyDone::countDown);
+
+        CountDownLatch otherDone = new CountDownLatch(1);
+        executor.execute("other", () -> {
+            throw new IllegalStateException("a failing task does not stop the room");
+        });
+        executor.execute("other", otherDone::countDown);
+
+        assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+        await().atMost(Duration.ofSeconds(5)).until(() -> executor.activeRooms() == 1);
+        assertEquals(1, busyDone.getCount());
+
+        release.countDown();
+        assertTrue(busyDone.await(5, TimeUnit.SECONDS));
+        await().atMost(Duration.ofSeconds(5)).until(() -> executor.activeRooms() == 0);
+
+        // A room that went idle gets a fresh mailbox for new work.
+        CountDownLatch again = new CountDownLatch(1);
+        executor.execute("busy", again::countDown);
+        assertTrue(again.await(5, TimeUnit.SECONDS));
+    }
+}
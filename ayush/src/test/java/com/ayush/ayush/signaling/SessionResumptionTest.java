@@ -0,0 +1,166 @@
+package com.ayush.ayush.signaling;
+
+import com.ayush.ayush.support.RecordingWebSocketSession;
+import com.ayush.ayush.support.SignalingHarness;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionResumptionTest {
+
+    private SignalingHarness harness;
+    private SFUSignalingHandler handler;
+
+    @AfterEach
+    void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    void aDroppedClientResumesWithoutPeersNoticing() throws Exception {
+        start(10_000);
+        RecordingWebSocketSession alice = join("alice");
+        RecordingWebSocketSession bob = join("bob");
+        String token = awaitToken(alice);
+
+        handler.afterConnectionClosed(alice, CloseStatus.NO_CLOSE_FRAME);
+        send(bob, "{\"type\":\"offer\",\"payload\":{\"remoteUserId\":\"alice\",\"sdp\":\"while-away\"}}");
+
+        RecordingWebSocketSession aliceAgain = new RecordingWebSocketSession("room-1/alice/2");
+        send(aliceAgain, resume(token));
+        await().atMost(Duration.ofSeconds(5)).until(() -> aliceAgain.hasReceived("\"offer\"", "while-away"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> aliceAgain.hasReceived("\"session\""));
+
+        // Messages from the resumed client are routed as before, and the used token is gone.
+        send(aliceAgain, "{\"type\":\"answer\",\"payload\":{\"remoteUserId\":\"bob\",\"sdp\":\"after-resume\"}}");
+        await().atMost(Duration.ofSeconds(5)).until(() -> bob.hasReceived("\"answer\"", "after-resume"));
+        assertFalse(bob.hasReceived("participant_left"));
+        RecordingWebSocketSession replay = new RecordingWebSocketSession("room-1/alice/3");
+        send(replay, resume(token));
+        await().atMost(Duration.ofSeconds(5)).until(() -> replay.hasReceived("resume_failed"));
+    }
+
+    @Test
+    void aClientThatDoesNotComeBackLeavesAfterTheGracePeriod() throws Exception {
+        start(100);
+        RecordingWebSocketSession alice = join("alice");
+        RecordingWebSocketSession bob = join("bob");
+        String token = awaitToken(alice);
+
+        handler.afterConnectionClosed(alice, CloseStatus.NO_CLOSE_FRAME);
+        assertFalse(bob.hasReceived("participant_left"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> bob.hasReceived("participant_left", "alice"));
+
+        RecordingWebSocketSession late = new RecordingWebSocketSession("room-1/alice/2");
+        send(late, resume(token));
+        await().atMost(Duration.ofSeconds(5)).until(() -> late.hasReceived("resume_failed"));
+    }
+
+    @Test
+    void resumingTakesOverAConnectionTheServerStillThinksIsOpen() throws Exception {
+        start(10_000);
+        RecordingWebSocketSession alice = join("alice");
+        RecordingWebSocketSession bob = join("bob");
+        String token = awaitToken(alice);
+
+        RecordingWebSocketSession aliceAgain = new RecordingWebSocketSession("room-1/alice/2");
+        send(aliceAgain, resume(token));
+        await().atMost(Duration.ofSeconds(5)).until(() -> !alice.isOpen());
+        // The old connection's close comes later and must neither park nor end the session.
+        handler.afterConnectionClosed(alice, CloseStatus.NORMAL);
+
+        send(bob, "{\"type\":\"offer\",\"payload\":{\"remoteUserId\":\"alice\",\"sdp\":\"after-takeover\"}}");
+        await().atMost(Duration.ofSeconds(5)).until(() -> aliceAgain.hasReceived("\"offer\"", "after-takeover"));
+        assertFalse(bob.hasReceived("participant_left"));
+        assertTrue(harness.getRoomManager().getParticipant("room-1", "alice").isPresent());
+    }
+
+    @Test
+    void takingOverADeadConnectionDoesNotWaitForItsClose() throws Exception {
+        start(10_000);
+        RecordingWebSocketSession alice = join("alice");
+        RecordingWebSocketSession bob = join("bob");
+        String token = awaitToken(alice);
+        // Alice stopped reading: her writer is stuck in a send, and a close would be too.
+        alice.holdSends();
+        send(bob, "{\"type\":\"offer\",\"payload\":{\"remoteUserId\":\"alice\",\"sdp\":\"stuck\"}}");
+        await().atMost(Duration.ofSeconds(5)).until(() -> alice.getSendsInProgress() == 1);
+
+        RecordingWebSocketSession aliceAgain = new RecordingWebSocketSession("room-1/alice/2");
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> send(aliceAgain, resume(token)));
+        assertTrue(alice.isOpen());
+
+        // Once the stuck send gives up, the old connection is closed and the queue carries on with the new one.
+        alice.releaseSends();
+        await().atMost(Duration.ofSeconds(5)).until(() -> !alice.isOpen());
+        assertEquals(CloseStatus.NORMAL, alice.getCloseStatus());
+        await().atMost(Duration.ofSeconds(5)).until(() -> aliceAgain.hasReceived("\"session\""));
+    }
+
+    @Test
+    void aResumeOnAConnectionThatAlreadyJoinedIsIgnored() throws Exception {
+        start(10_000);
+        RecordingWebSocketSession alice = join("alice");
+        RecordingWebSocketSession bob = join("bob");
+        String bobToken = awaitToken(bob);
+
+        send(alice, resume(bobToken));
+        send(bob, "{\"type\":\"offer\",\"payload\":{\"remoteUserId\":\"alice\",\"sdp\":\"still-bob\"}}");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> alice.hasReceived("\"offer\"", "still-bob"));
+        assertTrue(bob.isOpen());
+        assertFalse(alice.hasReceived("resume_failed"));
+        send(alice, "{\"type\":\"answer\",\"payload\":{\"remoteUserId\":\"bob\",\"sdp\":\"still-alice\"}}");
+        await().atMost(Duration.ofSeconds(5)).until(() -> bob.hasReceived("\"answer\"", "still-alice"));
+    }
+
+    @Test
+    void aConnectionWhoseResumeFailedKeepsOneWriterAndJoins() throws Exception {
+        start(10_000);
+        RecordingWebSocketSession bob = join("bob");
+        String bobToken = awaitToken(bob);
+
+        RecordingWebSocketSession carol = new RecordingWebSocketSession("room-1/carol");
+        carol.setSendMillis(20);
+        send(carol, resume("unknown"));
+        // After a failed resume the connection has to join, even with a token that would work.
+        send(carol, resume(bobToken));
+        harness.join(carol, "carol");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> carol.hasReceived("existing_participants", "bob"));
+        assertEquals(2, carol.getReceived().stream().filter(frame -> frame.contains("resume_failed")).count());
+        assertEquals(1, carol.getMaxConcurrentSends());
+        assertTrue(bob.isOpen());
+    }
+
+    private void start(long graceMillis) {
+        harness = new SignalingHarness(graceMillis, Heartbeats.disabled(), AdmissionControl.disabled());
+        handler = harness.getHandler();
+    }
+
+    private RecordingWebSocketSession join(String userId) throws Exception {
+        return harness.join(userId);
+    }
+
+    private void send(RecordingWebSocketSession session, String frame) throws Exception {
+        harness.send(session, frame);
+    }
+
+    private String awaitToken(RecordingWebSocketSession session) throws Exception {
+        await().atMost(Duration.ofSeconds(5)).until(() -> session.hasReceived("\"session\""));
+        String frame = session.getReceived().stream().filter(f -> f.contains("\"session\"")).findFirst().orElseThrow();
+        return harness.getObjectMapper().readTree(frame).path("payload").path("resumeToken").asText();
+    }
+
+    private static String resume(String token) {
+        return "{\"type\":\"resume\",\"payload\":{\"resumeToken\":\"" + token + "\"}}";
+    }
+}
@@ -0,0 +1,36 @@
+package com.ayush.ayush.support;
+
+import com.ayush.ayush.service.IdBlockSource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Leases id blocks from memory, standing in for the id_sequences table.
+ */
+public class InMemoryIdBlockSource implements IdBlockSource {
+
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+    private final AtomicLong leases = new AtomicLong();
+    private final long permutationKey;
+
+    public InMemoryIdBlockSource() {
+        this(0x5EED_CAFE_F00DL);
+    }
+
+    public InMemoryIdBlockSource(long permutationKey) {
+        this.permutationKey = permutationKey;
+    }
+
+    @Override
+    public IdBlock lease(String sequence, long blockSize) {
+        leases.incrementAndGet();
+        long start = sequences.computeIfAbsent(sequence, k -> new AtomicLong()).getAndAdd(blockSize);
+        return new IdBlock(start, start + blockSize, permutationKey);
+    }
+
+    public long getLeases() {
+        return leases.get();
+    }
+}
@@ -0,0 +1,148 @@
+package com.ayush.ayush.support;
+
+import com.ayush.ayush.bench.StubWebSocketSession;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stub session that keeps the text of every frame sent to it, for tests that assert on what a client received.
+ * Binary frames are kept as the bytes a container would write, read from the buffer's position on.
+ */
+public class RecordingWebSocketSession extends StubWebSocketSession {
+
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final List<byte[]> receivedBinary = new CopyOnWriteArrayList<>();
+    private final AtomicInteger sending = new AtomicInteger();
+    private volatile int maxConcurrentSends;
+    private volatile long sendMillis;
+    private volatile CountDownLatch held;
+    private volatile boolean failing;
+    private volatile CloseStatus closeStatus;
+
+    public RecordingWebSocketSession(String id) {
+        super(id);
+    }
+
+    public List<String> getReceived() {
+        return received;
+    }
+
+    public List<byte[]> getReceivedBinary() {
+        return receivedBinary;
+    }
+
+    /**
+     * Whether any received frame contains all the given fragments.
+     */
+    public boolean hasReceived(String... fragments) {
+        return received.stream().anyMatch(frame -> List.of(fragments).stream().allMatch(frame::contains));
+    }
+
+    /**
+     * Makes every send take this long, like a slow client, so overlapping sends show up.
+     */
+    public void setSendMillis(long sendMillis) {
+        this.sendMillis = sendMillis;
+    }
+
+    /**
+     * Blocks every send, and the close handshake, until {@link #releaseSends()}, like a client that stopped reading.
+     */
+    public void holdSends() {
+        held = new CountDownLatch(1);
+    }
+
+    public void releaseSends() {
+        CountDownLatch latch = held;
+        held = null;
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Makes every send fail, like a broken pipe.
+     */
+    public void failSends() {
+        failing = true;
+    }
+
+    public int getSendsInProgress() {
+        return sending.get();
+    }
+
+    /**
+     * The status the server closed the connection with, or null if it did not.
+     */
+    public CloseStatus getCloseStatus() {
+        return closeStatus;
+    }
+
+    /**
+     * The most sends that were ever in progress at once; more than one means two writers shared the socket.
+     * A close counts as a send, since the close frame is written to the socket too.
+     */
+    public int getMaxConcurrentSends() {
+        return maxConcurrentSends;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        int concurrent = sending.incrementAndGet();
+        maxConcurrentSends = Math.max(maxConcurrentSends, concurrent);
+        try {
+            if (sendMillis > 0) {
+                Thread.sleep(sendMillis);
+            }
+            CountDownLatch latch = held;
+            if (latch != null) {
+                latch.await();
+            }
+            if (failing) {
+                throw new UncheckedIOException(new IOException("Broken pipe"));
+            }
+            super.sendMessage(message);
+            if (message instanceof TextMessage text) {
+                received.add(text.getPayload());
+            } else if (message instanceof BinaryMessage binary) {
+                // Consumes the buffer, as the container's writer does.
+                ByteBuffer payload = binary.getPayload();
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                receivedBinary.add(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sending.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        int concurrent = sending.incrementAndGet();
+        maxConcurrentSends = Math.max(maxConcurrentSends, concurrent);
+        try {
+            CountDownLatch latch = held;
+            if (latch != null) {
+                latch.await();
+            }
+            closeStatus = status;
+            super.close(status);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sending.decrementAndGet();
+        }
+    }
+}
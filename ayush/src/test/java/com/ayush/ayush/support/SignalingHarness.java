@@ -0,0 +1,96 @@
+package com.ayush.ayush.support;
+
+import com.ayush.ayush.journal.SignalingJournal;
+import com.ayush.ayush.service.IceCandidateBatcher;
+import com.ayush.ayush.service.LargeRoomPresence;
+import com.ayush.ayush.service.RoomManager;
+import com.ayush.ayush.service.SfuService;
+import com.ayush.ayush.signaling.AdmissionControl;
+import com.ayush.ayush.signaling.BinaryProtocol;
+import com.ayush.ayush.signaling.FrameEncoder;
+import com.ayush.ayush.signaling.Heartbeats;
+import com.ayush.ayush.signaling.MessageParser;
+import com.ayush.ayush.signaling.OutboundDispatcher;
+import com.ayush.ayush.signaling.RoomExecutor;
+import com.ayush.ayush.signaling.SFUSignalingHandler;
+import com.ayush.ayush.signaling.SessionResumption;
+import com.ayush.ayush.signaling.SignalingMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.Optional;
+
+/**
+ * A signaling handler wired up the way the application wires it, minus the journal, presence and clustering, for
+ * tests that drive it frame by frame. Everyone joins "room-1". Close it to stop its background threads.
+ */
+public class SignalingHarness implements AutoCloseable {
+
+    public static final String ROOM = "room-1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RoomManager roomManager = new RoomManager();
+    private final FrameEncoder frameEncoder = new FrameEncoder(objectMapper);
+    private final OutboundDispatcher outboundDispatcher = new OutboundDispatcher(10_000, Integer.MAX_VALUE,
+            new SimpleMeterRegistry(), new BinaryProtocol(256));
+    private final SessionResumption sessionResumption;
+    private final Heartbeats heartbeats;
+    private final SFUSignalingHandler handler;
+
+    /**
+     * @param resumeGraceMillis How long a dropped session may be resumed; 0 turns resumption off.
+     */
+    public SignalingHarness(long resumeGraceMillis, Heartbeats heartbeats, AdmissionControl admissionControl) {
+        SfuService sfuService = new SfuService(roomManager, frameEncoder, new IceCandidateBatcher(frameEncoder, 0),
+                SignalingJournal.disabled(), LargeRoomPresence.disabled(roomManager, frameEncoder), Optional.empty());
+        this.sessionResumption = new SessionResumption(frameEncoder, outboundDispatcher, resumeGraceMillis);
+        this.heartbeats = heartbeats;
+        this.handler = new SFUSignalingHandler(sfuService, new MessageParser(objectMapper), outboundDispatcher,
+                new RoomExecutor(RoomExecutor.Mode.DIRECT), new SignalingMetrics(new SimpleMeterRegistry()),
+                SignalingJournal.disabled(), new BinaryProtocol(256), sessionResumption, heartbeats, admissionControl);
+    }
+
+    public SFUSignalingHandler getHandler() {
+        return handler;
+    }
+
+    public RoomManager getRoomManager() {
+        return roomManager;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Opens a connection for the user and sends "join" on it.
+     */
+    public RecordingWebSocketSession join(String userId) throws Exception {
+        return join(new RecordingWebSocketSession(ROOM + "/" + userId), userId);
+    }
+
+    /**
+     * Opens the given connection and sends "join" on it.
+     */
+    public <S extends RecordingWebSocketSession> S join(S session, String userId) throws Exception {
+        handler.afterConnectionEstablished(session);
+        send(session, joinFrame(userId));
+        return session;
+    }
+
+    public void send(RecordingWebSocketSession session, String frame) throws Exception {
+        handler.handleMessage(session, new TextMessage(frame));
+    }
+
+    public static String joinFrame(String userId) {
+        return "{\"type\":\"join\",\"payload\":{\"roomId\":\"" + ROOM + "\",\"userId\":\"" + userId + "\"}}";
+    }
+
+    @Override
+    public void close() {
+        heartbeats.shutdown();
+        sessionResumption.shutdown();
+        outboundDispatcher.shutdown();
+    }
+}
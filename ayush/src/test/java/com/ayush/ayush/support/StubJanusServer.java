@@ -0,0 +1,182 @@
+package com.ayush.ayush.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A tiny in-process stand-in for the Janus REST API (sessions, videoroom handles and rooms),
+ * with knobs for injecting latency and for forgetting sessions the way a restarted Janus would.
+ */
+public class StubJanusServer implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicLong ids = new AtomicLong(1000);
+    private final Set<Long> sessions = ConcurrentHashMap.newKeySet();
+    private final Set<Long> rooms = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> participants = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private volatile Duration latency = Duration.ZERO;
+
+    public StubJanusServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/janus", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/janus";
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Simulates a Janus restart: every existing session now answers with error 458.
+     */
+    public void forgetSessions() {
+        sessions.clear();
+    }
+
+    /**
+     * Number of requests received with the given "janus" verb (e.g. "attach"),
+     * or with the given videoroom request prefixed by "videoroom:" (e.g. "videoroom:create").
+     */
+    public int requestCount(String verb) {
+        AtomicInteger count = requestCounts.get(verb);
+        return count == null ? 0 : count.get();
+    }
+
+    public Set<Long> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Sets the participant count that "list" reports for a room.
+     */
+    public void setParticipants(long room, int count) {
+        participants.put(room, count);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            String[] path = exchange.getRequestURI().getPath().replaceFirst("^/janus/?", "").split("/");
+            ObjectNode response = respond(request, path);
+            response.put("transaction", request.path("transaction").asText());
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ObjectNode respond(JsonNode request, String[] path) {
+        String verb = request.path("janus").asText();
+        count(verb);
+        boolean root = path.length == 0 || path[0].isEmpty();
+        if (root) {
+            if (!verb.equals("create")) {
+                return error(457, "Unhandled request at this path");
+            }
+            long sessionId = ids.incrementAndGet();
+            sessions.add(sessionId);
+            return success(sessionId);
+        }
+        long sessionId = Long.parseLong(path[0]);
+        if (!sessions.contains(sessionId)) {
+            return error(458, "No such session " + sessionId);
+        }
+        return switch (verb) {
+            case "keepalive" -> objectMapper.createObjectNode().put("janus", "ack");
+            case "destroy" -> {
+                sessions.remove(sessionId);
+                yield objectMapper.createObjectNode().put("janus", "success");
+            }
+            case "attach" -> success(ids.incrementAndGet());
+            case "message" -> videoRoom(request.path("body"));
+            default -> error(457, "Unhandled request '" + verb + "'");
+        };
+    }
+
+    private ObjectNode videoRoom(JsonNode body) {
+        String request = body.path("request").asText();
+        count("videoroom:" + request);
+        ObjectNode data = objectMapper.createObjectNode();
+        switch (request) {
+            case "create" -> {
+                long room = body.path("room").asLong();
+                if (!rooms.add(room)) {
+                    data.put("videoroom", "event").put("error_code", 427).put("error", "Room " + room + " already exists");
+                } else {
+                    data.put("videoroom", "created").put("room", room);
+                }
+            }
+            case "destroy" -> {
+                long room = body.path("room").asLong();
+                if (!rooms.remove(room)) {
+                    data.put("videoroom", "event").put("error_code", 426).put("error", "No such room (" + room + ")");
+                } else {
+                    data.put("videoroom", "destroyed").put("room", room);
+                }
+            }
+            case "list" -> {
+                data.put("videoroom", "success");
+                var list = data.putArray("list");
+                rooms.forEach(room -> list.addObject().put("room", room).put("num_participants", participants.getOrDefault(room, 0)));
+            }
+            default -> data.put("videoroom", "event").put("error_code", 422).put("error", "Unknown request");
+        }
+        ObjectNode response = objectMapper.createObjectNode().put("janus", "success");
+        response.putObject("plugindata").put("plugin", "janus.plugin.videoroom").set("data", data);
+        return response;
+    }
+
+    private ObjectNode success(long id) {
+        ObjectNode response = objectMapper.createObjectNode().put("janus", "success");
+        response.putObject("data").put("id", id);
+        return response;
+    }
+
+    private ObjectNode error(int code, String reason) {
+        ObjectNode response = objectMapper.createObjectNode().put("janus", "error");
+        response.putObject("error").put("code", code).put("reason", reason);
+        return response;
+    }
+
+    private void count(String verb) {
+        requestCounts.computeIfAbsent(verb, k -> new AtomicInteger()).incrementAndGet();
+    }
+}
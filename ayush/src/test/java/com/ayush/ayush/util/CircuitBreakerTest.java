@@ -0,0 +1,46 @@
+package com.ayush.ayush.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakerTest {
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMillis(50));
+
+    @Test
+    void aCancelledProbeOpensTheCircuitAgainInsteadOfHangingHalfOpen() {
+        assertThrows(IllegalStateException.class, () -> breaker.protect(Mono.error(new IllegalStateException())).block());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertInstanceOf(CircuitBreaker.OpenException.class,
+                assertThrows(RuntimeException.class, () -> breaker.protect(Mono.just("skipped")).block()));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> {
+            Disposable probe = breaker.protect(Mono.never()).subscribe(value -> { }, error -> { });
+            boolean probing = breaker.getState() == CircuitBreaker.State.HALF_OPEN;
+            probe.dispose();
+            return probing;
+        });
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // The next probe is let through once the open duration has passed again, and closes the circuit.
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> "ok".equals(breaker.protect(Mono.just("ok")).onErrorReturn("open").block()));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void aCancelledCallWhileClosedIsNotAFailure() {
+        breaker.protect(Mono.never()).subscribe().dispose();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals("ok", breaker.protect(Mono.just("ok")).block());
+    }
+}
@@ -0,0 +1,65 @@
+package com.ayush.ayush.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private final TimingWheel wheel = new TimingWheel("test-wheel", 1, TimeUnit.MILLISECONDS);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void timeoutsFireInDeadlineOrderAndNeverEarly() {
+        List<Long> fired = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+        for (long delay : new long[]{30, 10, 20}) {
+            wheel.schedule(() -> {
+                fired.add(delay);
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(delay));
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> fired.size() == 3);
+        assertEquals(List.of(10L, 20L, 30L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledTimeoutsDoNotRun() {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        TimingWheel.Timeout cancelled = wheel.schedule(() -> fired.add("cancelled"), 20, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> fired.add("kept"), 40, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> fired.contains("kept"));
+        assertEquals(List.of("kept"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void longDelaysCascadeDownToTheFirstWheel() {
+        // Past 64 ticks a timeout starts on the second wheel and is moved down as the first one comes round.
+        List<Long> fired = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+        for (long delay : new long[]{300, 70, 150}) {
+            wheel.schedule(() -> fired.add(delay), delay, TimeUnit.MILLISECONDS);
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> fired.size() == 3);
+        assertEquals(List.of(70L, 150L, 300L), fired);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+}